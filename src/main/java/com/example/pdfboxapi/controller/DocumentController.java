@@ -0,0 +1,154 @@
+package com.example.pdfboxapi.controller;
+
+import com.example.pdfboxapi.service.DocumentStore;
+import com.example.pdfboxapi.service.StoredDocument;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * REST controller for stored document sessions
+ *
+ * This controller lets a client upload a PDF once and reference it by id in
+ * subsequent operations instead of uploading it again.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/api/v1/documents")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Documents", description = "API endpoints for uploading PDF documents once and reusing them")
+public class DocumentController {
+
+    private final DocumentStore documentStore;
+
+    /**
+     * Stores a PDF file for use by later operations
+     *
+     * @param pdfFile The PDF file to store
+     * @return API response containing the document id
+     */
+    @Operation(
+        summary = "Upload a PDF document",
+        description = "Stores a PDF file and returns an id that can be passed as documentId to other operations"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Document stored"),
+        @ApiResponse(responseCode = "400", description = "Invalid request parameters"),
+        @ApiResponse(responseCode = "500", description = "Error storing PDF file")
+    })
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public com.example.pdfboxapi.model.ApiResponse<DocumentInfo> uploadDocument(
+            @Parameter(description = "PDF file to store", required = true)
+            @RequestParam("pdfFile") MultipartFile pdfFile
+    ) {
+        try {
+            StoredDocument document = documentStore.store(pdfFile);
+            return com.example.pdfboxapi.model.ApiResponse.success(
+                    DocumentInfo.of(document),
+                    "Document stored successfully"
+            );
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid request parameters: {}", e.getMessage());
+            return com.example.pdfboxapi.model.ApiResponse.error("Invalid request: " + e.getMessage());
+        } catch (IOException e) {
+            log.error("Error storing PDF file", e);
+            return com.example.pdfboxapi.model.ApiResponse.error("Error storing PDF file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns information about a stored document
+     *
+     * @param documentId Id of the stored document
+     * @return API response containing the document information
+     */
+    @Operation(
+        summary = "Get a stored document",
+        description = "Returns the metadata of a stored PDF document"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Document found"),
+        @ApiResponse(responseCode = "404", description = "Unknown or expired document")
+    })
+    @GetMapping("/{documentId}")
+    public ResponseEntity<com.example.pdfboxapi.model.ApiResponse<DocumentInfo>> getDocument(
+            @Parameter(description = "Id of the stored document", required = true)
+            @PathVariable String documentId
+    ) {
+        try {
+            StoredDocument document = documentStore.get(documentId);
+            return ResponseEntity.ok(com.example.pdfboxapi.model.ApiResponse.success(
+                    DocumentInfo.of(document),
+                    "Document found"
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Deletes a stored document
+     *
+     * @param documentId Id of the stored document
+     * @return Empty response
+     */
+    @Operation(
+        summary = "Delete a stored document",
+        description = "Removes a stored PDF document before it expires"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Document deleted"),
+        @ApiResponse(responseCode = "404", description = "Unknown or expired document"),
+        @ApiResponse(responseCode = "500", description = "Error deleting PDF file")
+    })
+    @DeleteMapping("/{documentId}")
+    public ResponseEntity<Void> deleteDocument(
+            @Parameter(description = "Id of the stored document", required = true)
+            @PathVariable String documentId
+    ) {
+        try {
+            return documentStore.delete(documentId)
+                    ? ResponseEntity.noContent().build()
+                    : ResponseEntity.notFound().build();
+        } catch (IOException e) {
+            log.error("Error deleting stored document {}", documentId, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Inner class representing a stored document
+     */
+    @lombok.Data
+    public static class DocumentInfo {
+        private String documentId;
+        private String filename;
+        private long size;
+        private String sha256;
+        private Instant expiresAt;
+
+        static DocumentInfo of(StoredDocument document) {
+            DocumentInfo info = new DocumentInfo();
+            info.setDocumentId(document.getId());
+            info.setFilename(document.getOriginalFilename());
+            info.setSize(document.getSize());
+            info.setSha256(document.getSha256());
+            info.setExpiresAt(document.getExpiresAt());
+            return info;
+        }
+    }
+}
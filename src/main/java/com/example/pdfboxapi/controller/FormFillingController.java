@@ -2,6 +2,7 @@ package com.example.pdfboxapi.controller;
 
 import com.example.pdfboxapi.model.ApiResponse;
 import com.example.pdfboxapi.model.request.FormFillingRequest;
+import com.example.pdfboxapi.service.DocumentStore;
 import com.example.pdfboxapi.service.FormFillingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -38,11 +39,13 @@ import java.io.IOException;
 public class FormFillingController {
 
     private final FormFillingService formFillingService;
+    private final DocumentStore documentStore;
 
     /**
      * Fills form fields in a PDF document
      * 
      * @param pdfFile The PDF form file to fill
+     * @param documentId Id of a stored document, used instead of pdfFile
      * @param formData Form field data in JSON format
      * @param flatten Whether to flatten the form after filling
      * @return The filled PDF form
@@ -58,8 +61,11 @@ public class FormFillingController {
     })
     @PostMapping(value = "/fill", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Resource> fillForm(
-            @Parameter(description = "PDF form file to fill", required = true)
-            @RequestParam("pdfFile") MultipartFile pdfFile,
+            @Parameter(description = "PDF form file to fill (or use documentId)")
+            @RequestParam(value = "pdfFile", required = false) MultipartFile pdfFile,
+
+            @Parameter(description = "Id of a document stored via /api/v1/documents")
+            @RequestParam(value = "documentId", required = false) String documentId,
             
             @Parameter(description = "Form field data in JSON format", required = true)
             @RequestParam("formData") String formData,
@@ -70,7 +76,7 @@ public class FormFillingController {
     ) {
         try {
             FormFillingRequest request = new FormFillingRequest();
-            request.setPdfFile(pdfFile);
+            request.setPdfFile(documentStore.resolve(pdfFile, documentId));
             request.setFormData(formData);
             request.setFlatten(flatten);
             
@@ -0,0 +1,367 @@
+package com.example.pdfboxapi.controller;
+
+import com.example.pdfboxapi.model.request.PdfSplitRequest;
+import com.example.pdfboxapi.service.DocumentStore;
+import com.example.pdfboxapi.service.Job;
+import com.example.pdfboxapi.service.JobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * REST controller for asynchronous jobs
+ *
+ * This controller accepts long-running operations, returns a job id at once and
+ * lets the client poll the job and download its result when it has finished.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/api/v1/jobs")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Jobs", description = "API endpoints for running long operations asynchronously")
+public class JobController {
+
+    private final JobService jobService;
+    private final DocumentStore documentStore;
+
+    /**
+     * Submits a merge job
+     *
+     * @param pdfFiles The PDF files to merge
+     * @param documentIds Ids of stored documents, merged after pdfFiles
+     * @return API response containing the queued job
+     */
+    @Operation(
+        summary = "Merge PDFs asynchronously",
+        description = "Queues a merge of multiple PDF files and returns a job id"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Job queued"),
+        @ApiResponse(responseCode = "400", description = "Invalid request parameters"),
+        @ApiResponse(responseCode = "500", description = "Error storing job inputs")
+    })
+    @PostMapping(value = "/merge", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<com.example.pdfboxapi.model.ApiResponse<JobInfo>> submitMerge(
+            @Parameter(description = "PDF files to merge (minimum 2 files together with documentIds)")
+            @RequestParam(value = "pdfFiles", required = false) MultipartFile[] pdfFiles,
+
+            @Parameter(description = "Ids of documents stored via /api/v1/documents, merged after pdfFiles")
+            @RequestParam(value = "documentIds", required = false) String[] documentIds
+    ) {
+        try {
+            return accepted(jobService.submitMerge(documentStore.resolveAll(pdfFiles, documentIds)));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        } catch (IOException e) {
+            return serverError(e);
+        }
+    }
+
+    /**
+     * Submits a job converting all pages of a PDF to images
+     *
+     * @param pdfFile The PDF file to convert
+     * @param documentId Id of a stored document, used instead of pdfFile
+     * @param imageFormat The output image format
+     * @param dpi The resolution of the images
+     * @param parallelism Number of pages rendered concurrently
+     * @return API response containing the queued job
+     */
+    @Operation(
+        summary = "Convert PDF to images asynchronously",
+        description = "Queues the conversion of every page to an image; the result is a ZIP file"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Job queued"),
+        @ApiResponse(responseCode = "400", description = "Invalid request parameters"),
+        @ApiResponse(responseCode = "500", description = "Error storing job inputs")
+    })
+    @PostMapping(value = "/render", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<com.example.pdfboxapi.model.ApiResponse<JobInfo>> submitRender(
+            @Parameter(description = "PDF file to convert (or use documentId)")
+            @RequestParam(value = "pdfFile", required = false) MultipartFile pdfFile,
+
+            @Parameter(description = "Id of a document stored via /api/v1/documents")
+            @RequestParam(value = "documentId", required = false) String documentId,
+
+            @Parameter(description = "Image format (PNG, JPEG, etc.)")
+            @RequestParam(value = "imageFormat", required = false, defaultValue = "PNG")
+            String imageFormat,
+
+            @Parameter(description = "DPI (dots per inch) for the output images")
+            @RequestParam(value = "dpi", required = false, defaultValue = "300")
+            int dpi,
+
+            @Parameter(description = "Number of pages to render concurrently (defaults to app.render.parallelism)")
+            @RequestParam(value = "parallelism", required = false)
+            Integer parallelism
+    ) {
+        try {
+            return accepted(jobService.submitRender(documentStore.resolve(pdfFile, documentId),
+                    imageFormat, dpi, parallelism));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        } catch (IOException e) {
+            return serverError(e);
+        }
+    }
+
+    /**
+     * Submits a split job
+     *
+     * @param pdfFile The PDF file to split
+     * @param documentId Id of a stored document, used instead of pdfFile
+     * @param splitType The type of split operation
+     * @param pageRanges Page ranges for splitting (only used when splitType is BY_RANGE)
+     * @param compact Whether to keep only the resources each part's pages use
+     * @param maxPartSize Largest part size in bytes (only used when splitType is BY_SIZE)
+     * @return API response containing the queued job
+     */
+    @Operation(
+        summary = "Split PDF asynchronously",
+        description = "Queues a split of a PDF file; the result is a ZIP file"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Job queued"),
+        @ApiResponse(responseCode = "400", description = "Invalid request parameters"),
+        @ApiResponse(responseCode = "500", description = "Error storing job inputs")
+    })
+    @PostMapping(value = "/split", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<com.example.pdfboxapi.model.ApiResponse<JobInfo>> submitSplit(
+            @Parameter(description = "PDF file to split (or use documentId)")
+            @RequestParam(value = "pdfFile", required = false) MultipartFile pdfFile,
+
+            @Parameter(description = "Id of a document stored via /api/v1/documents")
+            @RequestParam(value = "documentId", required = false) String documentId,
+
+            @Parameter(description = "Split type (BY_PAGE, BY_RANGE or BY_SIZE)")
+            @RequestParam(value = "splitType", required = false, defaultValue = "BY_PAGE")
+            PdfSplitRequest.SplitType splitType,
+
+            @Parameter(description = "Page ranges for splitting (e.g., '1-3,5,7-10')")
+            @RequestParam(value = "pageRanges", required = false)
+            String pageRanges,
+
+            @Parameter(description = "Keep only the fonts, images and other resources each part's pages use, "
+                    + "and drop references to pages outside the part")
+            @RequestParam(value = "compact", required = false, defaultValue = "false")
+            boolean compact,
+
+            @Parameter(description = "Largest size in bytes of a part for BY_SIZE, e.g. 10485760 for 10 MB; "
+                    + "parts are cut by an estimate, so this is a best-effort limit")
+            @RequestParam(value = "maxPartSize", required = false)
+            Long maxPartSize
+    ) {
+        try {
+            return accepted(jobService.submitSplit(documentStore.resolve(pdfFile, documentId),
+                    splitType, pageRanges, compact, maxPartSize));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        } catch (IOException e) {
+            return serverError(e);
+        }
+    }
+
+    /**
+     * Submits a validation job
+     *
+     * @param pdfFile The PDF file to validate
+     * @param documentId Id of a stored document, used instead of pdfFile
+     * @param profile The validation profile
+     * @return API response containing the queued job
+     */
+    @Operation(
+        summary = "Validate PDF asynchronously",
+        description = "Queues a validation of a PDF file; the result is a JSON document"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Job queued"),
+        @ApiResponse(responseCode = "400", description = "Invalid request parameters"),
+        @ApiResponse(responseCode = "500", description = "Error storing job inputs")
+    })
+    @PostMapping(value = "/validate", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<com.example.pdfboxapi.model.ApiResponse<JobInfo>> submitValidation(
+            @Parameter(description = "PDF file to validate (or use documentId)")
+            @RequestParam(value = "pdfFile", required = false) MultipartFile pdfFile,
+
+            @Parameter(description = "Id of a document stored via /api/v1/documents")
+            @RequestParam(value = "documentId", required = false) String documentId,
+
+            @Parameter(description = "Validation profile (e.g., 'PDF/A-1b')")
+            @RequestParam(value = "profile", required = false, defaultValue = "PDF/A-1b")
+            String profile
+    ) {
+        try {
+            return accepted(jobService.submitValidation(documentStore.resolve(pdfFile, documentId), profile));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        } catch (IOException e) {
+            return serverError(e);
+        }
+    }
+
+    /**
+     * Returns the status and progress of a job
+     *
+     * @param jobId Id of the job
+     * @return API response containing the job
+     */
+    @Operation(
+        summary = "Get a job",
+        description = "Returns the status and progress of a job"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Job found"),
+        @ApiResponse(responseCode = "404", description = "Unknown or expired job")
+    })
+    @GetMapping("/{jobId}")
+    public ResponseEntity<com.example.pdfboxapi.model.ApiResponse<JobInfo>> getJob(
+            @Parameter(description = "Id of the job", required = true)
+            @PathVariable String jobId
+    ) {
+        try {
+            Job job = jobService.get(jobId);
+            return ResponseEntity.ok(com.example.pdfboxapi.model.ApiResponse.success(
+                    JobInfo.of(job),
+                    "Job is " + job.getStatus()
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Downloads the result of a finished job
+     *
+     * @param jobId Id of the job
+     * @return The result file
+     */
+    @Operation(
+        summary = "Download a job result",
+        description = "Returns the result of a job that has succeeded"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Result returned"),
+        @ApiResponse(responseCode = "404", description = "Unknown or expired job"),
+        @ApiResponse(responseCode = "409", description = "Job has not succeeded")
+    })
+    @GetMapping("/{jobId}/result")
+    public ResponseEntity<Resource> getResult(
+            @Parameter(description = "Id of the job", required = true)
+            @PathVariable String jobId
+    ) {
+        try {
+            Job job = jobService.get(jobId);
+            Resource result = new FileSystemResource(jobService.getResult(jobId));
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + job.getResultFilename())
+                    .contentType(MediaType.parseMediaType(job.getResultContentType()))
+                    .body(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Deletes a job and its result
+     *
+     * @param jobId Id of the job
+     * @return Empty response
+     */
+    @Operation(
+        summary = "Delete a job",
+        description = "Removes a queued or finished job and its result"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Job deleted"),
+        @ApiResponse(responseCode = "404", description = "Unknown job"),
+        @ApiResponse(responseCode = "409", description = "Job is running"),
+        @ApiResponse(responseCode = "500", description = "Error deleting job files")
+    })
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<Void> deleteJob(
+            @Parameter(description = "Id of the job", required = true)
+            @PathVariable String jobId
+    ) {
+        try {
+            return jobService.delete(jobId)
+                    ? ResponseEntity.noContent().build()
+                    : ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IOException e) {
+            log.error("Error deleting job {}", jobId, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    private static ResponseEntity<com.example.pdfboxapi.model.ApiResponse<JobInfo>> accepted(Job job) {
+        return ResponseEntity.accepted().body(com.example.pdfboxapi.model.ApiResponse.success(
+                JobInfo.of(job),
+                "Job queued"
+        ));
+    }
+
+    private static ResponseEntity<com.example.pdfboxapi.model.ApiResponse<JobInfo>> badRequest(
+            IllegalArgumentException e) {
+        log.warn("Invalid request parameters: {}", e.getMessage());
+        return ResponseEntity.badRequest().body(
+                com.example.pdfboxapi.model.ApiResponse.error("Invalid request: " + e.getMessage()));
+    }
+
+    private static ResponseEntity<com.example.pdfboxapi.model.ApiResponse<JobInfo>> serverError(IOException e) {
+        log.error("Error storing job inputs", e);
+        return ResponseEntity.internalServerError().body(
+                com.example.pdfboxapi.model.ApiResponse.error("Error storing job inputs: " + e.getMessage()));
+    }
+
+    /**
+     * Inner class representing a job
+     */
+    @lombok.Data
+    public static class JobInfo {
+        private String jobId;
+        private Job.Type type;
+        private Job.Status status;
+        private int done;
+        private int total;
+        private String error;
+        private Instant createdAt;
+        private Instant finishedAt;
+        private Instant expiresAt;
+
+        static JobInfo of(Job job) {
+            JobInfo info = new JobInfo();
+            info.setJobId(job.getId());
+            info.setType(job.getType());
+            info.setStatus(job.getStatus());
+            info.setDone(job.getDone());
+            info.setTotal(job.getTotal());
+            info.setError(job.getError());
+            info.setCreatedAt(job.getCreatedAt());
+            info.setFinishedAt(job.getFinishedAt());
+            info.setExpiresAt(job.getExpiresAt());
+            return info;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.pdfboxapi.controller;
 
 import com.example.pdfboxapi.model.ApiResponse;
 import com.example.pdfboxapi.model.request.PdfMergeRequest;
+import com.example.pdfboxapi.service.DocumentStore;
 import com.example.pdfboxapi.service.PdfMergeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -38,11 +39,13 @@ import java.io.IOException;
 public class PdfMergeController {
 
     private final PdfMergeService pdfMergeService;
+    private final DocumentStore documentStore;
 
     /**
      * Merges multiple PDF files into a single PDF
      * 
      * @param pdfFiles The PDF files to merge
+     * @param documentIds Ids of stored documents to merge after the uploaded files
      * @return The merged PDF file
      */
     @Operation(
@@ -56,12 +59,15 @@ public class PdfMergeController {
     })
     @PostMapping(value = "/pdf", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Resource> mergePdfs(
-            @Parameter(description = "PDF files to merge (minimum 2 files)", required = true)
-            @RequestParam("pdfFiles") MultipartFile[] pdfFiles
+            @Parameter(description = "PDF files to merge (minimum 2 files together with documentIds)")
+            @RequestParam(value = "pdfFiles", required = false) MultipartFile[] pdfFiles,
+
+            @Parameter(description = "Ids of documents stored via /api/v1/documents, merged after pdfFiles")
+            @RequestParam(value = "documentIds", required = false) String[] documentIds
     ) {
         try {
             PdfMergeRequest request = new PdfMergeRequest();
-            request.setPdfFiles(pdfFiles);
+            request.setPdfFiles(documentStore.resolveAll(pdfFiles, documentIds));
             
             byte[] mergedPdf = pdfMergeService.mergePdfs(request);
             
@@ -2,6 +2,7 @@ package com.example.pdfboxapi.controller;
 
 import com.example.pdfboxapi.model.ApiResponse;
 import com.example.pdfboxapi.model.request.PdfSigningRequest;
+import com.example.pdfboxapi.service.DocumentStore;
 import com.example.pdfboxapi.service.PdfSigningService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -42,11 +43,13 @@ import java.security.cert.CertificateException;
 public class PdfSigningController {
 
     private final PdfSigningService pdfSigningService;
+    private final DocumentStore documentStore;
 
     /**
      * Signs a PDF document with a digital signature
      * 
      * @param pdfFile The PDF file to sign
+     * @param documentId Id of a stored document, used instead of pdfFile
      * @param keystoreFile The keystore file containing the signing certificate
      * @param keystorePassword Password for the keystore
      * @param certificateAlias Alias of the certificate in the keystore
@@ -66,8 +69,11 @@ public class PdfSigningController {
     })
     @PostMapping(value = "/pdf", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Resource> signPdf(
-            @Parameter(description = "PDF file to sign", required = true)
-            @RequestParam("pdfFile") MultipartFile pdfFile,
+            @Parameter(description = "PDF file to sign (or use documentId)")
+            @RequestParam(value = "pdfFile", required = false) MultipartFile pdfFile,
+
+            @Parameter(description = "Id of a document stored via /api/v1/documents")
+            @RequestParam(value = "documentId", required = false) String documentId,
             
             @Parameter(description = "Keystore file containing the signing certificate", required = true)
             @RequestParam("keystoreFile") MultipartFile keystoreFile,
@@ -89,7 +95,7 @@ public class PdfSigningController {
     ) {
         try {
             PdfSigningRequest request = new PdfSigningRequest();
-            request.setPdfFile(pdfFile);
+            request.setPdfFile(documentStore.resolve(pdfFile, documentId));
             request.setKeystoreFile(keystoreFile);
             request.setKeystorePassword(keystorePassword);
             request.setCertificateAlias(certificateAlias);
@@ -2,7 +2,10 @@ package com.example.pdfboxapi.controller;
 
 import com.example.pdfboxapi.model.ApiResponse;
 import com.example.pdfboxapi.model.request.PdfSplitRequest;
+import com.example.pdfboxapi.service.DocumentStore;
+import com.example.pdfboxapi.service.PartProducer;
 import com.example.pdfboxapi.service.PdfSplitService;
+import com.example.pdfboxapi.service.ZipPartOutput;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,19 +15,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
-import java.io.ByteArrayOutputStream;
 
 /**
  * REST controller for PDF splitting operations
@@ -42,14 +41,18 @@ import java.io.ByteArrayOutputStream;
 public class PdfSplitController {
 
     private final PdfSplitService pdfSplitService;
+    private final DocumentStore documentStore;
 
     /**
      * Splits a PDF file into multiple PDFs
      * 
      * @param pdfFile The PDF file to split
-     * @param splitType The type of split operation (BY_PAGE or BY_RANGE)
+     * @param documentId Id of a stored document, used instead of pdfFile
+     * @param splitType The type of split operation (BY_PAGE, BY_RANGE or BY_SIZE)
      * @param pageRanges Page ranges for splitting (only used when splitType is BY_RANGE)
-     * @return ZIP file containing the split PDFs
+     * @param compact Whether to prune each part to the resources its pages use
+     * @param maxPartSize Largest size in bytes of a part (only used when splitType is BY_SIZE)
+     * @return ZIP file streamed as it is produced, containing the split PDFs
      */
     @Operation(
         summary = "Split PDF into multiple files",
@@ -61,45 +64,52 @@ public class PdfSplitController {
         @ApiResponse(responseCode = "500", description = "Error processing PDF file")
     })
     @PostMapping(value = "/pdf", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<Resource> splitPdf(
-            @Parameter(description = "PDF file to split", required = true)
-            @RequestParam("pdfFile") MultipartFile pdfFile,
+    public ResponseEntity<StreamingResponseBody> splitPdf(
+            @Parameter(description = "PDF file to split (or use documentId)")
+            @RequestParam(value = "pdfFile", required = false) MultipartFile pdfFile,
+
+            @Parameter(description = "Id of a document stored via /api/v1/documents")
+            @RequestParam(value = "documentId", required = false) String documentId,
             
-            @Parameter(description = "Split type (BY_PAGE or BY_RANGE)")
+            @Parameter(description = "Split type (BY_PAGE, BY_RANGE or BY_SIZE)")
             @RequestParam(value = "splitType", required = false, defaultValue = "BY_PAGE") 
             PdfSplitRequest.SplitType splitType,
             
             @Parameter(description = "Page ranges for splitting (e.g., '1-3,5,7-10')")
             @RequestParam(value = "pageRanges", required = false) 
-            String pageRanges
+            String pageRanges,
+            
+            @Parameter(description = "Keep only the fonts, images and other resources each part's pages use, "
+                    + "and drop references to pages outside the part")
+            @RequestParam(value = "compact", required = false, defaultValue = "false") 
+            boolean compact,
+            
+            @Parameter(description = "Largest size in bytes of a part for BY_SIZE, e.g. 10485760 for 10 MB; "
+                    + "parts are cut by an estimate, so this is a best-effort limit")
+            @RequestParam(value = "maxPartSize", required = false) 
+            Long maxPartSize
     ) {
         try {
             PdfSplitRequest request = new PdfSplitRequest();
-            request.setPdfFile(pdfFile);
+            request.setPdfFile(documentStore.resolve(pdfFile, documentId));
             request.setSplitType(splitType);
             request.setPageRanges(pageRanges);
+            request.setCompact(compact);
+            request.setMaxPartSize(maxPartSize);
             
-            List<byte[]> splitPdfs = pdfSplitService.splitPdf(request);
+            PartProducer parts = pdfSplitService.prepareSplit(request);
             
-            // Create a ZIP file containing all split PDFs
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            try (ZipOutputStream zos = new ZipOutputStream(baos)) {
-                for (int i = 0; i < splitPdfs.size(); i++) {
-                    String filename = String.format("split_%03d.pdf", i + 1);
-                    ZipEntry entry = new ZipEntry(filename);
-                    zos.putNextEntry(entry);
-                    zos.write(splitPdfs.get(i));
-                    zos.closeEntry();
+            // Each entry is written as soon as it is produced; the producer is released when the stream ends
+            StreamingResponseBody body = outputStream -> {
+                try (parts; ZipOutputStream zos = new ZipOutputStream(outputStream)) {
+                    parts.writeTo(new ZipPartOutput(zos, "split_%03d.pdf"));
                 }
-            }
-            
-            ByteArrayResource resource = new ByteArrayResource(baos.toByteArray());
+            };
             
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=split_pdfs.zip")
                     .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .contentLength(resource.contentLength())
-                    .body(resource);
+                    .body(body);
             
         } catch (IllegalArgumentException e) {
             log.warn("Invalid request parameters: {}", e.getMessage());
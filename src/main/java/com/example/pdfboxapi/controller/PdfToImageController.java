@@ -1,8 +1,15 @@
 package com.example.pdfboxapi.controller;
 
 import com.example.pdfboxapi.model.ApiResponse;
+import com.example.pdfboxapi.model.request.ImageEncoding;
+import com.example.pdfboxapi.model.request.PdfThumbnailRequest;
+import com.example.pdfboxapi.model.request.PdfTileRequest;
 import com.example.pdfboxapi.model.request.PdfToImageRequest;
+import com.example.pdfboxapi.service.DocumentStore;
+import com.example.pdfboxapi.service.MultipartPartOutput;
+import com.example.pdfboxapi.service.PartProducer;
 import com.example.pdfboxapi.service.PdfToImageService;
+import com.example.pdfboxapi.service.ZipPartOutput;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,18 +19,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.List;
-import java.util.zip.ZipEntry;
+import java.time.Duration;
 import java.util.zip.ZipOutputStream;
 
 /**
@@ -41,20 +48,31 @@ import java.util.zip.ZipOutputStream;
 @Tag(name = "PDF to Image Conversion", description = "API endpoints for converting PDF pages to images")
 public class PdfToImageController {
 
+    /**
+     * A tile is keyed by the document hash and never changes, so clients may reuse it without revalidating
+     */
+    private static final CacheControl TILE_CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(1)).cachePrivate();
+
     private final PdfToImageService pdfToImageService;
+    private final DocumentStore documentStore;
 
     /**
      * Converts PDF pages to images
      * 
      * @param pdfFile The PDF file to convert
+     * @param documentId Id of a stored document, used instead of pdfFile
      * @param imageFormat Image format to use for conversion
      * @param dpi DPI (dots per inch) for the output images
      * @param pageNumber Specific page to convert (optional)
-     * @return ZIP file containing the converted images
+     * @param parallelism Number of pages to render concurrently (optional)
+     * @param encoding PNG and JPEG encoder settings (optional)
+     * @param delivery ZIP for a single archive, MULTIPART for one multipart/mixed part per page
+     * @return ZIP file or multipart stream written as it is produced, containing the converted images
      */
     @Operation(
         summary = "Convert PDF to images",
-        description = "Converts PDF pages to images with specified format and DPI"
+        description = "Converts PDF pages to images with specified format and DPI. With delivery=MULTIPART every "
+                + "page is sent as its own multipart/mixed part as soon as it is encoded"
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "PDF successfully converted to images"),
@@ -62,9 +80,12 @@ public class PdfToImageController {
         @ApiResponse(responseCode = "500", description = "Error processing PDF file")
     })
     @PostMapping(value = "/to-image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<Resource> convertPdfToImages(
-            @Parameter(description = "PDF file to convert", required = true)
-            @RequestParam("pdfFile") MultipartFile pdfFile,
+    public ResponseEntity<StreamingResponseBody> convertPdfToImages(
+            @Parameter(description = "PDF file to convert (or use documentId)")
+            @RequestParam(value = "pdfFile", required = false) MultipartFile pdfFile,
+
+            @Parameter(description = "Id of a document stored via /api/v1/documents")
+            @RequestParam(value = "documentId", required = false) String documentId,
             
             @Parameter(description = "Image format (PNG, JPEG, etc.)")
             @RequestParam(value = "imageFormat", required = false, defaultValue = "PNG") 
@@ -76,36 +97,295 @@ public class PdfToImageController {
             
             @Parameter(description = "Specific page number to convert (1-based)")
             @RequestParam(value = "pageNumber", required = false) 
-            Integer pageNumber
+            Integer pageNumber,
+            
+            @Parameter(description = "Number of pages to render concurrently (defaults to app.render.parallelism)")
+            @RequestParam(value = "parallelism", required = false) 
+            Integer parallelism,
+            
+            @ParameterObject ImageEncoding encoding,
+            
+            @Parameter(description = "Response layout: ZIP archive or one multipart/mixed part per page")
+            @RequestParam(value = "delivery", required = false, defaultValue = "ZIP") 
+            PdfToImageRequest.Delivery delivery
     ) {
         try {
             PdfToImageRequest request = new PdfToImageRequest();
-            request.setPdfFile(pdfFile);
+            request.setPdfFile(documentStore.resolve(pdfFile, documentId));
             request.setImageFormat(imageFormat.toUpperCase());
             request.setDpi(dpi);
             request.setPageNumber(pageNumber);
+            request.setParallelism(parallelism);
+            request.setEncoding(encoding);
             
-            List<byte[]> images = pdfToImageService.convertPdfToImages(request);
-            
-            // Create a ZIP file containing all images
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            try (ZipOutputStream zos = new ZipOutputStream(baos)) {
-                for (int i = 0; i < images.size(); i++) {
-                    String filename = String.format("page_%03d.%s", i + 1, imageFormat.toLowerCase());
-                    ZipEntry entry = new ZipEntry(filename);
-                    zos.putNextEntry(entry);
-                    zos.write(images.get(i));
-                    zos.closeEntry();
-                }
+            PartProducer parts = pdfToImageService.prepareConversion(request);
+            String filenameFormat = "page_%03d." + imageFormat.toLowerCase();
+            
+            if (delivery == PdfToImageRequest.Delivery.MULTIPART) {
+                String boundary = MultipartPartOutput.newBoundary();
+                String partType = PdfToImageService.contentType(request.getImageFormat());
+                // A failed write, e.g. after a client disconnect, ends writeTo and skips the remaining pages
+                StreamingResponseBody body = outputStream -> {
+                    try (parts) {
+                        MultipartPartOutput output = new MultipartPartOutput(outputStream, boundary, partType,
+                                filenameFormat);
+                        parts.writeTo(output);
+                        output.finish();
+                    }
+                };
+                return ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType(MultipartPartOutput.mediaType(boundary)))
+                        .body(body);
             }
             
-            ByteArrayResource resource = new ByteArrayResource(baos.toByteArray());
+            // Each entry is written as soon as it is produced; the producer is released when the stream ends
+            StreamingResponseBody body = outputStream -> {
+                try (parts; ZipOutputStream zos = new ZipOutputStream(outputStream)) {
+                    parts.writeTo(new ZipPartOutput(zos, filenameFormat));
+                }
+            };
             
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=pdf_images.zip")
                     .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .contentLength(resource.contentLength())
-                    .body(resource);
+                    .body(body);
+            
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid request parameters: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IOException e) {
+            log.error("Error processing PDF file", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Renders a thumbnail of every page
+     * 
+     * @param pdfFile The PDF file to generate thumbnails for
+     * @param documentId Id of a stored document, used instead of pdfFile
+     * @param maxSize Length of the longer edge of each thumbnail in pixels
+     * @param imageFormat Image format of the thumbnails
+     * @param grayscale Whether to render grayscale thumbnails
+     * @param parallelism Number of pages to render concurrently (optional)
+     * @param encoding PNG and JPEG encoder settings (optional)
+     * @return ZIP file streamed as it is produced, containing the thumbnails
+     */
+    @Operation(
+        summary = "Generate page thumbnails",
+        description = "Renders a small preview of every page at a target size and returns them as a ZIP file"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Thumbnails generated"),
+        @ApiResponse(responseCode = "400", description = "Invalid request parameters"),
+        @ApiResponse(responseCode = "500", description = "Error processing PDF file")
+    })
+    @PostMapping(value = "/thumbnails", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> generateThumbnails(
+            @Parameter(description = "PDF file to generate thumbnails for (or use documentId)")
+            @RequestParam(value = "pdfFile", required = false) MultipartFile pdfFile,
+            
+            @Parameter(description = "Id of a document stored via /api/v1/documents")
+            @RequestParam(value = "documentId", required = false) String documentId,
+            
+            @Parameter(description = "Length of the longer edge of each thumbnail in pixels")
+            @RequestParam(value = "maxSize", required = false, defaultValue = "160") 
+            int maxSize,
+            
+            @Parameter(description = "Image format (JPEG, PNG, etc.)")
+            @RequestParam(value = "imageFormat", required = false, defaultValue = "JPEG") 
+            String imageFormat,
+            
+            @Parameter(description = "Render grayscale instead of color thumbnails")
+            @RequestParam(value = "grayscale", required = false, defaultValue = "false") 
+            boolean grayscale,
+            
+            @Parameter(description = "Number of pages to render concurrently (defaults to app.render.parallelism)")
+            @RequestParam(value = "parallelism", required = false) 
+            Integer parallelism,
+            
+            @ParameterObject ImageEncoding encoding
+    ) {
+        try {
+            PdfThumbnailRequest request = new PdfThumbnailRequest();
+            request.setPdfFile(documentStore.resolve(pdfFile, documentId));
+            request.setMaxSize(maxSize);
+            request.setImageFormat(imageFormat.toUpperCase());
+            request.setGrayscale(grayscale);
+            request.setParallelism(parallelism);
+            request.setEncoding(encoding);
+            
+            PartProducer parts = pdfToImageService.prepareThumbnails(request);
+            
+            StreamingResponseBody body = outputStream -> {
+                try (parts; ZipOutputStream zos = new ZipOutputStream(outputStream)) {
+                    parts.writeTo(new ZipPartOutput(zos, "thumb_%03d." + imageFormat.toLowerCase()));
+                }
+            };
+            
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=thumbnails.zip")
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .body(body);
+            
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid request parameters: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IOException e) {
+            log.error("Error processing PDF file", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * Renders a region of a stored document's page
+     * 
+     * @param documentId Id of a stored document
+     * @param pageNumber Page to render (1-based)
+     * @param dpi DPI the page is rendered at
+     * @param x Left edge of the tile in pixels
+     * @param y Top edge of the tile in pixels
+     * @param width Width of the tile in pixels
+     * @param height Height of the tile in pixels
+     * @param imageFormat Image format of the tile
+     * @param encoding PNG and JPEG encoder settings (optional)
+     * @param webRequest The current request, used to answer conditional requests
+     * @return The tile image, or 304 if the client's copy is current
+     */
+    @Operation(
+        summary = "Render a tile of a stored document",
+        description = "Renders a rectangular region of one page at the given DPI without rasterizing the whole page. "
+                + "Responses carry an ETag and may be cached"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Tile rendered"),
+        @ApiResponse(responseCode = "304", description = "Tile not modified"),
+        @ApiResponse(responseCode = "400", description = "Invalid request parameters"),
+        @ApiResponse(responseCode = "500", description = "Error processing PDF file")
+    })
+    @GetMapping("/tile")
+    public ResponseEntity<byte[]> renderTile(
+            @Parameter(description = "Id of a document stored via /api/v1/documents", required = true)
+            @RequestParam("documentId") String documentId,
+            
+            @Parameter(description = "Page to render (1-based)")
+            @RequestParam(value = "pageNumber", required = false, defaultValue = "1") int pageNumber,
+            
+            @Parameter(description = "DPI (dots per inch) the page is rendered at")
+            @RequestParam(value = "dpi", required = false, defaultValue = "300") int dpi,
+            
+            @Parameter(description = "Left edge of the tile in pixels of the rendered page")
+            @RequestParam(value = "x", required = false, defaultValue = "0") int x,
+            
+            @Parameter(description = "Top edge of the tile in pixels of the rendered page")
+            @RequestParam(value = "y", required = false, defaultValue = "0") int y,
+            
+            @Parameter(description = "Width of the tile in pixels")
+            @RequestParam(value = "width", required = false, defaultValue = "512") int width,
+            
+            @Parameter(description = "Height of the tile in pixels")
+            @RequestParam(value = "height", required = false, defaultValue = "512") int height,
+            
+            @Parameter(description = "Image format (PNG, JPEG, etc.)")
+            @RequestParam(value = "imageFormat", required = false, defaultValue = "PNG") String imageFormat,
+            
+            @ParameterObject ImageEncoding encoding,
+            
+            WebRequest webRequest
+    ) {
+        return tile(null, documentId, pageNumber, dpi, x, y, width, height, imageFormat, encoding, webRequest);
+    }
+    
+    /**
+     * Renders a region of an uploaded document's page
+     * 
+     * @param pdfFile The PDF file containing the page
+     * @param documentId Id of a stored document, used instead of pdfFile
+     * @param pageNumber Page to render (1-based)
+     * @param dpi DPI the page is rendered at
+     * @param x Left edge of the tile in pixels
+     * @param y Top edge of the tile in pixels
+     * @param width Width of the tile in pixels
+     * @param height Height of the tile in pixels
+     * @param imageFormat Image format of the tile
+     * @param encoding PNG and JPEG encoder settings (optional)
+     * @param webRequest The current request, used to answer conditional requests
+     * @return The tile image, or 304 if the client's copy is current
+     */
+    @Operation(
+        summary = "Render a tile of a PDF page",
+        description = "Renders a rectangular region of one page at the given DPI without rasterizing the whole page"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Tile rendered"),
+        @ApiResponse(responseCode = "304", description = "Tile not modified"),
+        @ApiResponse(responseCode = "400", description = "Invalid request parameters"),
+        @ApiResponse(responseCode = "500", description = "Error processing PDF file")
+    })
+    @PostMapping(value = "/tile", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<byte[]> renderUploadedTile(
+            @Parameter(description = "PDF file containing the page (or use documentId)")
+            @RequestParam(value = "pdfFile", required = false) MultipartFile pdfFile,
+            
+            @Parameter(description = "Id of a document stored via /api/v1/documents")
+            @RequestParam(value = "documentId", required = false) String documentId,
+            
+            @Parameter(description = "Page to render (1-based)")
+            @RequestParam(value = "pageNumber", required = false, defaultValue = "1") int pageNumber,
+            
+            @Parameter(description = "DPI (dots per inch) the page is rendered at")
+            @RequestParam(value = "dpi", required = false, defaultValue = "300") int dpi,
+            
+            @Parameter(description = "Left edge of the tile in pixels of the rendered page")
+            @RequestParam(value = "x", required = false, defaultValue = "0") int x,
+            
+            @Parameter(description = "Top edge of the tile in pixels of the rendered page")
+            @RequestParam(value = "y", required = false, defaultValue = "0") int y,
+            
+            @Parameter(description = "Width of the tile in pixels")
+            @RequestParam(value = "width", required = false, defaultValue = "512") int width,
+            
+            @Parameter(description = "Height of the tile in pixels")
+            @RequestParam(value = "height", required = false, defaultValue = "512") int height,
+            
+            @Parameter(description = "Image format (PNG, JPEG, etc.)")
+            @RequestParam(value = "imageFormat", required = false, defaultValue = "PNG") String imageFormat,
+            
+            @ParameterObject ImageEncoding encoding,
+            
+            WebRequest webRequest
+    ) {
+        return tile(pdfFile, documentId, pageNumber, dpi, x, y, width, height, imageFormat, encoding, webRequest);
+    }
+    
+    private ResponseEntity<byte[]> tile(MultipartFile pdfFile, String documentId, int pageNumber, int dpi,
+            int x, int y, int width, int height, String imageFormat, ImageEncoding encoding, WebRequest webRequest) {
+        try {
+            PdfTileRequest request = new PdfTileRequest();
+            request.setPdfFile(documentStore.resolve(pdfFile, documentId));
+            request.setPageNumber(pageNumber);
+            request.setDpi(dpi);
+            request.setX(x);
+            request.setY(y);
+            request.setWidth(width);
+            request.setHeight(height);
+            request.setImageFormat(imageFormat.toUpperCase());
+            request.setEncoding(encoding);
+            
+            // Revalidation only needs the content hash, which stored documents already carry
+            String sha256 = pdfToImageService.contentHash(request);
+            String etag = "\"" + pdfToImageService.tileKey(request, sha256) + "\"";
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+            
+            byte[] tile = pdfToImageService.renderTile(request, sha256);
+            
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(TILE_CACHE_CONTROL)
+                    .contentType(MediaType.parseMediaType(PdfToImageService.contentType(request.getImageFormat())))
+                    .body(tile);
             
         } catch (IllegalArgumentException e) {
             log.warn("Invalid request parameters: {}", e.getMessage());
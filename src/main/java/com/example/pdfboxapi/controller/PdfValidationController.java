@@ -2,6 +2,7 @@ package com.example.pdfboxapi.controller;
 
 import com.example.pdfboxapi.model.ApiResponse;
 import com.example.pdfboxapi.model.request.PdfValidationRequest;
+import com.example.pdfboxapi.service.DocumentStore;
 import com.example.pdfboxapi.service.PdfValidationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -35,11 +36,13 @@ import java.util.List;
 public class PdfValidationController {
 
     private final PdfValidationService pdfValidationService;
+    private final DocumentStore documentStore;
 
     /**
      * Validates a PDF file against PDF/A standards
      * 
      * @param pdfFile The PDF file to validate
+     * @param documentId Id of a stored document, used instead of pdfFile
      * @param profile Validation profile to use
      * @return API response containing validation results
      */
@@ -54,8 +57,11 @@ public class PdfValidationController {
     })
     @PostMapping(value = "/pdf", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public com.example.pdfboxapi.model.ApiResponse<ValidationResult> validatePdf(
-            @Parameter(description = "PDF file to validate", required = true)
-            @RequestParam("pdfFile") MultipartFile pdfFile,
+            @Parameter(description = "PDF file to validate (or use documentId)")
+            @RequestParam(value = "pdfFile", required = false) MultipartFile pdfFile,
+
+            @Parameter(description = "Id of a document stored via /api/v1/documents")
+            @RequestParam(value = "documentId", required = false) String documentId,
             
             @Parameter(description = "Validation profile (e.g., 'PDF/A-1b')")
             @RequestParam(value = "profile", required = false, defaultValue = "PDF/A-1b") 
@@ -63,7 +69,7 @@ public class PdfValidationController {
     ) {
         try {
             PdfValidationRequest request = new PdfValidationRequest();
-            request.setPdfFile(pdfFile);
+            request.setPdfFile(documentStore.resolve(pdfFile, documentId));
             request.setProfile(profile);
             
             List<String> validationErrors = pdfValidationService.validatePdf(request);
@@ -1,8 +1,14 @@
 package com.example.pdfboxapi.controller;
 
 import com.example.pdfboxapi.model.ApiResponse;
+import com.example.pdfboxapi.model.request.TextBatchRequest;
 import com.example.pdfboxapi.model.request.TextExtractionRequest;
+import com.example.pdfboxapi.service.DocumentStore;
+import com.example.pdfboxapi.service.GlyphColumns;
+import com.example.pdfboxapi.service.TextBatchProducer;
 import com.example.pdfboxapi.service.TextExtractionService;
+import com.example.pdfboxapi.service.TextProducer;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,10 +19,22 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * REST controller for text extraction operations
@@ -34,13 +52,17 @@ import java.io.IOException;
 public class TextExtractionController {
 
     private final TextExtractionService textExtractionService;
+    private final DocumentStore documentStore;
+    private final ObjectMapper objectMapper;
 
     /**
      * Extracts text from a PDF file
      * 
      * @param pdfFile The PDF file to extract text from
+     * @param documentId Id of a stored document, used instead of pdfFile
      * @param maintainPositioning Whether to maintain text positioning (optional)
      * @param pageNumber Specific page to extract text from (optional)
+     * @param parallelism Number of page chunks to extract concurrently (optional)
      * @return API response containing the extracted text
      */
     @Operation(
@@ -54,8 +76,11 @@ public class TextExtractionController {
     })
     @PostMapping(value = "/text", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public com.example.pdfboxapi.model.ApiResponse<String> extractText(
-            @Parameter(description = "PDF file to extract text from", required = true)
-            @RequestParam("pdfFile") MultipartFile pdfFile,
+            @Parameter(description = "PDF file to extract text from (or use documentId)")
+            @RequestParam(value = "pdfFile", required = false) MultipartFile pdfFile,
+
+            @Parameter(description = "Id of a document stored via /api/v1/documents")
+            @RequestParam(value = "documentId", required = false) String documentId,
             
             @Parameter(description = "Whether to maintain text positioning")
             @RequestParam(value = "maintainPositioning", required = false, defaultValue = "false") 
@@ -63,13 +88,18 @@ public class TextExtractionController {
             
             @Parameter(description = "Specific page number to extract text from (1-based)")
             @RequestParam(value = "pageNumber", required = false) 
-            Integer pageNumber
+            Integer pageNumber,
+            
+            @Parameter(description = "Number of page chunks to extract concurrently; output is identical to a single pass")
+            @RequestParam(value = "parallelism", required = false) 
+            Integer parallelism
     ) {
         try {
             TextExtractionRequest request = new TextExtractionRequest();
-            request.setPdfFile(pdfFile);
+            request.setPdfFile(documentStore.resolve(pdfFile, documentId));
             request.setMaintainPositioning(maintainPositioning);
             request.setPageNumber(pageNumber);
+            request.setParallelism(parallelism);
             
             String extractedText = textExtractionService.extractText(request);
             return com.example.pdfboxapi.model.ApiResponse.success(
@@ -84,4 +114,206 @@ public class TextExtractionController {
             return com.example.pdfboxapi.model.ApiResponse.error("Error processing PDF file: " + e.getMessage());
         }
     }
+
+    /**
+     * Streams the text of a PDF file page by page
+     * 
+     * @param pdfFile The PDF file to extract text from
+     * @param documentId Id of a stored document, used instead of pdfFile
+     * @param pageNumber Specific page to extract text from (optional)
+     * @param format TEXT for plain text, NDJSON for one JSON line per page, GLYPHS or GLYPHS_NDJSON for glyph positions
+     * @return The text, written to the response as each page is extracted
+     */
+    @Operation(
+        summary = "Stream text from PDF",
+        description = "Extracts text page by page straight into the response, as plain text, as one JSON line "
+                + "per page or as columnar glyph positions, so the first page arrives immediately and memory does "
+                + "not grow with the document"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Text is being streamed"),
+        @ApiResponse(responseCode = "400", description = "Invalid request parameters"),
+        @ApiResponse(responseCode = "500", description = "Error processing PDF file")
+    })
+    @PostMapping(value = "/text/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamText(
+            @Parameter(description = "PDF file to extract text from (or use documentId)")
+            @RequestParam(value = "pdfFile", required = false) MultipartFile pdfFile,
+
+            @Parameter(description = "Id of a document stored via /api/v1/documents")
+            @RequestParam(value = "documentId", required = false) String documentId,
+            
+            @Parameter(description = "Specific page number to extract text from (1-based)")
+            @RequestParam(value = "pageNumber", required = false) 
+            Integer pageNumber,
+            
+            @Parameter(description = "TEXT for plain text, NDJSON for one {\"page\", \"text\"} object per line, "
+                    + "GLYPHS for binary columnar glyph positions, GLYPHS_NDJSON for one line of glyph columns per page")
+            @RequestParam(value = "format", required = false, defaultValue = "TEXT") 
+            TextExtractionRequest.StreamFormat format
+    ) {
+        try {
+            TextExtractionRequest request = new TextExtractionRequest();
+            request.setPdfFile(documentStore.resolve(pdfFile, documentId));
+            request.setPageNumber(pageNumber);
+            
+            TextProducer text = textExtractionService.prepareTextStream(request);
+            
+            // The document is released when the stream ends, including when the client goes away
+            StreamingResponseBody body = outputStream -> {
+                if (format == TextExtractionRequest.StreamFormat.GLYPHS) {
+                    try (text; OutputStream out = new BufferedOutputStream(outputStream)) {
+                        GlyphColumns.writeHeader(out);
+                        text.writeGlyphs(page -> {
+                            page.writeTo(out);
+                            out.flush();
+                        });
+                        GlyphColumns.writeEnd(out);
+                    }
+                    return;
+                }
+                try (text; Writer writer = new BufferedWriter(
+                        new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+                    if (format == TextExtractionRequest.StreamFormat.GLYPHS_NDJSON) {
+                        text.writeGlyphs(page -> {
+                            writer.write(objectMapper.writeValueAsString(page.toJson()));
+                            writer.write('\n');
+                            writer.flush();
+                        });
+                    } else if (format == TextExtractionRequest.StreamFormat.NDJSON) {
+                        text.writePages((page, pageText) -> {
+                            Map<String, Object> line = new LinkedHashMap<>();
+                            line.put("page", page);
+                            line.put("text", pageText);
+                            writer.write(objectMapper.writeValueAsString(line));
+                            writer.write('\n');
+                            writer.flush();
+                        });
+                    } else {
+                        text.writeText(writer);
+                    }
+                }
+            };
+            
+            MediaType mediaType = switch (format) {
+                case NDJSON, GLYPHS_NDJSON -> MediaType.APPLICATION_NDJSON;
+                case GLYPHS -> MediaType.APPLICATION_OCTET_STREAM;
+                default -> new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+            };
+            return ResponseEntity.ok()
+                    .contentType(mediaType)
+                    .body(body);
+            
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid request parameters: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IOException e) {
+            log.error("Error processing PDF file", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Extracts the text of many PDF files, streaming one JSON line per result
+     * 
+     * @param pdfFiles The PDF files to extract text from
+     * @param documentIds Ids of stored documents, extracted after pdfFiles
+     * @param maintainPositioning Whether to order text by its position on the page
+     * @param parallelism Number of documents to extract concurrently (optional)
+     * @param granularity DOCUMENT for one line per document, PAGE for one line per page
+     * @return The results, written to the response as each document finishes
+     */
+    @Operation(
+        summary = "Extract text from many PDFs",
+        description = "Extracts the text of all uploaded PDFs concurrently on the text worker pool and streams "
+                + "one JSON line per document or per page as each document finishes. Lines carry the index of the "
+                + "document in the request; a document that fails produces a line with an error instead of its text."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Results are being streamed"),
+        @ApiResponse(responseCode = "400", description = "Invalid request parameters"),
+        @ApiResponse(responseCode = "500", description = "Error processing the request")
+    })
+    @PostMapping(value = "/text/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> extractTextBatch(
+            @Parameter(description = "PDF files to extract text from")
+            @RequestParam(value = "pdfFiles", required = false) MultipartFile[] pdfFiles,
+
+            @Parameter(description = "Ids of documents stored via /api/v1/documents, extracted after pdfFiles")
+            @RequestParam(value = "documentIds", required = false) String[] documentIds,
+            
+            @Parameter(description = "Whether to order text by its position on the page")
+            @RequestParam(value = "maintainPositioning", required = false, defaultValue = "false") 
+            boolean maintainPositioning,
+            
+            @Parameter(description = "Number of documents to extract concurrently")
+            @RequestParam(value = "parallelism", required = false) 
+            Integer parallelism,
+            
+            @Parameter(description = "DOCUMENT for one {\"index\", \"filename\", \"pages\", \"text\"} line per "
+                    + "document, PAGE for one {\"index\", \"filename\", \"page\", \"text\"} line per page")
+            @RequestParam(value = "granularity", required = false, defaultValue = "DOCUMENT") 
+            TextBatchRequest.Granularity granularity
+    ) {
+        try {
+            TextBatchRequest request = new TextBatchRequest();
+            request.setPdfFiles(documentStore.resolveAll(pdfFiles, documentIds));
+            request.setMaintainPositioning(maintainPositioning);
+            request.setParallelism(parallelism);
+            request.setGranularity(granularity);
+            
+            TextBatchProducer batch = textExtractionService.prepareBatch(request);
+            
+            StreamingResponseBody body = outputStream -> {
+                try (batch; Writer writer = new BufferedWriter(
+                        new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+                    batch.writeResults(result -> {
+                        for (Map<String, Object> line : batchLines(result, granularity)) {
+                            writer.write(objectMapper.writeValueAsString(line));
+                            writer.write('\n');
+                        }
+                        writer.flush();
+                    });
+                }
+            };
+            
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(body);
+            
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid request parameters: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    private static List<Map<String, Object>> batchLines(TextBatchProducer.Result result,
+            TextBatchRequest.Granularity granularity) {
+        if (result.failed()) {
+            Map<String, Object> line = batchLine(result);
+            line.put("error", result.error());
+            return List.of(line);
+        }
+        if (granularity == TextBatchRequest.Granularity.PAGE) {
+            List<Map<String, Object>> lines = new ArrayList<>(result.pages().size());
+            for (int i = 0; i < result.pages().size(); i++) {
+                Map<String, Object> line = batchLine(result);
+                line.put("page", i + 1);
+                line.put("text", result.pages().get(i));
+                lines.add(line);
+            }
+            return lines;
+        }
+        Map<String, Object> line = batchLine(result);
+        line.put("pages", result.pages().size());
+        line.put("text", String.join("", result.pages()));
+        return List.of(line);
+    }
+    
+    private static Map<String, Object> batchLine(TextBatchProducer.Result result) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("index", result.index());
+        line.put("filename", result.filename());
+        return line;
+    }
 }
@@ -0,0 +1,151 @@
+package com.example.pdfboxapi.controller;
+
+import com.example.pdfboxapi.service.DocumentStore;
+import com.example.pdfboxapi.service.TextIndex;
+import com.example.pdfboxapi.service.TextIndexService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * REST controller for full-text search
+ *
+ * This controller indexes the text of a PDF document once and then answers
+ * keyword searches against the index without extracting the text again.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/api/v1/search")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Search", description = "API endpoints for indexing PDF documents and searching their text")
+public class TextSearchController {
+
+    private final TextIndexService textIndexService;
+    private final DocumentStore documentStore;
+
+    /**
+     * Indexes the text of a PDF file
+     *
+     * @param pdfFile The PDF file to index
+     * @param documentId Id of a stored document, used instead of pdfFile
+     * @return API response containing the index id
+     */
+    @Operation(
+        summary = "Index a PDF document",
+        description = "Extracts the text of a PDF file into a search index and returns the index id, the SHA-256 "
+                + "of the file. Indexing the same content again returns the existing index."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Document indexed"),
+        @ApiResponse(responseCode = "400", description = "Invalid request parameters"),
+        @ApiResponse(responseCode = "500", description = "Error processing PDF file")
+    })
+    @PostMapping(value = "/index", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public com.example.pdfboxapi.model.ApiResponse<IndexInfo> indexDocument(
+            @Parameter(description = "PDF file to index (or use documentId)")
+            @RequestParam(value = "pdfFile", required = false) MultipartFile pdfFile,
+
+            @Parameter(description = "Id of a document stored via /api/v1/documents")
+            @RequestParam(value = "documentId", required = false) String documentId
+    ) {
+        try {
+            TextIndexService.IndexedDocument indexed = textIndexService.index(
+                    documentStore.resolve(pdfFile, documentId));
+            IndexInfo info = new IndexInfo();
+            info.setIndexId(indexed.indexId());
+            info.setPageCount(indexed.index().getPageCount());
+            info.setTermCount(indexed.index().getTermCount());
+            return com.example.pdfboxapi.model.ApiResponse.success(info, "Document indexed successfully");
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid request parameters: {}", e.getMessage());
+            return com.example.pdfboxapi.model.ApiResponse.error("Invalid request: " + e.getMessage());
+        } catch (IOException e) {
+            log.error("Error processing PDF file", e);
+            return com.example.pdfboxapi.model.ApiResponse.error("Error processing PDF file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Searches an indexed document
+     *
+     * @param indexId Id returned when the document was indexed
+     * @param query Terms that must all appear on a page
+     * @param snippets Most snippets returned per page
+     * @return API response containing the matching pages
+     */
+    @Operation(
+        summary = "Search an indexed document",
+        description = "Returns the pages containing every term of the query, in page order, with the number of "
+                + "matches and snippets of the surrounding text"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Search completed"),
+        @ApiResponse(responseCode = "400", description = "Invalid request parameters or unknown index"),
+        @ApiResponse(responseCode = "500", description = "Error reading the index")
+    })
+    @GetMapping
+    public com.example.pdfboxapi.model.ApiResponse<SearchResult> search(
+            @Parameter(description = "Id returned by /api/v1/search/index", required = true)
+            @RequestParam("indexId") String indexId,
+
+            @Parameter(description = "Search terms; a page matches when it contains all of them, ignoring case",
+                    required = true)
+            @RequestParam("q") String query,
+
+            @Parameter(description = "Maximum number of snippets per page")
+            @RequestParam(value = "snippets", required = false, defaultValue = "3") int snippets
+    ) {
+        try {
+            List<TextIndex.Hit> hits = textIndexService.search(indexId, query, snippets);
+            SearchResult result = new SearchResult();
+            result.setIndexId(indexId);
+            result.setQuery(query);
+            result.setTotalMatches(hits.stream().mapToInt(TextIndex.Hit::matches).sum());
+            result.setHits(hits);
+            return com.example.pdfboxapi.model.ApiResponse.success(
+                    result,
+                    "Found matches on " + hits.size() + " pages"
+            );
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid request parameters: {}", e.getMessage());
+            return com.example.pdfboxapi.model.ApiResponse.error("Invalid request: " + e.getMessage());
+        } catch (IOException e) {
+            log.error("Error reading index {}", indexId, e);
+            return com.example.pdfboxapi.model.ApiResponse.error("Error reading index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Inner class representing an indexed document
+     */
+    @lombok.Data
+    public static class IndexInfo {
+        private String indexId;
+        private int pageCount;
+        private int termCount;
+    }
+
+    /**
+     * Inner class representing the result of a search
+     */
+    @lombok.Data
+    public static class SearchResult {
+        private String indexId;
+        private String query;
+        private int totalMatches;
+        private List<TextIndex.Hit> hits;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.pdfboxapi.model.request;
+
+import lombok.Data;
+
+/**
+ * Format-specific encoder settings for rendered images
+ * 
+ * Settings that do not apply to the requested image format are ignored.
+ * 
+ * @author Manus
+ * @version 1.0
+ */
+@Data
+public class ImageEncoding {
+    
+    /**
+     * Row filter applied before PNG compression
+     */
+    public enum PngFilter {
+        /**
+         * Per-row filter chosen by the JDK encoder; smallest output
+         */
+        ADAPTIVE,
+        /**
+         * No filtering; fastest, combined with a low compression level for throughput
+         */
+        NONE,
+        /**
+         * Difference to the pixel on the left
+         */
+        SUB,
+        /**
+         * Difference to the pixel above
+         */
+        UP
+    }
+    
+    /**
+     * PNG deflate level from 0 (stored) to 9 (smallest) (optional)
+     * When null, uses the encoder default
+     */
+    private Integer pngCompression;
+    
+    /**
+     * PNG row filter
+     */
+    private PngFilter pngFilter = PngFilter.ADAPTIVE;
+    
+    /**
+     * JPEG quality from 0.0 to 1.0 (optional)
+     * When null, uses the encoder default
+     */
+    private Float jpegQuality;
+    
+    /**
+     * Whether to write progressive JPEGs
+     */
+    private boolean jpegProgressive;
+}
@@ -26,6 +26,7 @@ public class PdfSplitRequest {
      * Split type determines how the PDF will be split
      * - BY_PAGE: Split into individual pages
      * - BY_RANGE: Split according to page ranges
+     * - BY_SIZE: Split into consecutive pages of at most maxPartSize bytes
      */
     private SplitType splitType = SplitType.BY_PAGE;
     
@@ -35,11 +36,27 @@ public class PdfSplitRequest {
      */
     private String pageRanges;
     
+    /**
+     * Whether to prune each part's resources to those its pages use (optional)
+     * When true, parts also get their own copies of pages and annotations, without
+     * references back to pages outside the part
+     */
+    private boolean compact = false;
+    
+    /**
+     * Largest size in bytes of a part (only used when splitType is BY_SIZE)
+     * Parts are cut by an estimate of their saved size, not by measuring them, so this
+     * is a best-effort limit; the estimate errs high, but a part can still end up larger.
+     * A single page estimated above this size becomes a part of its own
+     */
+    private Long maxPartSize;
+    
     /**
      * Enum representing different ways to split a PDF
      */
     public enum SplitType {
         BY_PAGE,    // Split into individual pages
-        BY_RANGE    // Split according to specified page ranges
+        BY_RANGE,   // Split according to specified page ranges
+        BY_SIZE     // Split into consecutive pages under a byte budget, always compact
     }
 }
@@ -0,0 +1,50 @@
+package com.example.pdfboxapi.model.request;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Request model for page thumbnail generation
+ * 
+ * This class represents the request parameters for rendering a small preview
+ * image of every page of a PDF.
+ * 
+ * @author Manus
+ * @version 1.0
+ */
+@Data
+public class PdfThumbnailRequest {
+    
+    /**
+     * The PDF file to generate thumbnails for
+     */
+    @NotNull(message = "PDF file is required")
+    private MultipartFile pdfFile;
+    
+    /**
+     * Length in pixels of the longer edge of each thumbnail
+     */
+    private int maxSize = 160;
+    
+    /**
+     * Image format to use for the thumbnails (JPEG, PNG, etc.)
+     */
+    private String imageFormat = "JPEG";
+    
+    /**
+     * Whether to render grayscale instead of color thumbnails
+     */
+    private boolean grayscale;
+    
+    /**
+     * Number of pages to render concurrently (optional)
+     * When null, uses the configured default; capped by the render pool size
+     */
+    private Integer parallelism;
+    
+    /**
+     * Format-specific encoder settings
+     */
+    private ImageEncoding encoding = new ImageEncoding();
+}
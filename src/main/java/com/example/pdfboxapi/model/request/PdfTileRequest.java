@@ -0,0 +1,64 @@
+package com.example.pdfboxapi.model.request;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Request model for rendering a region of a PDF page
+ * 
+ * This class represents the request parameters for rendering a rectangular
+ * tile of one page, addressed in pixels of the page rendered at the given DPI.
+ * 
+ * @author Manus
+ * @version 1.0
+ */
+@Data
+public class PdfTileRequest {
+    
+    /**
+     * The PDF file containing the page
+     */
+    @NotNull(message = "PDF file is required")
+    private MultipartFile pdfFile;
+    
+    /**
+     * Page to render (1-based)
+     */
+    private int pageNumber = 1;
+    
+    /**
+     * DPI (dots per inch) the page is rendered at
+     */
+    private int dpi = 300;
+    
+    /**
+     * Left edge of the tile in pixels of the rendered page
+     */
+    private int x;
+    
+    /**
+     * Top edge of the tile in pixels of the rendered page
+     */
+    private int y;
+    
+    /**
+     * Width of the tile in pixels; clipped at the right edge of the page
+     */
+    private int width = 512;
+    
+    /**
+     * Height of the tile in pixels; clipped at the bottom edge of the page
+     */
+    private int height = 512;
+    
+    /**
+     * Image format to use for the tile (PNG, JPEG, etc.)
+     */
+    private String imageFormat = "PNG";
+    
+    /**
+     * Format-specific encoder settings
+     */
+    private ImageEncoding encoding = new ImageEncoding();
+}
@@ -36,4 +36,23 @@ public class PdfToImageRequest {
      * When null, converts all pages
      */
     private Integer pageNumber;
+    
+    /**
+     * Number of pages to render concurrently (optional)
+     * When null, uses the configured default; capped by the render pool size
+     */
+    private Integer parallelism;
+    
+    /**
+     * Format-specific encoder settings
+     */
+    private ImageEncoding encoding = new ImageEncoding();
+    
+    /**
+     * Enum representing how the converted images are returned
+     */
+    public enum Delivery {
+        ZIP,        // One ZIP archive with an entry per page
+        MULTIPART   // One multipart/mixed part per page, sent as soon as it is encoded
+    }
 }
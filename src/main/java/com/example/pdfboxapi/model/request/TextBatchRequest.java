@@ -0,0 +1,48 @@
+package com.example.pdfboxapi.model.request;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Request model for batch text extraction
+ *
+ * This class represents the request parameters for extracting the text of
+ * many PDF files in one request.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Data
+public class TextBatchRequest {
+
+    /**
+     * The PDF files to extract text from
+     */
+    @NotNull(message = "At least one PDF file is required")
+    private MultipartFile[] pdfFiles;
+
+    /**
+     * Whether to order text by its position on the page instead of content stream order
+     */
+    private boolean maintainPositioning = false;
+
+    /**
+     * Number of documents to extract concurrently (optional)
+     * When null, uses the default parallelism; capped by the worker pool size
+     */
+    private Integer parallelism;
+
+    /**
+     * Granularity of the results (optional)
+     */
+    private Granularity granularity = Granularity.DOCUMENT;
+
+    /**
+     * Enum representing what one result line covers
+     */
+    public enum Granularity {
+        DOCUMENT,           // One result per document with its full text
+        PAGE                // One result per page of every document
+    }
+}
@@ -23,7 +23,7 @@ public class TextExtractionRequest {
     
     /**
      * Whether to extract text by maintaining positioning (optional)
-     * When true, attempts to maintain the original text positioning
+     * When true, orders text by its position on the page instead of content stream order
      */
     private boolean maintainPositioning = false;
     
@@ -32,4 +32,20 @@ public class TextExtractionRequest {
      * When null, extracts text from all pages
      */
     private Integer pageNumber;
+    
+    /**
+     * Number of page chunks to extract concurrently (optional)
+     * When null or 1, extracts in a single pass; capped by the worker pool size
+     */
+    private Integer parallelism;
+    
+    /**
+     * Enum representing the layout of a streamed text response
+     */
+    public enum StreamFormat {
+        TEXT,               // Plain text of all pages, flushed after every page
+        NDJSON,             // One JSON object per page with its number and text
+        GLYPHS,             // Binary columnar glyph positions, see GlyphColumns
+        GLYPHS_NDJSON       // One JSON object per page with the GlyphColumns columns
+    }
 }
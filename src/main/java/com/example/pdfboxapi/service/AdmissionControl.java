@@ -0,0 +1,228 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Component that admits requests against a projected memory budget
+ *
+ * Before committing to the expensive part of an operation, each service
+ * estimates how much heap the request will need: a multiple of the upload size
+ * for the parsed document, plus the page rasters for renders (pixel area at the
+ * requested DPI times the pages rendered at once). A request is admitted while
+ * the estimates of all admitted requests fit in the budget; otherwise it waits
+ * up to {@code app.admission.max-wait} and is then rejected with 429 and a
+ * Retry-After derived from how long admitted requests usually run. A request
+ * larger than the whole budget is admitted only when nothing else is running.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Component
+@Slf4j
+public class AdmissionControl {
+
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final long MAX_RETRY_AFTER_SECONDS = 60;
+
+    private final long budget;
+    private final long maxWaitNanos;
+    private final int documentFactor;
+
+    private long admittedCost;
+    private int admittedRequests;
+    private double averageHoldMillis;
+
+    private final Map<Bulkheads.Operation, Counter> rejections = new EnumMap<>(Bulkheads.Operation.class);
+
+    /**
+     * Creates the admission control and registers its metrics
+     *
+     * @param budget Projected heap shared by admitted requests; 0 uses half of the maximum heap
+     * @param maxWait Longest time a request waits for admission
+     * @param documentFactor Heap a parsed document is assumed to need, as a multiple of its upload size
+     * @param meterRegistry Registry for the admission metrics
+     */
+    public AdmissionControl(
+            @Value("${app.admission.budget:0}") DataSize budget,
+            @Value("${app.admission.max-wait:5s}") Duration maxWait,
+            @Value("${app.admission.document-factor:3}") int documentFactor,
+            MeterRegistry meterRegistry) {
+        this.budget = budget.toBytes() > 0 ? budget.toBytes() : Runtime.getRuntime().maxMemory() / 2;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.documentFactor = Math.max(1, documentFactor);
+
+        Gauge.builder("pdfbox.admission.budget", () -> this.budget)
+                .description("Projected heap budget shared by admitted requests")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("pdfbox.admission.admitted", this, AdmissionControl::getAdmittedCost)
+                .description("Projected heap of currently admitted requests")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        for (Bulkheads.Operation operation : Bulkheads.Operation.values()) {
+            rejections.put(operation, Counter.builder("pdfbox.admission.rejected")
+                    .tag("operation", operation.tag())
+                    .description("Requests rejected because the projected budget was exhausted")
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Estimates the heap needed to parse uploaded documents
+     *
+     * @param files The uploaded files
+     * @return Projected cost in bytes
+     */
+    public long documentCost(MultipartFile... files) {
+        long cost = 0;
+        for (MultipartFile file : files) {
+            if (file != null) {
+                cost += file.getSize() * documentFactor;
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Estimates the heap needed to render pages of a parsed document
+     *
+     * @param document The parsed document
+     * @param uploadSize Size of the upload the document was parsed from
+     * @param startPage First page to render, 0-based
+     * @param endPage Last page to render, 0-based
+     * @param dpi Rendering resolution
+     * @param concurrentPages Number of pages rendered at once
+     * @return Projected cost in bytes
+     */
+    public long renderCost(PDDocument document, long uploadSize, int startPage, int endPage, int dpi,
+            int concurrentPages) {
+        double maxArea = 0;
+        for (int i = startPage; i <= endPage; i++) {
+            PDRectangle box = document.getPage(i).getCropBox();
+            maxArea = Math.max(maxArea, (double) box.getWidth() * box.getHeight());
+        }
+        // Crop box area is in points; each raster holds (dpi / 72)^2 pixels per square point
+        double scale = dpi / 72.0;
+        long raster = (long) Math.ceil(maxArea * scale * scale) * BYTES_PER_PIXEL;
+        // Each page in flight holds its raster plus roughly as much again while being encoded
+        return uploadSize * documentFactor + 2 * raster * concurrentPages;
+    }
+
+    /**
+     * Estimates the heap needed to render a region of a page
+     *
+     * @param uploadSize Size of the uploaded document
+     * @param width Width of the region in pixels
+     * @param height Height of the region in pixels
+     * @return Projected heap in bytes
+     */
+    public long tileCost(long uploadSize, int width, int height) {
+        long raster = (long) width * height * BYTES_PER_PIXEL;
+        return uploadSize * documentFactor + 2 * raster;
+    }
+
+    /**
+     * Estimates the heap needed to render thumbnails
+     *
+     * @param uploadSize Size of the uploaded document
+     * @param maxSize Longer edge of a thumbnail in pixels
+     * @param concurrentPages Thumbnails rendered at the same time
+     * @return Projected heap in bytes
+     */
+    public long thumbnailCost(long uploadSize, int maxSize, int concurrentPages) {
+        long raster = (long) maxSize * maxSize * BYTES_PER_PIXEL;
+        return uploadSize * documentFactor + 2 * raster * concurrentPages;
+    }
+
+    /**
+     * Admits a request with the given projected cost, waiting for capacity if needed
+     *
+     * @param operation The operation, used for metrics
+     * @param cost Projected cost in bytes
+     * @return A ticket; closing it returns the cost to the budget
+     * @throws AdmissionRejectedException If the request could not be admitted within the maximum wait
+     */
+    public Ticket admit(Bulkheads.Operation operation, long cost) {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        synchronized (this) {
+            while (admittedRequests > 0 && admittedCost + cost > budget) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    rejections.get(operation).increment();
+                    long retryAfter = retryAfterSeconds();
+                    log.warn("Rejected {} request with projected cost {} bytes; {} of {} bytes admitted",
+                            operation.tag(), cost, admittedCost, budget);
+                    throw new AdmissionRejectedException(
+                            "Server is busy, retry in " + retryAfter + " seconds", retryAfter);
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AdmissionRejectedException("Interrupted while waiting for admission", 1);
+                }
+            }
+            admittedCost += cost;
+            admittedRequests++;
+        }
+        return new Ticket(cost);
+    }
+
+    /**
+     * @return Projected heap of currently admitted requests in bytes
+     */
+    public synchronized long getAdmittedCost() {
+        return admittedCost;
+    }
+
+    private synchronized void release(long cost, long heldMillis) {
+        admittedCost -= cost;
+        admittedRequests--;
+        // Exponentially weighted, so Retry-After follows the current workload
+        averageHoldMillis = averageHoldMillis == 0 ? heldMillis : 0.8 * averageHoldMillis + 0.2 * heldMillis;
+        notifyAll();
+    }
+
+    private long retryAfterSeconds() {
+        long seconds = (long) Math.ceil(averageHoldMillis / 1000.0);
+        return Math.max(1, Math.min(MAX_RETRY_AFTER_SECONDS, seconds));
+    }
+
+    /**
+     * An admitted request's share of the budget, returned once when closed
+     */
+    public class Ticket implements AutoCloseable {
+        private final long cost;
+        private final long admittedAt = System.nanoTime();
+        private boolean closed;
+
+        private Ticket(long cost) {
+            this.cost = cost;
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            release(cost, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - admittedAt));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.pdfboxapi.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when an operation's bulkhead has no free permit within the maximum wait
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class BulkheadFullException extends RuntimeException {
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Component limiting how many requests of each operation run their PDFBox work at once
+ *
+ * Every operation has its own semaphore, sized to the number of cores unless
+ * {@code app.bulkhead.<operation>.permits} says otherwise, so a burst of one
+ * expensive operation (e.g. high-DPI rendering) cannot take the CPU away from
+ * the others. Requests wait in FIFO order for up to {@code app.bulkhead.max-wait}
+ * and are then rejected with {@link BulkheadFullException}. Waiting requests,
+ * active requests and wait time are published per operation.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Component
+@Slf4j
+public class Bulkheads {
+
+    /**
+     * Operations with their own bulkhead
+     */
+    public enum Operation {
+        TEXT, SPLIT, MERGE, FORMS, RENDER, VALIDATE, CREATE, SIGN;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Map<Operation, Bulkhead> bulkheads = new EnumMap<>(Operation.class);
+    private final long maxWaitNanos;
+
+    /**
+     * Creates one bulkhead per operation and registers their metrics
+     *
+     * @param environment Source of the per-operation permit overrides
+     * @param maxWait Longest time a request waits for a permit
+     * @param meterRegistry Registry for the bulkhead metrics
+     */
+    public Bulkheads(
+            Environment environment,
+            @Value("${app.bulkhead.max-wait:30s}") Duration maxWait,
+            MeterRegistry meterRegistry) {
+        this.maxWaitNanos = maxWait.toNanos();
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (Operation operation : Operation.values()) {
+            int permits = environment.getProperty("app.bulkhead." + operation.tag() + ".permits", Integer.class, cores);
+            bulkheads.put(operation, new Bulkhead(operation, Math.max(1, permits), meterRegistry));
+        }
+    }
+
+    /**
+     * Waits for a permit to run an operation
+     *
+     * @param operation The operation
+     * @return The permit; closing it lets the next request in
+     * @throws BulkheadFullException If no permit became free within the maximum wait
+     */
+    public Permit acquire(Operation operation) {
+        return bulkheads.get(operation).acquire();
+    }
+
+    /**
+     * @param operation The operation
+     * @return Number of requests waiting for a permit
+     */
+    public int getQueueDepth(Operation operation) {
+        return bulkheads.get(operation).waiting.get();
+    }
+
+    /**
+     * @param operation The operation
+     * @return Number of permits currently held
+     */
+    public int getActive(Operation operation) {
+        Bulkhead bulkhead = bulkheads.get(operation);
+        return bulkhead.permits - bulkhead.semaphore.availablePermits();
+    }
+
+    private class Bulkhead {
+        private final Operation operation;
+        private final int permits;
+        private final Semaphore semaphore;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final Timer waitTimer;
+
+        Bulkhead(Operation operation, int permits, MeterRegistry meterRegistry) {
+            this.operation = operation;
+            this.permits = permits;
+            this.semaphore = new Semaphore(permits, true);
+            this.waitTimer = Timer.builder("pdfbox.bulkhead.wait")
+                    .tag("operation", operation.tag())
+                    .description("Time requests waited for a bulkhead permit")
+                    .register(meterRegistry);
+            Gauge.builder("pdfbox.bulkhead.queue", waiting, AtomicInteger::get)
+                    .tag("operation", operation.tag())
+                    .description("Requests waiting for a bulkhead permit")
+                    .register(meterRegistry);
+            Gauge.builder("pdfbox.bulkhead.active", semaphore, s -> permits - s.availablePermits())
+                    .tag("operation", operation.tag())
+                    .description("Requests holding a bulkhead permit")
+                    .register(meterRegistry);
+            Gauge.builder("pdfbox.bulkhead.permits", () -> permits)
+                    .tag("operation", operation.tag())
+                    .description("Bulkhead size")
+                    .register(meterRegistry);
+        }
+
+        Permit acquire() {
+            long start = System.nanoTime();
+            boolean acquired;
+            waiting.incrementAndGet();
+            try {
+                acquired = semaphore.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BulkheadFullException("Interrupted while waiting for " + operation.tag() + " capacity");
+            } finally {
+                waiting.decrementAndGet();
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            if (!acquired) {
+                log.warn("Rejected {} request after waiting {} ms", operation.tag(),
+                        TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+                throw new BulkheadFullException("Too many concurrent " + operation.tag() + " requests");
+            }
+            return new Permit(semaphore);
+        }
+    }
+
+    /**
+     * A held bulkhead permit, released once when closed
+     */
+    public static class Permit implements AutoCloseable {
+        private final Semaphore semaphore;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        }
+    }
+}
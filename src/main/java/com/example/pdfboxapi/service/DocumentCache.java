@@ -0,0 +1,284 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Content-addressed cache of parsed PDF documents
+ *
+ * Documents are keyed by the SHA-256 of the upload, so the same file sent to
+ * different endpoints is parsed once. PDDocument is not thread-safe, so a
+ * document is removed from the cache while it is checked out and only returned
+ * when the lease is closed; a concurrent request for the same content parses its
+ * own copy. Entries are evicted least-recently-used once their combined weight
+ * exceeds the configured maximum, and after the TTL. An entry weighs the heap
+ * its parsed document is estimated to need, the same cost admission control
+ * charges for it.
+ *
+ * Only read-only operations may use this cache. Services that modify the
+ * document must load their own copy through {@link DocumentSource#load}.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Component
+@Slf4j
+public class DocumentCache {
+
+    private final DocumentSource documentSource;
+    private final AdmissionControl admissionControl;
+    private final long maxWeight;
+    private final long ttlMillis;
+
+    // Insertion order: a document is removed on checkout and re-inserted on check-in
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private long totalWeight;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    /**
+     * Creates the document cache and registers its metrics
+     *
+     * @param documentSource Source used to open and hash uploads
+     * @param admissionControl Source of the heap estimate a document is weighed by
+     * @param maxWeight Maximum combined estimated heap of cached documents
+     * @param ttl Time an idle document stays in the cache
+     * @param meterRegistry Registry for the cache metrics
+     */
+    public DocumentCache(
+            DocumentSource documentSource,
+            AdmissionControl admissionControl,
+            @Value("${app.cache.documents.max-weight:256MB}") DataSize maxWeight,
+            @Value("${app.cache.documents.ttl:60s}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.documentSource = documentSource;
+        this.admissionControl = admissionControl;
+        this.maxWeight = maxWeight.toBytes();
+        this.ttlMillis = ttl.toMillis();
+
+        this.hits = Counter.builder("pdfbox.cache.documents.requests").tag("result", "hit")
+                .description("Parsed document cache lookups").register(meterRegistry);
+        this.misses = Counter.builder("pdfbox.cache.documents.requests").tag("result", "miss")
+                .description("Parsed document cache lookups").register(meterRegistry);
+        this.evictions = Counter.builder("pdfbox.cache.documents.evictions")
+                .description("Parsed documents evicted for size or TTL").register(meterRegistry);
+        Gauge.builder("pdfbox.cache.documents.weight", this, DocumentCache::getWeight)
+                .description("Combined estimated heap of cached documents")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("pdfbox.cache.documents.size", this, DocumentCache::size)
+                .description("Number of cached documents")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Checks out the parsed document for an upload, parsing it on a cache miss
+     *
+     * @param multipartFile The uploaded PDF file
+     * @return A lease giving exclusive access to the document until closed
+     * @throws IOException If the upload cannot be read or parsed
+     */
+    public Lease checkout(MultipartFile multipartFile) throws IOException {
+        return checkout(multipartFile, documentSource.contentHash(multipartFile));
+    }
+
+    /**
+     * Checks out the parsed document for an upload whose SHA-256 is already known
+     *
+     * @param multipartFile The uploaded PDF file
+     * @param sha256 Hex encoded SHA-256 of the upload, as computed by {@link DocumentSource#contentHash}
+     * @return A lease giving exclusive access to the document until closed
+     * @throws IOException If the upload cannot be read or parsed
+     */
+    public Lease checkout(MultipartFile multipartFile, String sha256) throws IOException {
+        long weight = admissionControl.documentCost(multipartFile);
+
+        PDDocument document = take(sha256);
+        if (document != null) {
+            hits.increment();
+            log.debug("Document cache hit for {}", sha256);
+            return new Lease(sha256, weight, document);
+        }
+
+        misses.increment();
+        // Cached documents are read-only, so they don't hold a share of the memory budget
+        document = documentSource.load(multipartFile, IOUtils.createTempFileOnlyStreamCache());
+        return new Lease(sha256, weight, document);
+    }
+
+    /**
+     * Removes expired documents; also runs on every check-in
+     */
+    @Scheduled(fixedDelayString = "${app.cache.documents.sweep-interval:30s}")
+    public void evictExpired() {
+        List<PDDocument> evicted = new ArrayList<>();
+        synchronized (this) {
+            // Entries are re-inserted on every check-in, so iteration order is expiry order
+            long now = System.currentTimeMillis();
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.expiresAt > now) {
+                    break;
+                }
+                it.remove();
+                totalWeight -= entry.weight;
+                evicted.add(entry.document);
+            }
+        }
+        closeEvicted(evicted);
+    }
+
+    /**
+     * Closes all cached documents on shutdown
+     */
+    @PreDestroy
+    public void clear() {
+        List<PDDocument> evicted = new ArrayList<>();
+        synchronized (this) {
+            entries.values().forEach(entry -> evicted.add(entry.document));
+            entries.clear();
+            totalWeight = 0;
+        }
+        evicted.forEach(IOUtils::closeQuietly);
+    }
+
+    /**
+     * @return Combined upload size of cached documents in bytes
+     */
+    public synchronized long getWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * @return Number of cached documents
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private PDDocument take(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.remove(key);
+            if (entry == null) {
+                return null;
+            }
+            totalWeight -= entry.weight;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            closeEvicted(List.of(entry.document));
+            return null;
+        }
+        return entry.document;
+    }
+
+    private void checkin(String key, long weight, PDDocument document) {
+        if (weight > maxWeight) {
+            IOUtils.closeQuietly(document);
+            return;
+        }
+
+        List<PDDocument> evicted = new ArrayList<>();
+        synchronized (this) {
+            if (entries.containsKey(key)) {
+                // A concurrent request already returned a copy of the same content
+                evicted.add(document);
+            } else {
+                entries.put(key, new Entry(document, weight, System.currentTimeMillis() + ttlMillis));
+                totalWeight += weight;
+                Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+                while (totalWeight > maxWeight && it.hasNext()) {
+                    Entry eldest = it.next().getValue();
+                    it.remove();
+                    totalWeight -= eldest.weight;
+                    evictions.increment();
+                    evicted.add(eldest.document);
+                }
+            }
+        }
+        evicted.forEach(IOUtils::closeQuietly);
+        evictExpired();
+    }
+
+    private void closeEvicted(List<PDDocument> evicted) {
+        for (PDDocument document : evicted) {
+            evictions.increment();
+            IOUtils.closeQuietly(document);
+        }
+    }
+
+    private record Entry(PDDocument document, long weight, long expiresAt) {
+    }
+
+    /**
+     * Exclusive use of a parsed document, returned to the cache when closed
+     */
+    public class Lease implements AutoCloseable {
+        private final String key;
+        private final long weight;
+        private final PDDocument document;
+        private boolean discard;
+        private boolean closed;
+
+        private Lease(String key, long weight, PDDocument document) {
+            this.key = key;
+            this.weight = weight;
+            this.document = document;
+        }
+
+        /**
+         * @return The parsed document, owned by the caller until the lease is closed
+         */
+        public PDDocument getDocument() {
+            return document;
+        }
+
+        /**
+         * @return SHA-256 of the upload the document was parsed from
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Closes the document instead of returning it to the cache
+         */
+        public void discard() {
+            discard = true;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (discard) {
+                IOUtils.closeQuietly(document);
+            } else {
+                checkin(key, weight, document);
+            }
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.example.pdfboxapi.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.io.RandomAccessReadMemoryMappedFile;
+import org.apache.pdfbox.io.RandomAccessReadView;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Component that opens uploaded PDF files for PDFBox
+ *
+ * This component replaces the per-service conversion of uploads into temporary
+ * files. Small uploads are wrapped in a RandomAccessReadBuffer over the bytes the
+ * upload already holds; larger uploads are moved into the upload directory once
+ * (which lets the servlet container hand over its own spooled file) and read from
+ * there. Uploads above the memory-map threshold are mapped into memory so the OS
+ * page cache serves PDFBox's random xref and object stream access without heap
+ * copies. Spooled files are deleted when the returned source is closed.
+ * Documents rendered with {@link #renderer(PDDocument)} share decoded images
+ * through the {@link SharedResourceCache}.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Component
+@Slf4j
+public class DocumentSource {
+
+    private final long inMemoryThreshold;
+    private final long memoryMapThreshold;
+    private final Path spoolDir;
+    private final MemoryBudget memoryBudget;
+    private final SharedResourceCache resourceCache;
+
+    /**
+     * Creates the document source
+     *
+     * @param inMemoryThreshold Uploads up to this size are read from memory
+     * @param memoryMapThreshold Spooled uploads above this size are memory-mapped
+     * @param uploadDir Directory used to spool larger uploads
+     * @param memoryBudget Budget providing stream caches for loaded documents
+     * @param resourceCache Cache of decoded resources installed on loaded documents
+     */
+    public DocumentSource(
+            @Value("${app.document.in-memory-threshold:4MB}") DataSize inMemoryThreshold,
+            @Value("${app.document.memory-map-threshold:8MB}") DataSize memoryMapThreshold,
+            @Value("${app.upload.dir:temp-files}") String uploadDir,
+            MemoryBudget memoryBudget,
+            SharedResourceCache resourceCache) {
+        this.inMemoryThreshold = inMemoryThreshold.toBytes();
+        this.memoryMapThreshold = memoryMapThreshold.toBytes();
+        this.spoolDir = Paths.get(uploadDir).toAbsolutePath();
+        this.memoryBudget = memoryBudget;
+        this.resourceCache = resourceCache;
+    }
+
+    /**
+     * Opens an uploaded file for random access using the cheapest available path
+     *
+     * @param multipartFile The uploaded file
+     * @return A RandomAccessRead over the upload; the caller must close it
+     * @throws IOException If the upload cannot be read
+     */
+    public RandomAccessRead open(MultipartFile multipartFile) throws IOException {
+        if (multipartFile == null || multipartFile.isEmpty()) {
+            throw new IllegalArgumentException("PDF file is required");
+        }
+
+        if (multipartFile instanceof StoredDocument stored) {
+            // Already on local disk; the store owns the file, so it is not deleted on close
+            return openSpooled(stored.getPath(), stored.getSize());
+        }
+
+        if (multipartFile.getSize() <= inMemoryThreshold) {
+            return new RandomAccessReadBuffer(multipartFile.getBytes());
+        }
+
+        Path spooled = spool(multipartFile);
+        try {
+            return new SpooledFile(openSpooled(spooled, multipartFile.getSize()), spooled);
+        } catch (IOException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+    }
+
+    /**
+     * Opens and parses an uploaded PDF file
+     *
+     * The document buffers new and altered streams in a cache drawn from the
+     * memory budget.
+     *
+     * @param multipartFile The uploaded PDF file
+     * @return The loaded document; closing it also releases the underlying source
+     * @throws IOException If the upload cannot be read or parsed
+     */
+    public PDDocument load(MultipartFile multipartFile) throws IOException {
+        return load(multipartFile, memoryBudget.streamCache());
+    }
+
+    /**
+     * Opens and parses an uploaded PDF file with the given stream cache
+     *
+     * @param multipartFile The uploaded PDF file
+     * @param streamCache Function creating the cache for new and altered streams
+     * @return The loaded document; closing it also releases the underlying source
+     * @throws IOException If the upload cannot be read or parsed
+     */
+    public PDDocument load(MultipartFile multipartFile, StreamCacheCreateFunction streamCache)
+            throws IOException {
+        RandomAccessRead source = open(multipartFile);
+        try {
+            PDDocument document = Loader.loadPDF(source, streamCache);
+            document.setResourceCache(resourceCache.forDocument());
+            return document;
+        } catch (IOException e) {
+            IOUtils.closeQuietly(source);
+            throw e;
+        }
+    }
+
+    /**
+     * Prepares an upload to be parsed several times, e.g. once per worker thread
+     *
+     * PDDocument is not thread-safe, so parallel work needs one document per
+     * thread. The upload is read or spooled only once; every document loaded from
+     * the returned source reads the same bytes or file.
+     *
+     * @param multipartFile The uploaded PDF file
+     * @return A source of independent documents; the caller must close it after the documents
+     * @throws IOException If the upload cannot be read
+     */
+    public SharedSource share(MultipartFile multipartFile) throws IOException {
+        if (multipartFile == null || multipartFile.isEmpty()) {
+            throw new IllegalArgumentException("PDF file is required");
+        }
+
+        if (multipartFile instanceof StoredDocument stored) {
+            return new SharedSource(null, stored.getPath(), stored.getSize(), false);
+        }
+
+        if (multipartFile.getSize() <= inMemoryThreshold) {
+            return new SharedSource(multipartFile.getBytes(), null, multipartFile.getSize(), false);
+        }
+
+        return new SharedSource(null, spool(multipartFile), multipartFile.getSize(), true);
+    }
+
+    /**
+     * Computes the SHA-256 of an upload, streaming it without buffering the content
+     *
+     * @param multipartFile The uploaded file
+     * @return Lower-case hex encoded SHA-256 digest
+     * @throws IOException If the upload cannot be read
+     */
+    public String contentHash(MultipartFile multipartFile) throws IOException {
+        if (multipartFile == null || multipartFile.isEmpty()) {
+            throw new IllegalArgumentException("PDF file is required");
+        }
+
+        if (multipartFile instanceof StoredDocument stored) {
+            return stored.getSha256();
+        }
+
+        try (InputStream in = multipartFile.getInputStream()) {
+            return sha256(in);
+        }
+    }
+
+    /**
+     * Creates a renderer for a loaded document
+     *
+     * @param document A document loaded by this source
+     * @return A renderer that shares decoded images through the {@link SharedResourceCache}
+     */
+    public PDFRenderer renderer(PDDocument document) {
+        return resourceCache.renderer(document);
+    }
+
+    /**
+     * Computes the SHA-256 of a stream
+     *
+     * @param in Stream to digest; read to the end but not closed
+     * @return Lower-case hex encoded SHA-256 digest
+     * @throws IOException If the stream cannot be read
+     */
+    static String sha256(InputStream in) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Moves an upload into the spool directory
+     *
+     * Uses MultipartFile.transferTo(File) with an absolute path, which the servlet
+     * container implements as a rename of its own spooled file where possible.
+     *
+     * @param multipartFile The uploaded file
+     * @return Path of the spooled file
+     * @throws IOException If the upload cannot be written
+     */
+    private Path spool(MultipartFile multipartFile) throws IOException {
+        Files.createDirectories(spoolDir);
+        Path target = Files.createTempFile(spoolDir, "pdf-", ".pdf");
+        try {
+            // transferTo refuses to overwrite on some containers
+            Files.delete(target);
+            multipartFile.transferTo(target.toFile());
+        } catch (IOException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        log.debug("Spooled {} byte upload to {}", multipartFile.getSize(), target);
+        return target;
+    }
+
+    /**
+     * Opens a file on local disk, memory-mapping it when it is large enough
+     *
+     * RandomAccessReadMemoryMappedFile maps the whole file as a single buffer,
+     * so files beyond Integer.MAX_VALUE bytes fall back to buffered reads.
+     *
+     * @param spooled Path of the file
+     * @param size Size of the file in bytes
+     * @return A RandomAccessRead over the file
+     * @throws IOException If the file cannot be opened
+     */
+    private RandomAccessRead openSpooled(Path spooled, long size) throws IOException {
+        if (size > memoryMapThreshold && size <= Integer.MAX_VALUE) {
+            log.debug("Memory-mapping {} byte upload", size);
+            return new RandomAccessReadMemoryMappedFile(spooled);
+        }
+        return new RandomAccessReadBufferedFile(spooled);
+    }
+
+    /**
+     * An upload that can be parsed into any number of independent documents
+     */
+    public class SharedSource implements AutoCloseable {
+        private final byte[] bytes;
+        private final Path path;
+        private final long size;
+        private final boolean deleteOnClose;
+
+        private SharedSource(byte[] bytes, Path path, long size, boolean deleteOnClose) {
+            this.bytes = bytes;
+            this.path = path;
+            this.size = size;
+            this.deleteOnClose = deleteOnClose;
+        }
+
+        /**
+         * Parses a new document from the shared upload
+         *
+         * Documents are read-only views of the upload, so they buffer streams in
+         * scratch files rather than taking a share of the memory budget.
+         *
+         * @return A document owned by the caller
+         * @throws IOException If the upload cannot be parsed
+         */
+        public PDDocument load() throws IOException {
+            // RandomAccessReadBuffer wraps the array without copying it
+            RandomAccessRead source = bytes != null ? new RandomAccessReadBuffer(bytes) : openSpooled(path, size);
+            try {
+                PDDocument document = Loader.loadPDF(source, IOUtils.createTempFileOnlyStreamCache());
+                document.setResourceCache(resourceCache.forDocument());
+                return document;
+            } catch (IOException e) {
+                IOUtils.closeQuietly(source);
+                throw e;
+            }
+        }
+
+        /**
+         * Removes the spooled upload; documents loaded from it must be closed first
+         */
+        @Override
+        public void close() {
+            if (deleteOnClose) {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("Could not delete spooled upload {}", path, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * RandomAccessRead over a spooled upload that removes the file when closed
+     */
+    private static class SpooledFile implements RandomAccessRead {
+        private final RandomAccessRead delegate;
+        private final Path path;
+
+        SpooledFile(RandomAccessRead delegate, Path path) {
+            this.delegate = delegate;
+            this.path = path;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return delegate.read();
+        }
+
+        @Override
+        public int read(byte[] b, int offset, int length) throws IOException {
+            return delegate.read(b, offset, length);
+        }
+
+        @Override
+        public long getPosition() throws IOException {
+            return delegate.getPosition();
+        }
+
+        @Override
+        public void seek(long position) throws IOException {
+            delegate.seek(position);
+        }
+
+        @Override
+        public long length() throws IOException {
+            return delegate.length();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return delegate.isClosed();
+        }
+
+        @Override
+        public boolean isEOF() throws IOException {
+            return delegate.isEOF();
+        }
+
+        @Override
+        public RandomAccessReadView createView(long startPosition, long streamLength) throws IOException {
+            return delegate.createView(startPosition, streamLength);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                delegate.close();
+            } finally {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
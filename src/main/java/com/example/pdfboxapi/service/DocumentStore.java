@@ -0,0 +1,269 @@
+package com.example.pdfboxapi.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Service that keeps uploaded PDFs on local disk for reuse across operations
+ *
+ * A client uploads a document once and then passes the returned id to any
+ * operation instead of uploading the file again. Documents expire after a fixed
+ * TTL. Stored files survive a restart: on startup the store re-registers files
+ * that have not yet expired and deletes the rest. The original filename is
+ * kept in a small text file next to each document so it survives too.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Service
+@Slf4j
+public class DocumentStore {
+
+    private static final String EXTENSION = ".pdf";
+    private static final String NAME_EXTENSION = ".name";
+    private static final int HEADER_SEARCH_LENGTH = 1024;
+
+    private final Path storeDir;
+    private final Duration ttl;
+    private final ConcurrentMap<String, StoredDocument> documents = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the document store
+     *
+     * @param storeDir Directory holding stored documents
+     * @param ttl Time a document is kept after upload
+     */
+    public DocumentStore(
+            @Value("${app.documents.dir:temp-files/documents}") String storeDir,
+            @Value("${app.documents.ttl:30m}") Duration ttl) {
+        this.storeDir = Paths.get(storeDir).toAbsolutePath();
+        this.ttl = ttl;
+    }
+
+    /**
+     * Re-registers documents stored before a restart
+     *
+     * @throws IOException If the store directory cannot be read
+     */
+    @PostConstruct
+    public void recover() throws IOException {
+        Files.createDirectories(storeDir);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(storeDir, "*" + EXTENSION)) {
+            for (Path file : files) {
+                String id = file.getFileName().toString().replace(EXTENSION, "");
+                Instant expiresAt = Files.getLastModifiedTime(file).toInstant().plus(ttl);
+                if (expiresAt.isBefore(Instant.now()) || !isUuid(id)) {
+                    Files.deleteIfExists(file);
+                    Files.deleteIfExists(nameFile(id));
+                    continue;
+                }
+                try (InputStream in = Files.newInputStream(file)) {
+                    documents.put(id, new StoredDocument(id, file, readFilename(id), Files.size(file),
+                            DocumentSource.sha256(in), expiresAt));
+                }
+            }
+        }
+        try (DirectoryStream<Path> names = Files.newDirectoryStream(storeDir, "*" + NAME_EXTENSION)) {
+            for (Path name : names) {
+                // Left behind by documents deleted while the service was down
+                if (!documents.containsKey(name.getFileName().toString().replace(NAME_EXTENSION, ""))) {
+                    Files.deleteIfExists(name);
+                }
+            }
+        }
+        if (!documents.isEmpty()) {
+            log.info("Recovered {} stored documents", documents.size());
+        }
+    }
+
+    /**
+     * Stores an uploaded PDF
+     *
+     * @param multipartFile The uploaded PDF file
+     * @return The stored document
+     * @throws IOException If the upload cannot be written
+     */
+    public StoredDocument store(MultipartFile multipartFile) throws IOException {
+        if (multipartFile == null || multipartFile.isEmpty()) {
+            throw new IllegalArgumentException("PDF file is required");
+        }
+
+        String id = UUID.randomUUID().toString();
+        Path target = storeDir.resolve(id + EXTENSION);
+        Files.createDirectories(storeDir);
+
+        try {
+            // An absolute path lets the container move its spooled part instead of copying it
+            multipartFile.transferTo(target.toFile());
+
+            String sha256;
+            try (InputStream in = Files.newInputStream(target)) {
+                byte[] header = in.readNBytes(HEADER_SEARCH_LENGTH);
+                if (!new String(header, StandardCharsets.ISO_8859_1).contains("%PDF-")) {
+                    throw new IllegalArgumentException("The uploaded file is not a PDF document");
+                }
+                sha256 = DocumentSource.sha256(new SequenceInputStream(new ByteArrayInputStream(header), in));
+            }
+
+            String filename = multipartFile.getOriginalFilename();
+            if (filename != null && !filename.isEmpty()) {
+                Files.writeString(nameFile(id), filename, StandardCharsets.UTF_8);
+            }
+
+            StoredDocument document = new StoredDocument(id, target, filename,
+                    Files.size(target), sha256, Instant.now().plus(ttl));
+            documents.put(id, document);
+            log.info("Stored document {} ({} bytes)", id, document.getSize());
+            return document;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            Files.deleteIfExists(nameFile(id));
+            throw e;
+        }
+    }
+
+    /**
+     * Looks up a stored document
+     *
+     * @param id Identifier returned by {@link #store}
+     * @return The stored document
+     * @throws IllegalArgumentException If no such document exists or it has expired
+     */
+    public StoredDocument get(String id) {
+        StoredDocument document = id != null ? documents.get(id) : null;
+        if (document == null || document.getExpiresAt().isBefore(Instant.now())) {
+            throw new IllegalArgumentException("Unknown or expired document: " + id);
+        }
+        return document;
+    }
+
+    /**
+     * Picks the PDF an operation works on: the upload if present, else the stored document
+     *
+     * @param pdfFile Uploaded PDF file, may be null
+     * @param documentId Identifier of a stored document, may be null
+     * @return The file to process
+     * @throws IllegalArgumentException If neither or both are given, or the id is unknown
+     */
+    public MultipartFile resolve(MultipartFile pdfFile, String documentId) {
+        boolean hasFile = pdfFile != null && !pdfFile.isEmpty();
+        boolean hasId = documentId != null && !documentId.isBlank();
+        if (hasFile == hasId) {
+            throw new IllegalArgumentException("Provide either pdfFile or documentId");
+        }
+        return hasFile ? pdfFile : get(documentId);
+    }
+
+    /**
+     * Collects the PDFs of a multi-document operation: uploads first, then stored documents
+     *
+     * @param pdfFiles Uploaded PDF files, may be null
+     * @param documentIds Identifiers of stored documents, may be null
+     * @return The files to process, in order
+     * @throws IllegalArgumentException If an id is unknown
+     */
+    public MultipartFile[] resolveAll(MultipartFile[] pdfFiles, String[] documentIds) {
+        List<MultipartFile> files = new ArrayList<>();
+        if (pdfFiles != null) {
+            for (MultipartFile pdfFile : pdfFiles) {
+                if (pdfFile != null && !pdfFile.isEmpty()) {
+                    files.add(pdfFile);
+                }
+            }
+        }
+        if (documentIds != null) {
+            for (String documentId : documentIds) {
+                files.add(get(documentId));
+            }
+        }
+        return files.toArray(new MultipartFile[0]);
+    }
+
+    /**
+     * Deletes a stored document
+     *
+     * @param id Identifier of the document
+     * @return true if the document existed
+     * @throws IOException If the file cannot be deleted
+     */
+    public boolean delete(String id) throws IOException {
+        StoredDocument document = documents.remove(id);
+        if (document == null) {
+            return false;
+        }
+        Files.deleteIfExists(document.getPath());
+        Files.deleteIfExists(nameFile(id));
+        return true;
+    }
+
+    /**
+     * Removes expired documents
+     */
+    @Scheduled(fixedDelayString = "${app.documents.sweep-interval:60s}")
+    public void evictExpired() {
+        Instant now = Instant.now();
+        List<String> expired = new ArrayList<>();
+        documents.forEach((id, document) -> {
+            if (document.getExpiresAt().isBefore(now)) {
+                expired.add(id);
+            }
+        });
+        for (String id : expired) {
+            try {
+                delete(id);
+                log.debug("Expired stored document {}", id);
+            } catch (IOException e) {
+                log.warn("Could not delete expired document {}", id, e);
+            }
+        }
+    }
+
+    private Path nameFile(String id) {
+        return storeDir.resolve(id + NAME_EXTENSION);
+    }
+
+    /**
+     * Reads the original filename of a recovered document, falling back to its id
+     */
+    private String readFilename(String id) {
+        Path nameFile = nameFile(id);
+        try {
+            if (Files.exists(nameFile)) {
+                return Files.readString(nameFile, StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            log.warn("Could not read the filename of stored document {}", id, e);
+        }
+        return id + EXTENSION;
+    }
+
+    private static boolean isUuid(String id) {
+        try {
+            UUID.fromString(id);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
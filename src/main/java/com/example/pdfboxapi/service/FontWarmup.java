@@ -0,0 +1,136 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.FontMappers;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup phase that builds PDFBox's font state before the first request
+ *
+ * The first font substitution makes PDFBox scan the system fonts and write
+ * its font cache, which takes seconds. The cache file is kept under a
+ * configurable directory (the {@code pdfbox.fontcache} system property) so a
+ * restart on the same volume loads it instead of scanning again. Warm-up then
+ * loads the Standard 14 fonts offered by {@link PdfCreationService} and runs
+ * one create, parse, render and extract cycle to load the remaining classes.
+ *
+ * Runners complete before Spring Boot switches readiness to
+ * ACCEPTING_TRAFFIC, so the readiness probe only reports healthy once
+ * warm-up has finished. A failed warm-up is logged and does not stop startup.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Component
+@Slf4j
+public class FontWarmup implements ApplicationRunner {
+
+    static final String FONT_CACHE_PROPERTY = "pdfbox.fontcache";
+
+    private final boolean enabled;
+    private final Path fontCacheDir;
+    private volatile long durationMillis = -1;
+
+    /**
+     * Creates the warm-up and registers its metric
+     *
+     * @param enabled Whether to warm up at startup
+     * @param fontCacheDir Directory holding PDFBox's font cache file
+     * @param meterRegistry Registry for the warm-up metric
+     */
+    public FontWarmup(
+            @Value("${app.warmup.enabled:true}") boolean enabled,
+            @Value("${app.warmup.font-cache-dir:temp-files/font-cache}") String fontCacheDir,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.fontCacheDir = Paths.get(fontCacheDir).toAbsolutePath();
+        Gauge.builder("pdfbox.warmup.duration", this, FontWarmup::getDurationMillis)
+                .description("Time the startup warm-up took, or -1 before it has finished")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            warmUp();
+        }
+    }
+
+    /**
+     * Loads or builds the font cache and runs one document through PDFBox
+     */
+    public void warmUp() {
+        long start = System.nanoTime();
+        try {
+            // FileSystemFontProvider reads the property when it loads or saves the cache
+            if (System.getProperty(FONT_CACHE_PROPERTY) == null) {
+                Files.createDirectories(fontCacheDir);
+                System.setProperty(FONT_CACHE_PROPERTY, fontCacheDir.toString());
+            }
+            // Loads the cache file, or scans the system fonts and writes it
+            FontMappers.instance();
+            for (String fontName : PdfCreationService.FONT_NAMES) {
+                PdfCreationService.getFont(fontName);
+            }
+            exercise();
+        } catch (IOException | RuntimeException e) {
+            log.warn("PDFBox warm-up failed, first requests may be slower", e);
+        } finally {
+            durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+        log.info("PDFBox warm-up finished in {} ms", durationMillis);
+    }
+
+    private static void exercise() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.A6);
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                float y = page.getMediaBox().getHeight() - 20;
+                for (String fontName : PdfCreationService.FONT_NAMES) {
+                    PDFont font = PdfCreationService.getFont(fontName);
+                    content.beginText();
+                    content.setFont(font, 10);
+                    content.newLineAtOffset(20, y);
+                    content.showText(fontName);
+                    content.endText();
+                    y -= 14;
+                }
+            }
+            document.save(baos);
+        }
+        try (PDDocument document = Loader.loadPDF(baos.toByteArray())) {
+            new PDFRenderer(document).renderImageWithDPI(0, 72);
+            new PDFTextStripper().getText(document);
+        }
+    }
+
+    /**
+     * @return Duration of the last warm-up in milliseconds, or -1 if it has not finished
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+}
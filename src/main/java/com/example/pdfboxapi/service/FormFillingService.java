@@ -5,19 +5,13 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
 import org.apache.pdfbox.pdmodel.interactive.form.PDField;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.Map;
 
 /**
@@ -35,6 +29,9 @@ import java.util.Map;
 public class FormFillingService {
 
     private final ObjectMapper objectMapper;
+    private final DocumentSource documentSource;
+    private final Bulkheads bulkheads;
+    private final AdmissionControl admissionControl;
 
     /**
      * Fills form fields in a PDF document
@@ -44,10 +41,10 @@ public class FormFillingService {
      * @throws IOException If there's an error processing the PDF
      */
     public byte[] fillForm(FormFillingRequest request) throws IOException {
-        MultipartFile pdfFile = request.getPdfFile();
-        File tempFile = convertMultipartFileToFile(pdfFile);
-        
-        try (PDDocument document = Loader.loadPDF(tempFile)) {
+        try (Bulkheads.Permit permit = bulkheads.acquire(Bulkheads.Operation.FORMS);
+             AdmissionControl.Ticket ticket = admissionControl.admit(Bulkheads.Operation.FORMS,
+                     admissionControl.documentCost(request.getPdfFile()));
+             PDDocument document = documentSource.load(request.getPdfFile())) {
             PDAcroForm acroForm = document.getDocumentCatalog().getAcroForm();
             
             if (acroForm == null) {
@@ -83,12 +80,6 @@ public class FormFillingService {
             
             log.info("Successfully filled {} form fields", formData.size());
             return baos.toByteArray();
-            
-        } finally {
-            // Clean up the temporary file
-            if (tempFile != null && tempFile.exists()) {
-                tempFile.delete();
-            }
         }
     }
     
@@ -103,19 +94,4 @@ public class FormFillingService {
     private Map<String, String> parseFormData(String formDataJson) throws JsonProcessingException {
         return objectMapper.readValue(formDataJson, Map.class);
     }
-    
-    /**
-     * Converts a MultipartFile to a File
-     * 
-     * @param multipartFile The MultipartFile to convert
-     * @return A temporary File object
-     * @throws IOException If there's an error during conversion
-     */
-    private File convertMultipartFileToFile(MultipartFile multipartFile) throws IOException {
-        Path tempFile = Files.createTempFile("pdf-", ".pdf");
-        try (FileOutputStream fos = new FileOutputStream(tempFile.toFile())) {
-            fos.write(multipartFile.getBytes());
-        }
-        return tempFile.toFile();
-    }
 }
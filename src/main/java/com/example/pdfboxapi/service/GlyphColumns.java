@@ -0,0 +1,239 @@
+package com.example.pdfboxapi.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Glyph positions of one page, stored column by column
+ *
+ * Each glyph has its text, font, position, size and font size. Text and font
+ * names go into per-page string tables and each glyph stores only table
+ * indices. Coordinates are in PDF points with the origin at the top left of
+ * the page, quantized to 1/{@value #SCALE} point and delta-encoded column by
+ * column, so runs of glyphs on a line take one or two bytes per value.
+ *
+ * The binary layout of a stream is the magic {@code PGL1}, then one block per
+ * page, then a single 0 byte. All integers are LEB128 varints; deltas are
+ * zigzag encoded first. A page block holds:
+ * <ul>
+ *   <li>page number (1-based), page width, page height</li>
+ *   <li>text table: count, then byte length and UTF-8 bytes of each entry</li>
+ *   <li>font table: same layout</li>
+ *   <li>glyph count, then the text index and the font index of every glyph</li>
+ *   <li>deltas of x, y, width, height and font size, one column after the other</li>
+ * </ul>
+ *
+ * @author Manus
+ * @version 1.0
+ */
+public class GlyphColumns {
+
+    /**
+     * Units per point of the quantized columns
+     */
+    public static final int SCALE = 100;
+
+    private static final byte[] MAGIC = {'P', 'G', 'L', '1'};
+
+    private final int pageNumber;
+    private final int pageWidth;
+    private final int pageHeight;
+
+    private final Map<String, Integer> textIndex = new HashMap<>();
+    private final List<String> texts = new ArrayList<>();
+    private final Map<String, Integer> fontIndex = new HashMap<>();
+    private final List<String> fonts = new ArrayList<>();
+
+    private int count;
+    private int[] glyphTexts = new int[256];
+    private int[] glyphFonts = new int[256];
+    private int[] x = new int[256];
+    private int[] y = new int[256];
+    private int[] width = new int[256];
+    private int[] height = new int[256];
+    private int[] fontSize = new int[256];
+
+    /**
+     * Creates an empty page
+     *
+     * @param pageNumber 1-based page number
+     * @param pageWidth Width of the page in points
+     * @param pageHeight Height of the page in points
+     */
+    public GlyphColumns(int pageNumber, float pageWidth, float pageHeight) {
+        this.pageNumber = pageNumber;
+        this.pageWidth = quantize(pageWidth);
+        this.pageHeight = quantize(pageHeight);
+    }
+
+    /**
+     * Appends a glyph
+     *
+     * @param text Unicode text of the glyph
+     * @param font Name of the glyph's font
+     * @param x Left edge in points from the left of the page
+     * @param y Baseline in points from the top of the page
+     * @param width Advance width in points
+     * @param height Glyph height in points
+     * @param fontSize Font size in points
+     */
+    public void add(String text, String font, float x, float y, float width, float height, float fontSize) {
+        if (count == this.x.length) {
+            int capacity = count * 2;
+            glyphTexts = Arrays.copyOf(glyphTexts, capacity);
+            glyphFonts = Arrays.copyOf(glyphFonts, capacity);
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            this.width = Arrays.copyOf(this.width, capacity);
+            this.height = Arrays.copyOf(this.height, capacity);
+            this.fontSize = Arrays.copyOf(this.fontSize, capacity);
+        }
+        glyphTexts[count] = intern(textIndex, texts, text);
+        glyphFonts[count] = intern(fontIndex, fonts, font);
+        this.x[count] = quantize(x);
+        this.y[count] = quantize(y);
+        this.width[count] = quantize(width);
+        this.height[count] = quantize(height);
+        this.fontSize[count] = quantize(fontSize);
+        count++;
+    }
+
+    /**
+     * @return 1-based page number
+     */
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    /**
+     * @return Number of glyphs on the page
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Writes the header of a binary stream
+     *
+     * @param out Destination of the stream
+     * @throws IOException If the header cannot be written
+     */
+    public static void writeHeader(OutputStream out) throws IOException {
+        out.write(MAGIC);
+    }
+
+    /**
+     * Writes the marker ending a binary stream after the last page
+     *
+     * @param out Destination of the stream
+     * @throws IOException If the marker cannot be written
+     */
+    public static void writeEnd(OutputStream out) throws IOException {
+        out.write(0);
+    }
+
+    /**
+     * Writes the page as a binary block
+     *
+     * @param out Destination of the stream
+     * @throws IOException If the block cannot be written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        writeVarint(out, pageNumber);
+        writeVarint(out, pageWidth);
+        writeVarint(out, pageHeight);
+        writeStrings(out, texts);
+        writeStrings(out, fonts);
+        writeVarint(out, count);
+        for (int i = 0; i < count; i++) {
+            writeVarint(out, glyphTexts[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            writeVarint(out, glyphFonts[i]);
+        }
+        for (int[] column : new int[][] {x, y, width, height, fontSize}) {
+            int previous = 0;
+            for (int i = 0; i < count; i++) {
+                writeVarint(out, zigzag(column[i] - previous));
+                previous = column[i];
+            }
+        }
+    }
+
+    /**
+     * Builds the page as one JSON object with the same columns as the binary
+     * block, for NDJSON output
+     *
+     * @return Map serializable to JSON
+     */
+    public Map<String, Object> toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("page", pageNumber);
+        json.put("scale", SCALE);
+        json.put("width", pageWidth);
+        json.put("height", pageHeight);
+        json.put("texts", texts);
+        json.put("fonts", fonts);
+        json.put("text", Arrays.copyOf(glyphTexts, count));
+        json.put("font", Arrays.copyOf(glyphFonts, count));
+        json.put("dx", deltas(x));
+        json.put("dy", deltas(y));
+        json.put("dw", deltas(width));
+        json.put("dh", deltas(height));
+        json.put("dsize", deltas(fontSize));
+        return json;
+    }
+
+    private int[] deltas(int[] column) {
+        int[] deltas = new int[count];
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            deltas[i] = column[i] - previous;
+            previous = column[i];
+        }
+        return deltas;
+    }
+
+    private static int intern(Map<String, Integer> index, List<String> table, String value) {
+        String key = value != null ? value : "";
+        Integer existing = index.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        index.put(key, table.size());
+        table.add(key);
+        return table.size() - 1;
+    }
+
+    private static int quantize(float value) {
+        return Math.round(value * SCALE);
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static void writeStrings(OutputStream out, List<String> strings) throws IOException {
+        writeVarint(out, strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
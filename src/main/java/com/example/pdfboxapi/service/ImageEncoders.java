@@ -0,0 +1,165 @@
+package com.example.pdfboxapi.service;
+
+import com.example.pdfboxapi.model.request.ImageEncoding;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Encodes rendered images with reusable writers and format-specific settings
+ *
+ * ImageIO.write looks up a writer through the service registry on every call,
+ * creates a new writer, and caches the output in a temporary file by default.
+ * This component keeps idle writers per format for reuse, writes through an
+ * in-memory output stream, and applies PNG deflate level and JPEG quality and
+ * progressive settings. PNGs with a fixed row filter go through
+ * {@link PngEncoder}, the fast path for throughput.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Component
+public class ImageEncoders {
+
+    private static final int MAX_IDLE_WRITERS = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final ConcurrentMap<String, Queue<ImageWriter>> idleWriters = new ConcurrentHashMap<>();
+
+    /**
+     * Checks that a format can be written with the given settings
+     *
+     * @param imageFormat Image format name, e.g. PNG
+     * @param encoding Encoder settings
+     * @throws IllegalArgumentException If the format or a setting is not supported
+     */
+    public void validate(String imageFormat, ImageEncoding encoding) {
+        if (!ImageIO.getImageWritersByFormatName(imageFormat).hasNext()) {
+            throw new IllegalArgumentException("Unsupported image format: " + imageFormat);
+        }
+        Integer level = encoding.getPngCompression();
+        if (level != null && (level < 0 || level > 9)) {
+            throw new IllegalArgumentException("PNG compression must be between 0 and 9");
+        }
+        Float quality = encoding.getJpegQuality();
+        if (quality != null && (quality < 0 || quality > 1)) {
+            throw new IllegalArgumentException("JPEG quality must be between 0.0 and 1.0");
+        }
+    }
+
+    /**
+     * Describes the settings that affect the encoded bytes of a format
+     *
+     * @param imageFormat Image format name, e.g. PNG
+     * @param encoding Encoder settings
+     * @return A short description, e.g. png-6-adaptive, usable in cache keys
+     */
+    public String variant(String imageFormat, ImageEncoding encoding) {
+        String format = normalize(imageFormat);
+        if (isPng(format)) {
+            return format + "-" + (encoding.getPngCompression() != null ? encoding.getPngCompression() : "d")
+                    + "-" + encoding.getPngFilter().name().toLowerCase(Locale.ROOT);
+        }
+        if (isJpeg(format)) {
+            return format + "-" + (encoding.getJpegQuality() != null ? encoding.getJpegQuality() : "d")
+                    + (encoding.isJpegProgressive() ? "-progressive" : "");
+        }
+        return format;
+    }
+
+    /**
+     * Encodes an image
+     *
+     * @param image The image to encode
+     * @param imageFormat Image format name, e.g. PNG
+     * @param encoding Encoder settings
+     * @param out Destination, left open
+     * @throws IOException If the image cannot be encoded or written
+     */
+    public void encode(BufferedImage image, String imageFormat, ImageEncoding encoding, OutputStream out)
+            throws IOException {
+        String format = normalize(imageFormat);
+        if (isPng(format) && encoding.getPngFilter() != ImageEncoding.PngFilter.ADAPTIVE) {
+            int level = encoding.getPngCompression() != null ? encoding.getPngCompression() : 1;
+            PngEncoder.write(image, encoding.getPngFilter(), level, out);
+            return;
+        }
+
+        ImageWriter writer = borrow(format);
+        boolean reusable = false;
+        try (ImageOutputStream ios = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), writeParam(writer, format, encoding));
+            reusable = true;
+        } finally {
+            giveBack(format, writer, reusable);
+        }
+    }
+
+    private ImageWriteParam writeParam(ImageWriter writer, String format, ImageEncoding encoding) {
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (isPng(format) && encoding.getPngCompression() != null) {
+            // The JDK PNG writer maps quality q to deflate level 9 * (1 - q)
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(1f - encoding.getPngCompression() / 9f);
+        } else if (isJpeg(format)) {
+            if (encoding.getJpegQuality() != null) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(encoding.getJpegQuality());
+            }
+            param.setProgressiveMode(encoding.isJpegProgressive()
+                    ? ImageWriteParam.MODE_DEFAULT
+                    : ImageWriteParam.MODE_DISABLED);
+        }
+        return param;
+    }
+
+    private ImageWriter borrow(String format) {
+        ImageWriter writer = idleWriters.computeIfAbsent(format, f -> new ConcurrentLinkedQueue<>()).poll();
+        if (writer != null) {
+            return writer;
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IllegalArgumentException("Unsupported image format: " + format);
+        }
+        return writers.next();
+    }
+
+    private void giveBack(String format, ImageWriter writer, boolean reusable) {
+        Queue<ImageWriter> idle = idleWriters.get(format);
+        // A writer that failed mid-image may hold partial state, so it is discarded
+        if (reusable && idle.size() < MAX_IDLE_WRITERS) {
+            writer.reset();
+            idle.offer(writer);
+        } else {
+            writer.dispose();
+        }
+    }
+
+    private static String normalize(String imageFormat) {
+        String format = imageFormat.toLowerCase(Locale.ROOT);
+        return format.equals("jpg") ? "jpeg" : format;
+    }
+
+    private static boolean isPng(String format) {
+        return format.equals("png");
+    }
+
+    private static boolean isJpeg(String format) {
+        return format.equals("jpeg");
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.pdfboxapi.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An asynchronous operation and its persisted state
+ *
+ * Serialized as job.json in the job's directory of the {@link JobStore}, so
+ * queued jobs and finished results survive a restart.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Data
+public class Job {
+
+    /**
+     * Operations that can run as jobs
+     */
+    public enum Type {
+        MERGE, RENDER, SPLIT, VALIDATE
+    }
+
+    /**
+     * Lifecycle of a job
+     */
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    /**
+     * An input file copied into the job directory
+     */
+    @Data
+    public static class Input {
+        private String filename;
+        private long size;
+        private String sha256;
+    }
+
+    private String id;
+    private Type type;
+    private volatile Status status;
+
+    /**
+     * Operation options, e.g. dpi or pageRanges
+     */
+    private Map<String, String> params = new LinkedHashMap<>();
+    private List<Input> inputs = new ArrayList<>();
+
+    /**
+     * Parts (pages or split documents) written so far
+     */
+    private volatile int done;
+
+    /**
+     * Parts the job will write; 1 for merges and validations
+     */
+    private volatile int total;
+
+    private String error;
+    private String resultFilename;
+    private String resultContentType;
+
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+
+    /**
+     * Time after which a finished job and its result are removed
+     */
+    private Instant expiresAt;
+
+    /**
+     * @return true once the job has succeeded or failed
+     */
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+}
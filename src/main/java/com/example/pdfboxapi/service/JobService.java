@@ -0,0 +1,460 @@
+package com.example.pdfboxapi.service;
+
+import com.example.pdfboxapi.model.request.PdfMergeRequest;
+import com.example.pdfboxapi.model.request.PdfSplitRequest;
+import com.example.pdfboxapi.model.request.PdfToImageRequest;
+import com.example.pdfboxapi.model.request.PdfValidationRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Service running long operations as asynchronous jobs
+ *
+ * A job copies its inputs into the {@link JobStore} at submission and runs on a
+ * small worker pool. Results are streamed to disk and kept until the job
+ * expires. Jobs that were queued or running when the application stopped are
+ * queued again on startup. A job rejected by admission control or a full
+ * bulkhead is retried later instead of failing.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Service
+@Slf4j
+public class JobService {
+
+    private static final long BULKHEAD_RETRY_SECONDS = 1;
+
+    private final JobStore jobStore;
+    private final PdfMergeService pdfMergeService;
+    private final PdfToImageService pdfToImageService;
+    private final PdfSplitService pdfSplitService;
+    private final PdfValidationService pdfValidationService;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final ScheduledExecutorService workers;
+    private final ConcurrentMap<String, Job> jobs = new ConcurrentHashMap<>();
+    private volatile boolean shuttingDown;
+
+    /**
+     * Creates the job service
+     *
+     * @param workers Number of jobs run at the same time
+     * @param ttl Time a finished job and its result are kept
+     */
+    public JobService(
+            JobStore jobStore,
+            PdfMergeService pdfMergeService,
+            PdfToImageService pdfToImageService,
+            PdfSplitService pdfSplitService,
+            PdfValidationService pdfValidationService,
+            ObjectMapper objectMapper,
+            @Value("${app.jobs.workers:2}") int workers,
+            @Value("${app.jobs.ttl:1h}") Duration ttl) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("app.jobs.workers must be at least 1");
+        }
+        this.jobStore = jobStore;
+        this.pdfMergeService = pdfMergeService;
+        this.pdfToImageService = pdfToImageService;
+        this.pdfSplitService = pdfSplitService;
+        this.pdfValidationService = pdfValidationService;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newScheduledThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "pdf-job-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reloads persisted jobs, queueing again those that had not finished
+     *
+     * @throws IOException If the job directory cannot be read
+     */
+    @PostConstruct
+    public void recover() throws IOException {
+        int requeued = 0;
+        for (Job job : jobStore.loadAll()) {
+            if (job.isFinished()) {
+                jobs.put(job.getId(), job);
+                continue;
+            }
+            job.setStatus(Job.Status.QUEUED);
+            job.setDone(0);
+            jobStore.save(job);
+            jobs.put(job.getId(), job);
+            schedule(job.getId(), 0);
+            requeued++;
+        }
+        evictExpired();
+        if (!jobs.isEmpty()) {
+            log.info("Recovered {} jobs, {} queued again", jobs.size(), requeued);
+        }
+    }
+
+    /**
+     * Submits a merge of several PDFs
+     *
+     * @param pdfFiles The PDFs to merge, in order
+     * @return The queued job
+     * @throws IOException If the inputs cannot be stored
+     */
+    public Job submitMerge(MultipartFile[] pdfFiles) throws IOException {
+        if (pdfFiles == null || pdfFiles.length < 2) {
+            throw new IllegalArgumentException("At least two PDF files are required for merging");
+        }
+        return submit(Job.Type.MERGE, Map.of(), pdfFiles);
+    }
+
+    /**
+     * Submits the conversion of all pages of a PDF to images
+     *
+     * @param pdfFile The PDF to render
+     * @param imageFormat Image format, e.g. PNG
+     * @param dpi Resolution of the images
+     * @param parallelism Pages rendered concurrently, may be null
+     * @return The queued job
+     * @throws IOException If the input cannot be stored
+     */
+    public Job submitRender(MultipartFile pdfFile, String imageFormat, int dpi, Integer parallelism)
+            throws IOException {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("imageFormat", imageFormat);
+        params.put("dpi", String.valueOf(dpi));
+        if (parallelism != null) {
+            params.put("parallelism", String.valueOf(parallelism));
+        }
+        return submit(Job.Type.RENDER, params, pdfFile);
+    }
+
+    /**
+     * Submits a split of a PDF
+     *
+     * @param pdfFile The PDF to split
+     * @param splitType How to split the document
+     * @param pageRanges Page ranges for BY_RANGE, may be null
+     * @param compact Whether to prune each part's resources to those its pages use
+     * @param maxPartSize Largest part size in bytes for BY_SIZE, may be null otherwise
+     * @return The queued job
+     * @throws IOException If the input cannot be stored
+     */
+    public Job submitSplit(MultipartFile pdfFile, PdfSplitRequest.SplitType splitType, String pageRanges,
+            boolean compact, Long maxPartSize) throws IOException {
+        if (splitType == PdfSplitRequest.SplitType.BY_SIZE && (maxPartSize == null || maxPartSize <= 0)) {
+            // Rejected now rather than failing once the job runs
+            throw new IllegalArgumentException("A positive maximum part size must be specified for BY_SIZE split type");
+        }
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("splitType", splitType.name());
+        if (pageRanges != null) {
+            params.put("pageRanges", pageRanges);
+        }
+        if (compact) {
+            params.put("compact", "true");
+        }
+        if (maxPartSize != null) {
+            params.put("maxPartSize", String.valueOf(maxPartSize));
+        }
+        return submit(Job.Type.SPLIT, params, pdfFile);
+    }
+
+    /**
+     * Submits the validation of a PDF
+     *
+     * @param pdfFile The PDF to validate
+     * @param profile Validation profile
+     * @return The queued job
+     * @throws IOException If the input cannot be stored
+     */
+    public Job submitValidation(MultipartFile pdfFile, String profile) throws IOException {
+        return submit(Job.Type.VALIDATE, Map.of("profile", profile), pdfFile);
+    }
+
+    /**
+     * Looks up a job
+     *
+     * @param id Id of the job
+     * @return The job
+     * @throws IllegalArgumentException If no such job exists or it has expired
+     */
+    public Job get(String id) {
+        Job job = id != null ? jobs.get(id) : null;
+        if (job == null || isExpired(job, Instant.now())) {
+            throw new IllegalArgumentException("Unknown or expired job: " + id);
+        }
+        return job;
+    }
+
+    /**
+     * Returns the result file of a job
+     *
+     * @param id Id of the job
+     * @return Location of the result
+     * @throws IllegalArgumentException If no such job exists or it has expired
+     * @throws IllegalStateException If the job has not succeeded
+     */
+    public Path getResult(String id) {
+        Job job = get(id);
+        if (job.getStatus() != Job.Status.SUCCEEDED) {
+            throw new IllegalStateException("Job " + id + " has no result, status is " + job.getStatus());
+        }
+        return jobStore.getResultPath(job);
+    }
+
+    /**
+     * Deletes a queued or finished job with its inputs and result
+     *
+     * @param id Id of the job
+     * @return true if the job existed
+     * @throws IllegalStateException If the job is running
+     * @throws IOException If the job files cannot be deleted
+     */
+    public boolean delete(String id) throws IOException {
+        Job job = jobs.get(id);
+        if (job == null) {
+            return false;
+        }
+        synchronized (job) {
+            if (job.getStatus() == Job.Status.RUNNING) {
+                throw new IllegalStateException("Job " + id + " is running");
+            }
+            jobs.remove(id);
+        }
+        jobStore.delete(id);
+        return true;
+    }
+
+    /**
+     * Removes expired jobs
+     */
+    @Scheduled(fixedDelayString = "${app.jobs.sweep-interval:60s}")
+    public void evictExpired() {
+        Instant now = Instant.now();
+        List<String> expired = new ArrayList<>();
+        jobs.forEach((id, job) -> {
+            if (isExpired(job, now)) {
+                expired.add(id);
+            }
+        });
+        for (String id : expired) {
+            try {
+                delete(id);
+                log.debug("Expired job {}", id);
+            } catch (IOException e) {
+                log.warn("Could not delete expired job {}", id, e);
+            }
+        }
+    }
+
+    /**
+     * Stops the workers; unfinished jobs stay queued on disk for the next start
+     */
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        workers.shutdownNow();
+    }
+
+    private Job submit(Job.Type type, Map<String, String> params, MultipartFile... pdfFiles) throws IOException {
+        Job job = new Job();
+        job.setId(UUID.randomUUID().toString());
+        job.setType(type);
+        job.setStatus(Job.Status.QUEUED);
+        job.getParams().putAll(params);
+        job.setCreatedAt(Instant.now());
+
+        jobStore.create(job);
+        try {
+            for (MultipartFile pdfFile : pdfFiles) {
+                jobStore.addInput(job, pdfFile);
+            }
+            jobStore.save(job);
+        } catch (IOException | RuntimeException e) {
+            jobStore.delete(job.getId());
+            throw e;
+        }
+
+        jobs.put(job.getId(), job);
+        schedule(job.getId(), 0);
+        log.info("Queued {} job {}", type, job.getId());
+        return job;
+    }
+
+    private void schedule(String id, long delaySeconds) {
+        workers.schedule(() -> run(id), delaySeconds, TimeUnit.SECONDS);
+    }
+
+    private void run(String id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            return;
+        }
+        synchronized (job) {
+            if (job.getStatus() != Job.Status.QUEUED) {
+                return;
+            }
+            job.setStatus(Job.Status.RUNNING);
+        }
+        job.setStartedAt(Instant.now());
+        job.setDone(0);
+
+        try {
+            jobStore.save(job);
+            execute(job);
+            jobStore.commitResult(job);
+            job.setDone(job.getTotal());
+            finish(job, Job.Status.SUCCEEDED, null);
+        } catch (AdmissionRejectedException e) {
+            requeue(job, e.getRetryAfterSeconds());
+        } catch (BulkheadFullException e) {
+            requeue(job, BULKHEAD_RETRY_SECONDS);
+        } catch (Exception e) {
+            if (shuttingDown) {
+                requeue(job, 0);
+                return;
+            }
+            log.warn("Job {} failed", id, e);
+            finish(job, Job.Status.FAILED, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    private void execute(Job job) throws IOException {
+        Path partial = jobStore.getPartialResultPath(job);
+        Map<String, String> params = job.getParams();
+
+        switch (job.getType()) {
+            case MERGE -> {
+                PdfMergeRequest request = new PdfMergeRequest();
+                MultipartFile[] pdfFiles = new MultipartFile[job.getInputs().size()];
+                for (int i = 0; i < pdfFiles.length; i++) {
+                    pdfFiles[i] = jobStore.getInput(job, i);
+                }
+                request.setPdfFiles(pdfFiles);
+                job.setTotal(1);
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+                    pdfMergeService.mergePdfs(request, out);
+                }
+                job.setResultFilename("merged.pdf");
+                job.setResultContentType("application/pdf");
+            }
+            case RENDER -> {
+                PdfToImageRequest request = new PdfToImageRequest();
+                request.setPdfFile(jobStore.getInput(job, 0));
+                request.setImageFormat(params.get("imageFormat"));
+                request.setDpi(Integer.parseInt(params.get("dpi")));
+                if (params.containsKey("parallelism")) {
+                    request.setParallelism(Integer.valueOf(params.get("parallelism")));
+                }
+                String entryNameFormat = "page_%03d." + request.getImageFormat().toLowerCase();
+                try (PartProducer parts = pdfToImageService.prepareConversion(request)) {
+                    writeZip(job, parts, partial, entryNameFormat);
+                }
+                job.setResultFilename("pdf_images.zip");
+                job.setResultContentType("application/zip");
+            }
+            case SPLIT -> {
+                PdfSplitRequest request = new PdfSplitRequest();
+                request.setPdfFile(jobStore.getInput(job, 0));
+                request.setSplitType(PdfSplitRequest.SplitType.valueOf(params.get("splitType")));
+                request.setPageRanges(params.get("pageRanges"));
+                request.setCompact(Boolean.parseBoolean(params.get("compact")));
+                if (params.containsKey("maxPartSize")) {
+                    request.setMaxPartSize(Long.valueOf(params.get("maxPartSize")));
+                }
+                try (PartProducer parts = pdfSplitService.prepareSplit(request)) {
+                    writeZip(job, parts, partial, "split_%03d.pdf");
+                }
+                job.setResultFilename("split_pdfs.zip");
+                job.setResultContentType("application/zip");
+            }
+            case VALIDATE -> {
+                PdfValidationRequest request = new PdfValidationRequest();
+                request.setPdfFile(jobStore.getInput(job, 0));
+                request.setProfile(params.get("profile"));
+                job.setTotal(1);
+                List<String> errors = pdfValidationService.validatePdf(request);
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("valid", errors.isEmpty());
+                result.put("errors", errors);
+                objectMapper.writeValue(partial.toFile(), result);
+                job.setResultFilename("validation.json");
+                job.setResultContentType("application/json");
+            }
+        }
+    }
+
+    private static void writeZip(Job job, PartProducer parts, Path target, String entryNameFormat)
+            throws IOException {
+        job.setTotal(parts.getPartCount());
+        try (ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(target)))) {
+            ZipPartOutput zip = new ZipPartOutput(zos, entryNameFormat);
+            // Parts are written in order, so starting part n means n parts are done
+            parts.writeTo(index -> {
+                job.setDone(index);
+                return zip.nextPart(index);
+            });
+        }
+    }
+
+    private void requeue(Job job, long delaySeconds) {
+        log.debug("Job {} deferred for {}s", job.getId(), delaySeconds);
+        job.setStatus(Job.Status.QUEUED);
+        job.setStartedAt(null);
+        job.setDone(0);
+        save(job);
+        if (!shuttingDown) {
+            schedule(job.getId(), delaySeconds);
+        }
+    }
+
+    private void finish(Job job, Job.Status status, String error) {
+        job.setError(error);
+        job.setFinishedAt(Instant.now());
+        job.setExpiresAt(job.getFinishedAt().plus(ttl));
+        job.setStatus(status);
+        save(job);
+        log.info("Job {} {}", job.getId(), status);
+    }
+
+    private void save(Job job) {
+        try {
+            jobStore.save(job);
+        } catch (IOException e) {
+            log.warn("Could not persist job {}", job.getId(), e);
+        }
+    }
+
+    private static boolean isExpired(Job job, Instant now) {
+        return job.getExpiresAt() != null && job.getExpiresAt().isBefore(now);
+    }
+}
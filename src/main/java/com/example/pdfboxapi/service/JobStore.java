@@ -0,0 +1,186 @@
+package com.example.pdfboxapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service persisting jobs, their inputs and their results on local disk
+ *
+ * Each job has its own directory holding job.json, the input files copied at
+ * submission and, once finished, the result. job.json is replaced atomically
+ * so a crash never leaves a half-written job behind.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Service
+@Slf4j
+public class JobStore {
+
+    private static final String JOB_FILE = "job.json";
+    private static final String RESULT_FILE = "result";
+
+    private final Path jobsDir;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Creates the job store
+     *
+     * @param jobsDir Directory holding one subdirectory per job
+     * @param objectMapper Mapper used to read and write job.json
+     */
+    public JobStore(@Value("${app.jobs.dir:temp-files/jobs}") String jobsDir, ObjectMapper objectMapper) {
+        this.jobsDir = Paths.get(jobsDir).toAbsolutePath();
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Creates the directory of a new job
+     *
+     * @param job The job, with its id set
+     * @throws IOException If the directory cannot be created
+     */
+    public void create(Job job) throws IOException {
+        Files.createDirectories(jobDir(job.getId()));
+    }
+
+    /**
+     * Copies an input file into the job directory and records it on the job
+     *
+     * @param job The job
+     * @param multipartFile The uploaded or stored file
+     * @throws IOException If the file cannot be copied
+     */
+    public void addInput(Job job, MultipartFile multipartFile) throws IOException {
+        if (multipartFile == null || multipartFile.isEmpty()) {
+            throw new IllegalArgumentException("PDF file is required");
+        }
+        Path target = inputPath(job, job.getInputs().size());
+        multipartFile.transferTo(target.toFile());
+
+        Job.Input input = new Job.Input();
+        input.setFilename(multipartFile.getOriginalFilename());
+        input.setSize(Files.size(target));
+        try (InputStream in = Files.newInputStream(target)) {
+            input.setSha256(DocumentSource.sha256(in));
+        }
+        job.getInputs().add(input);
+    }
+
+    /**
+     * Returns an input file in a form the services accept
+     *
+     * @param job The job
+     * @param index Index of the input
+     * @return The input as a stored document, read in place
+     */
+    public StoredDocument getInput(Job job, int index) {
+        Job.Input input = job.getInputs().get(index);
+        return new StoredDocument(job.getId() + "-" + index, inputPath(job, index), input.getFilename(),
+                input.getSize(), input.getSha256(), null);
+    }
+
+    /**
+     * Writes job.json, replacing the previous version atomically
+     *
+     * @param job The job
+     * @throws IOException If the file cannot be written
+     */
+    public void save(Job job) throws IOException {
+        Path dir = jobDir(job.getId());
+        Path temp = Files.createTempFile(dir, "job-", ".tmp");
+        try {
+            objectMapper.writeValue(temp.toFile(), job);
+            Files.move(temp, dir.resolve(JOB_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Reads all persisted jobs
+     *
+     * Directories without a readable job.json, e.g. from a crash during
+     * submission, are removed.
+     *
+     * @return The persisted jobs
+     * @throws IOException If the jobs directory cannot be read
+     */
+    public List<Job> loadAll() throws IOException {
+        Files.createDirectories(jobsDir);
+        List<Job> jobs = new ArrayList<>();
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(jobsDir, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                try {
+                    jobs.add(objectMapper.readValue(dir.resolve(JOB_FILE).toFile(), Job.class));
+                } catch (IOException e) {
+                    log.warn("Removing unreadable job directory {}", dir, e);
+                    FileSystemUtils.deleteRecursively(dir);
+                }
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * @param job The job
+     * @return Location of the finished result
+     */
+    public Path getResultPath(Job job) {
+        return jobDir(job.getId()).resolve(RESULT_FILE);
+    }
+
+    /**
+     * Returns the file a running job writes its result to
+     *
+     * @param job The job
+     * @return Location of the partial result, moved into place by {@link #commitResult}
+     */
+    public Path getPartialResultPath(Job job) {
+        return jobDir(job.getId()).resolve(RESULT_FILE + ".part");
+    }
+
+    /**
+     * Moves a completed partial result into place
+     *
+     * @param job The job
+     * @throws IOException If the result cannot be moved
+     */
+    public void commitResult(Job job) throws IOException {
+        Files.move(getPartialResultPath(job), getResultPath(job), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deletes a job with its inputs and result
+     *
+     * @param id Id of the job
+     * @throws IOException If the directory cannot be deleted
+     */
+    public void delete(String id) throws IOException {
+        FileSystemUtils.deleteRecursively(jobDir(id));
+    }
+
+    private Path jobDir(String id) {
+        return jobsDir.resolve(id);
+    }
+
+    private Path inputPath(Job job, int index) {
+        return jobDir(job.getId()).resolve("input-" + index + ".pdf");
+    }
+}
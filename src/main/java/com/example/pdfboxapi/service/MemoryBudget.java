@@ -0,0 +1,343 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccess;
+import org.apache.pdfbox.io.RandomAccessReadView;
+import org.apache.pdfbox.io.RandomAccessReadWriteBuffer;
+import org.apache.pdfbox.io.RandomAccessStreamCache;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
+import org.apache.pdfbox.io.ScratchFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Component that bounds the heap PDFBox uses for buffering PDF streams
+ *
+ * Every document created or loaded by the services gets a stream cache from
+ * {@link #streamCache()}. Its buffers start in main memory and take heap from a
+ * global budget shared by all in-flight requests as they grow, in steps of
+ * {@value #RESERVATION_STEP} bytes, up to the per-request cap for the document.
+ * A buffer that cannot grow within its document's cap or the global budget
+ * moves its content to a scratch file and continues there. Heap is returned
+ * to the budget when a buffer is cleared or closed, and when the document is
+ * closed, so the budget tracks what open documents actually buffer.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Component
+@Slf4j
+public class MemoryBudget {
+
+    /**
+     * Heap taken from the budget at a time by a growing buffer
+     */
+    static final int RESERVATION_STEP = 64 * 1024;
+
+    private final long perRequestBytes;
+    private final long globalBytes;
+    private final Path scratchDir;
+
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final AtomicInteger activeCaches = new AtomicInteger();
+
+    /**
+     * Creates the memory budget and registers its metrics
+     *
+     * @param perRequest Heap cap for the stream cache of a single document
+     * @param global Heap budget shared by all open stream caches
+     * @param uploadDir Directory used for scratch files
+     * @param meterRegistry Registry for the budget metrics
+     */
+    public MemoryBudget(
+            @Value("${app.memory.per-request:64MB}") DataSize perRequest,
+            @Value("${app.memory.global:512MB}") DataSize global,
+            @Value("${app.upload.dir:temp-files}") String uploadDir,
+            MeterRegistry meterRegistry) {
+        this.perRequestBytes = perRequest.toBytes();
+        this.globalBytes = global.toBytes();
+        this.scratchDir = Paths.get(uploadDir).toAbsolutePath();
+
+        Gauge.builder("pdfbox.memory.budget", () -> globalBytes)
+                .description("Heap budget shared by all PDFBox stream caches")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("pdfbox.memory.reserved", reservedBytes, AtomicLong::get)
+                .description("Heap currently taken from the budget by in-memory PDFBox stream buffers")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("pdfbox.memory.caches.active", activeCaches, AtomicInteger::get)
+                .description("Number of open PDFBox stream caches")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the stream cache function to pass to Loader, PDDocument and the
+     * PDFBox utilities
+     *
+     * @return A function creating budgeted stream caches
+     */
+    public StreamCacheCreateFunction streamCache() {
+        return this::createStreamCache;
+    }
+
+    /**
+     * @return Heap currently taken by in-memory stream buffers in bytes
+     */
+    public long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    /**
+     * @return Heap still available in the global budget in bytes
+     */
+    public long getAvailableBytes() {
+        return globalBytes - reservedBytes.get();
+    }
+
+    /**
+     * Creates a stream cache drawing on the budget as its buffers grow
+     *
+     * @return A stream cache that returns its heap when closed
+     * @throws IOException If the scratch directory cannot be created
+     */
+    private RandomAccessStreamCache createStreamCache() throws IOException {
+        Files.createDirectories(scratchDir);
+        activeCaches.incrementAndGet();
+        return new BudgetedStreamCache();
+    }
+
+    /**
+     * Takes bytes from the global budget, all or nothing
+     *
+     * @param wanted Number of bytes wanted
+     * @return Whether the bytes were granted
+     */
+    private boolean reserve(long wanted) {
+        while (true) {
+            long current = reservedBytes.get();
+            if (current + wanted > globalBytes) {
+                return false;
+            }
+            if (reservedBytes.compareAndSet(current, current + wanted)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(long granted) {
+        if (granted > 0) {
+            reservedBytes.addAndGet(-granted);
+        }
+    }
+
+    /**
+     * Stream cache whose buffers draw on the budget up to the per-request cap,
+     * giving the heap back when the cache is closed
+     */
+    private class BudgetedStreamCache implements RandomAccessStreamCache {
+        private long reserved;
+        private ScratchFile scratchFile;
+        private boolean closed;
+
+        @Override
+        public RandomAccess createBuffer() throws IOException {
+            synchronized (this) {
+                if (closed) {
+                    throw new IOException("Stream cache already closed");
+                }
+            }
+            return new BudgetedBuffer(this);
+        }
+
+        synchronized boolean grow(long bytes) {
+            if (closed || reserved + bytes > perRequestBytes || !reserve(bytes)) {
+                return false;
+            }
+            reserved += bytes;
+            return true;
+        }
+
+        synchronized void shrink(long bytes) {
+            // After close, the whole reservation has been released already
+            if (!closed) {
+                reserved -= bytes;
+                release(bytes);
+            }
+        }
+
+        /**
+         * Creates a buffer backed by a scratch file, for content that no longer fits in the heap
+         */
+        synchronized RandomAccess createScratchBuffer() throws IOException {
+            if (closed) {
+                throw new IOException("Stream cache already closed");
+            }
+            if (scratchFile == null) {
+                MemoryUsageSetting setting = MemoryUsageSetting.setupTempFileOnly();
+                setting.setTempDir(scratchDir.toFile());
+                scratchFile = new ScratchFile(setting);
+            }
+            return scratchFile.createBuffer();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (scratchFile != null) {
+                    scratchFile.close();
+                }
+            } finally {
+                release(reserved);
+                reserved = 0;
+                activeCaches.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Buffer held in memory while the budget allows, then moved to a scratch file
+     */
+    private static class BudgetedBuffer implements RandomAccess {
+        private final BudgetedStreamCache cache;
+        private RandomAccess delegate = new RandomAccessReadWriteBuffer();
+        private boolean inMemory = true;
+        private long reserved;
+        private boolean closed;
+
+        BudgetedBuffer(BudgetedStreamCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureCapacity(delegate.getPosition() + 1);
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b) throws IOException {
+            write(b, 0, b.length);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ensureCapacity(delegate.getPosition() + len);
+            delegate.write(b, off, len);
+        }
+
+        private void ensureCapacity(long end) throws IOException {
+            if (!inMemory || end <= reserved) {
+                return;
+            }
+            long wanted = (end - reserved + RESERVATION_STEP - 1) / RESERVATION_STEP * RESERVATION_STEP;
+            if (cache.grow(wanted)) {
+                reserved += wanted;
+            } else {
+                spill();
+            }
+        }
+
+        private void spill() throws IOException {
+            log.debug("Memory budget used up, moving a {} byte stream buffer to a scratch file", delegate.length());
+            RandomAccess scratch = cache.createScratchBuffer();
+            try {
+                long position = delegate.getPosition();
+                delegate.seek(0);
+                byte[] chunk = new byte[8192];
+                int read;
+                while ((read = delegate.read(chunk, 0, chunk.length)) > 0) {
+                    scratch.write(chunk, 0, read);
+                }
+                scratch.seek(position);
+            } catch (IOException | RuntimeException e) {
+                scratch.close();
+                throw e;
+            }
+            delegate.close();
+            delegate = scratch;
+            inMemory = false;
+            releaseReserved();
+        }
+
+        private void releaseReserved() {
+            cache.shrink(reserved);
+            reserved = 0;
+        }
+
+        @Override
+        public void clear() throws IOException {
+            delegate.clear();
+            releaseReserved();
+        }
+
+        @Override
+        public int read() throws IOException {
+            return delegate.read();
+        }
+
+        @Override
+        public int read(byte[] b, int offset, int length) throws IOException {
+            return delegate.read(b, offset, length);
+        }
+
+        @Override
+        public long getPosition() throws IOException {
+            return delegate.getPosition();
+        }
+
+        @Override
+        public void seek(long position) throws IOException {
+            delegate.seek(position);
+        }
+
+        @Override
+        public long length() throws IOException {
+            return delegate.length();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public boolean isEOF() throws IOException {
+            return delegate.isEOF();
+        }
+
+        @Override
+        public RandomAccessReadView createView(long startPosition, long streamLength) throws IOException {
+            // Views read through this buffer, so they keep working after it moves to a scratch file
+            return new RandomAccessReadView(this, startPosition, streamLength);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                delegate.close();
+            } finally {
+                releaseReserved();
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.pdfboxapi.service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * PartOutput writing each part as a body part of a multipart/mixed stream
+ *
+ * Unlike a ZIP, every part is a self-contained body part with its own headers,
+ * so a client can parse and display each part as soon as its closing boundary
+ * arrives. Each part is flushed to the client when it is closed.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+public class MultipartPartOutput implements PartOutput {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final OutputStream out;
+    private final String boundary;
+    private final String contentType;
+    private final String filenameFormat;
+
+    /**
+     * Creates a multipart part output
+     *
+     * @param out The response stream; left open by {@link #finish()}
+     * @param boundary Boundary separating the parts, e.g. from {@link #newBoundary()}
+     * @param contentType Content type of every part
+     * @param filenameFormat Format of the part file names, given the 1-based part number (e.g. "page_%03d.png")
+     */
+    public MultipartPartOutput(OutputStream out, String boundary, String contentType, String filenameFormat) {
+        this.out = out;
+        this.boundary = boundary;
+        this.contentType = contentType;
+        this.filenameFormat = filenameFormat;
+    }
+
+    /**
+     * @return A random boundary that cannot occur in binary part content by chance
+     */
+    public static String newBoundary() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    /**
+     * @param boundary Boundary separating the parts
+     * @return The Content-Type of the whole stream, including the boundary
+     */
+    public static String mediaType(String boundary) {
+        return "multipart/mixed; boundary=" + boundary;
+    }
+
+    @Override
+    public OutputStream nextPart(int index) throws IOException {
+        String headers = "--" + boundary + "\r\n"
+                + "Content-Type: " + contentType + "\r\n"
+                + "Content-Disposition: attachment; filename=\"" + String.format(filenameFormat, index + 1) + "\"\r\n"
+                + "\r\n";
+        out.write(headers.getBytes(StandardCharsets.US_ASCII));
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                // The CRLF belongs to the next delimiter; flushing it completes the part for the client
+                out.write(CRLF);
+                out.flush();
+            }
+        };
+    }
+
+    /**
+     * Writes the closing delimiter after the last part
+     *
+     * @throws IOException If the delimiter cannot be written
+     */
+    public void finish() throws IOException {
+        out.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+}
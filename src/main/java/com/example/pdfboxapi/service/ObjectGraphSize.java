@@ -0,0 +1,168 @@
+package com.example.pdfboxapi.service;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSBoolean;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNull;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Running estimate of the saved size of a growing set of pages
+ *
+ * Pages are added one at a time and each addition returns only the bytes its
+ * object graph adds to what is already counted, so a font or image shared by
+ * several pages is counted once. Streams count with their encoded length,
+ * which PDFBox writes unchanged, and other objects with the length of their
+ * uncompressed syntax, so the estimate errs on the high side when objects
+ * are packed into compressed object streams. Nothing is decoded or saved.
+ *
+ * The walk stops at other pages, and skips the entries of annotations that
+ * {@link PartCompactor} drops or points at copies: owner pages, parents,
+ * pop-ups, replies and the follow-up of GoTo actions. Entries of the same
+ * name deeper in the graph, such as the dash pattern of a graphics state,
+ * are counted.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+final class ObjectGraphSize {
+
+    /**
+     * Catalog, page tree, cross-reference data and trailer of a document
+     */
+    static final long DOCUMENT_OVERHEAD = 1024;
+
+    // Object header, "endobj" and a cross-reference entry
+    private static final long INDIRECT_OVERHEAD = 40;
+    // "stream", "endstream" and line ends
+    private static final long STREAM_OVERHEAD = 20;
+
+    // Entries of an annotation leading back into the source document
+    private static final Set<COSName> ANNOTATION_REFERENCES = Set.of(COSName.P, COSName.PARENT, COSName.POPUP,
+            COSName.getPDFName("IRT"));
+    // Entries of a GoTo action that a compact part drops
+    private static final Set<COSName> GOTO_REFERENCES = Set.of(COSName.NEXT);
+
+    private final Set<COSBase> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long size = DOCUMENT_OVERHEAD;
+
+    /**
+     * Counts a page's objects not counted yet
+     *
+     * @param page Dictionary of the page as it will be saved
+     * @param annotations Annotations of the page, or null
+     * @return Bytes the page adds to the estimate
+     */
+    long addPage(COSDictionary page, COSBase annotations) {
+        long before = size;
+        size += INDIRECT_OVERHEAD + measure(page, true, Set.of());
+        if (annotations != null) {
+            size += measureAnnotations(annotations);
+        }
+        return size - before;
+    }
+
+    /**
+     * @return Estimated size in bytes of a document holding the pages added so far
+     */
+    long getSize() {
+        return size;
+    }
+
+    private long measureAnnotations(COSBase annotations) {
+        COSBase resolved = annotations instanceof COSObject object ? object.getObject() : annotations;
+        if (!(resolved instanceof COSArray array)) {
+            return measure(annotations, false, Set.of());
+        }
+        // Compact parts write a new array into the page copy
+        long length = 2;
+        for (int i = 0; i < array.size(); i++) {
+            length += 1 + measure(array.get(i), false, ANNOTATION_REFERENCES);
+        }
+        return length;
+    }
+
+    /**
+     * @param skipped Entries left out of this dictionary, but not of the ones below it
+     */
+    private long measure(COSBase base, boolean isPage, Set<COSName> skipped) {
+        long indirect = 0;
+        if (base instanceof COSObject object) {
+            base = object.getObject();
+            indirect = INDIRECT_OVERHEAD;
+        }
+        if (base == null || base instanceof COSNull) {
+            return 4;
+        }
+        if (base instanceof COSDictionary || base instanceof COSArray) {
+            if (!counted.add(base)) {
+                // Written once and referenced again
+                return indirect > 0 ? 8 : 0;
+            }
+        }
+
+        if (base instanceof COSDictionary dictionary) {
+            if (!isPage && isPageNode(dictionary)) {
+                // Another page, reached through a reference the part does not keep
+                return 8;
+            }
+            long length = indirect + 4;
+            for (COSName key : dictionary.keySet()) {
+                if (skipped.contains(key)) {
+                    continue;
+                }
+                length += key.getName().length() + 2
+                        + measure(dictionary.getItem(key), false, nestedSkips(dictionary, key, skipped));
+            }
+            if (dictionary instanceof COSStream stream) {
+                length += stream.getLength() + STREAM_OVERHEAD;
+            }
+            return length;
+        }
+        if (base instanceof COSArray array) {
+            long length = indirect + 2;
+            for (int i = 0; i < array.size(); i++) {
+                length += 1 + measure(array.get(i), false, Set.of());
+            }
+            return length;
+        }
+        if (base instanceof COSName name) {
+            return indirect + name.getName().length() + 1;
+        }
+        if (base instanceof COSString string) {
+            // Hex or escaped literal; binary strings roughly double
+            return indirect + 2 + 2L * string.getBytes().length;
+        }
+        if (base instanceof COSInteger || base instanceof COSFloat) {
+            return indirect + 8;
+        }
+        if (base instanceof COSBoolean) {
+            return indirect + 5;
+        }
+        return indirect + 8;
+    }
+
+    private static Set<COSName> nestedSkips(COSDictionary dictionary, COSName key, Set<COSName> skipped) {
+        if (skipped == ANNOTATION_REFERENCES && COSName.A.equals(key)
+                && dictionary.getDictionaryObject(COSName.A) instanceof COSDictionary action
+                && "GoTo".equals(action.getNameAsString(COSName.S))) {
+            return GOTO_REFERENCES;
+        }
+        return Set.of();
+    }
+
+    private static boolean isPageNode(COSDictionary dictionary) {
+        COSName type = dictionary.getCOSName(COSName.TYPE);
+        return COSName.PAGE.equals(type) || COSName.PAGES.equals(type);
+    }
+}
@@ -0,0 +1,327 @@
+package com.example.pdfboxapi.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.contentstream.PDContentStream;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageTree;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds split parts that carry only what their own pages use
+ *
+ * Pages added to a new document as they are share the source's resource
+ * dictionaries, so a part saves every font and image of those dictionaries,
+ * including ones only other pages draw. Annotations pointing back to their
+ * source page, or links to other pages, pull further pages and their
+ * resources into the part.
+ *
+ * A compact part instead gets a shallow copy of each page whose resources
+ * keep only the names its content streams refer to, with inherited
+ * attributes made explicit. Annotations are copied too: references between
+ * annotations of the part are pointed at the copies, links into the part are
+ * pointed at the copied pages, and references leading anywhere else are
+ * dropped. The source document is not modified.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Slf4j
+final class PartCompactor {
+
+    private static final List<COSName> RESOURCE_TYPES = List.of(COSName.FONT, COSName.XOBJECT,
+            COSName.EXT_G_STATE, COSName.COLORSPACE, COSName.PATTERN, COSName.SHADING, COSName.PROPERTIES);
+
+    // Entries of an annotation that refer to another annotation
+    private static final List<COSName> ANNOTATION_REFERENCES = List.of(COSName.PARENT, COSName.POPUP,
+            COSName.getPDFName("IRT"));
+
+    private PartCompactor() {
+    }
+
+    /**
+     * Copies pages of a document into a new, compact document
+     *
+     * @param source The document to copy from
+     * @param startPage First page to copy, 1-based
+     * @param endPage Last page to copy, 1-based
+     * @param streamCache Stream cache of the new document
+     * @return New document containing the pages
+     * @throws IOException If the document cannot be created
+     */
+    static PDDocument compactPart(PDDocument source, int startPage, int endPage,
+            StreamCacheCreateFunction streamCache) throws IOException {
+        List<PDPage> copies = new ArrayList<>();
+        for (int i = startPage; i <= endPage; i++) {
+            copies.add(copyPage(source.getPage(i - 1)));
+        }
+        return compactPart(source, startPage, endPage, copies, streamCache);
+    }
+
+    /**
+     * Builds a compact document from pages already copied with {@link #copyPage(PDPage)}
+     *
+     * @param source The document the pages were copied from
+     * @param startPage First page to copy, 1-based
+     * @param endPage Last page to copy, 1-based
+     * @param copies Copies of the pages from startPage to endPage, each used for one part only
+     * @param streamCache Stream cache of the new document
+     * @return New document containing the copies
+     * @throws IOException If the document cannot be created
+     */
+    static PDDocument compactPart(PDDocument source, int startPage, int endPage, List<PDPage> copies,
+            StreamCacheCreateFunction streamCache) throws IOException {
+        PDDocument part = new PDDocument(streamCache);
+        try {
+            Map<COSDictionary, COSDictionary> pageCopies = new IdentityHashMap<>();
+            List<COSDictionary> sourcePages = new ArrayList<>();
+            for (int i = startPage; i <= endPage; i++) {
+                PDPage page = source.getPage(i - 1);
+                PDPage copy = copies.get(i - startPage);
+                part.addPage(copy);
+                pageCopies.put(page.getCOSObject(), copy.getCOSObject());
+                sourcePages.add(page.getCOSObject());
+            }
+            for (COSDictionary page : sourcePages) {
+                copyAnnotations(page, pageCopies.get(page), pageCopies);
+            }
+            return part;
+        } catch (RuntimeException e) {
+            part.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Copies a page with pruned resources and explicit inherited attributes,
+     * leaving out its annotations
+     *
+     * @param page The page to copy
+     * @return The copy, not yet part of any document
+     */
+    static PDPage copyPage(PDPage page) {
+        COSDictionary dictionary = new COSDictionary(page.getCOSObject());
+        // The parent is replaced when the page is added; article beads point at threads of the source
+        dictionary.removeItem(COSName.PARENT);
+        dictionary.removeItem(COSName.B);
+        dictionary.removeItem(COSName.ANNOTS);
+
+        PDPage copy = new PDPage(dictionary);
+        // Inheritable attributes would be lost with the source's page tree
+        copy.setMediaBox(page.getMediaBox());
+        COSBase cropBox = PDPageTree.getInheritableAttribute(page.getCOSObject(), COSName.CROP_BOX);
+        if (cropBox instanceof COSArray array) {
+            copy.setCropBox(new PDRectangle(array));
+        }
+        copy.setRotation(page.getRotation());
+
+        COSDictionary resources = page.getResources() != null ? page.getResources().getCOSObject() : null;
+        if (resources != null) {
+            dictionary.setItem(COSName.RESOURCES, pruneResources(page, resources));
+        }
+        return copy;
+    }
+
+    /**
+     * Builds a resource dictionary with only the resources a page's content uses
+     */
+    private static COSDictionary pruneResources(PDPage page, COSDictionary resources) {
+        Map<COSName, Set<COSName>> used = new HashMap<>();
+        try {
+            collectNames(page, resources, used, Collections.newSetFromMap(new IdentityHashMap<>()));
+        } catch (IOException e) {
+            // Keep everything rather than risk dropping a resource the page needs
+            log.debug("Could not parse page content, keeping all resources", e);
+            return resources;
+        }
+
+        COSDictionary pruned = new COSDictionary();
+        for (Map.Entry<COSName, COSBase> entry : resources.entrySet()) {
+            COSName type = entry.getKey();
+            if (!RESOURCE_TYPES.contains(type)) {
+                // ProcSet and anything unknown
+                pruned.setItem(type, entry.getValue());
+                continue;
+            }
+            COSDictionary all = resources.getCOSDictionary(type);
+            Set<COSName> names = used.get(type);
+            if (all == null || names == null) {
+                continue;
+            }
+            COSDictionary kept = new COSDictionary();
+            for (COSName name : names) {
+                COSBase resource = all.getItem(name);
+                if (resource != null) {
+                    kept.setItem(name, resource);
+                }
+            }
+            if (kept.size() > 0) {
+                pruned.setItem(type, kept);
+            }
+        }
+        return pruned;
+    }
+
+    /**
+     * Collects the resource names a content stream refers to, following form
+     * XObjects that draw with the same resources
+     */
+    private static void collectNames(PDContentStream content, COSDictionary resources,
+            Map<COSName, Set<COSName>> used, Set<COSBase> visited) throws IOException {
+        PDFStreamParser parser = new PDFStreamParser(content);
+        List<COSBase> operands = new ArrayList<>();
+        Object token;
+        while ((token = parser.parseNextToken()) != null) {
+            if (token instanceof COSBase operand) {
+                operands.add(operand);
+                continue;
+            }
+            Operator operator = (Operator) token;
+            switch (operator.getName()) {
+                case "Tf" -> use(used, COSName.FONT, operand(operands, 0));
+                case "gs" -> use(used, COSName.EXT_G_STATE, operand(operands, 0));
+                case "cs", "CS" -> use(used, COSName.COLORSPACE, operand(operands, 0));
+                case "scn", "SCN" -> use(used, COSName.PATTERN, operand(operands, operands.size() - 1));
+                case "sh" -> use(used, COSName.SHADING, operand(operands, 0));
+                case "BDC", "DP" -> use(used, COSName.PROPERTIES, operand(operands, 1));
+                case "BI" -> {
+                    COSDictionary parameters = operator.getImageParameters();
+                    if (parameters != null) {
+                        COSBase colorSpace = parameters.getDictionaryObject(COSName.CS, COSName.COLORSPACE);
+                        use(used, COSName.COLORSPACE, colorSpace);
+                    }
+                }
+                case "Do" -> {
+                    COSBase name = operand(operands, 0);
+                    use(used, COSName.XOBJECT, name);
+                    COSDictionary xObjects = resources.getCOSDictionary(COSName.XOBJECT);
+                    if (name instanceof COSName xObjectName && xObjects != null
+                            && xObjects.getDictionaryObject(xObjectName) instanceof COSStream stream
+                            && COSName.FORM.equals(stream.getCOSName(COSName.SUBTYPE))
+                            && !stream.containsKey(COSName.RESOURCES)
+                            && visited.add(stream)) {
+                        // A form without its own resources draws with the page's
+                        collectNames(new PDFormXObject(stream), resources, used, visited);
+                    }
+                }
+                default -> {
+                }
+            }
+            operands.clear();
+        }
+    }
+
+    private static COSBase operand(List<COSBase> operands, int index) {
+        return index >= 0 && index < operands.size() ? operands.get(index) : null;
+    }
+
+    private static void use(Map<COSName, Set<COSName>> used, COSName type, COSBase name) {
+        if (name instanceof COSName resourceName) {
+            used.computeIfAbsent(type, t -> new HashSet<>()).add(resourceName);
+        }
+    }
+
+    /**
+     * Copies the annotations of a page so they refer only to objects of the part
+     */
+    private static void copyAnnotations(COSDictionary page, COSDictionary pageCopy,
+            Map<COSDictionary, COSDictionary> pageCopies) {
+        COSArray annotations = page.getCOSArray(COSName.ANNOTS);
+        if (annotations == null) {
+            return;
+        }
+
+        Map<COSDictionary, COSDictionary> copies = new IdentityHashMap<>();
+        COSArray copiedAnnotations = new COSArray();
+        for (int i = 0; i < annotations.size(); i++) {
+            if (annotations.getObject(i) instanceof COSDictionary annotation && !copies.containsKey(annotation)) {
+                COSDictionary copy = new COSDictionary(annotation);
+                copies.put(annotation, copy);
+                copiedAnnotations.add(copy);
+            }
+        }
+
+        for (Map.Entry<COSDictionary, COSDictionary> entry : copies.entrySet()) {
+            COSDictionary copy = entry.getValue();
+            copy.setItem(COSName.P, pageCopy);
+            for (COSName key : ANNOTATION_REFERENCES) {
+                COSDictionary target = copies.get(resolve(copy.getItem(key)));
+                if (target != null) {
+                    copy.setItem(key, target);
+                } else {
+                    // Form fields, replies and parents outside the page
+                    copy.removeItem(key);
+                }
+            }
+
+            if (copy.containsKey(COSName.DEST)) {
+                COSArray destination = destination(copy.getDictionaryObject(COSName.DEST), pageCopies);
+                if (destination != null) {
+                    copy.setItem(COSName.DEST, destination);
+                } else if (copy.getDictionaryObject(COSName.DEST) instanceof COSArray) {
+                    copy.removeItem(COSName.DEST);
+                }
+            }
+            if (copy.getDictionaryObject(COSName.A) instanceof COSDictionary action
+                    && "GoTo".equals(action.getNameAsString(COSName.S))
+                    && action.getDictionaryObject(COSName.D) instanceof COSArray) {
+                COSArray destination = destination(action.getDictionaryObject(COSName.D), pageCopies);
+                if (destination != null) {
+                    COSDictionary actionCopy = new COSDictionary(action);
+                    actionCopy.setItem(COSName.D, destination);
+                    actionCopy.removeItem(COSName.NEXT);
+                    copy.setItem(COSName.A, actionCopy);
+                } else {
+                    copy.removeItem(COSName.A);
+                }
+            }
+        }
+        pageCopy.setItem(COSName.ANNOTS, copiedAnnotations);
+    }
+
+    /**
+     * Points an explicit destination at the copy of its page
+     *
+     * @return The rewritten destination, or null if its page is not part of the part
+     */
+    private static COSArray destination(COSBase destination, Map<COSDictionary, COSDictionary> pageCopies) {
+        if (!(destination instanceof COSArray array) || array.size() == 0
+                || !(array.getObject(0) instanceof COSDictionary target)) {
+            return null;
+        }
+        COSDictionary pageCopy = pageCopies.get(target);
+        if (pageCopy == null) {
+            return null;
+        }
+        COSArray copy = new COSArray();
+        copy.add(pageCopy);
+        for (int i = 1; i < array.size(); i++) {
+            copy.add(array.get(i));
+        }
+        return copy;
+    }
+
+    private static COSBase resolve(COSBase base) {
+        return base instanceof COSObject object ? object.getObject() : base;
+    }
+}
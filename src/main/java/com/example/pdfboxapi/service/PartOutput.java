@@ -0,0 +1,26 @@
+package com.example.pdfboxapi.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Destination for the parts of a multi-part result, such as split PDFs or page images
+ *
+ * Services write each part as soon as it is produced, so the caller can stream
+ * parts to the client instead of collecting them in memory.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface PartOutput {
+
+    /**
+     * Starts the next part
+     *
+     * @param index 0-based index of the part
+     * @return Stream receiving the content of the part; closing it ends the part
+     * @throws IOException If the part cannot be started
+     */
+    OutputStream nextPart(int index) throws IOException;
+}
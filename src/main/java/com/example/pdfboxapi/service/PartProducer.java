@@ -0,0 +1,66 @@
+package com.example.pdfboxapi.service;
+
+import java.io.IOException;
+
+/**
+ * A validated multi-part operation whose parts are produced on demand
+ *
+ * Services return a producer after loading the document and checking the
+ * request, so invalid requests still fail before any output is written. The
+ * producer owns the loaded document until it is closed.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+public interface PartProducer extends AutoCloseable {
+
+    /**
+     * @return Number of parts the producer will write
+     */
+    int getPartCount();
+
+    /**
+     * Produces all parts in order
+     *
+     * @param output Destination of the parts
+     * @throws IOException If a part cannot be produced or written
+     */
+    void writeTo(PartOutput output) throws IOException;
+
+    /**
+     * Releases the document held by the producer
+     */
+    @Override
+    void close();
+
+    /**
+     * Returns a producer that also runs the given action when closed, e.g. to
+     * release a permit held for the duration of the output
+     *
+     * @param action Action run after this producer is closed
+     * @return The wrapping producer
+     */
+    default PartProducer onClose(Runnable action) {
+        PartProducer producer = this;
+        return new PartProducer() {
+            @Override
+            public int getPartCount() {
+                return producer.getPartCount();
+            }
+
+            @Override
+            public void writeTo(PartOutput output) throws IOException {
+                producer.writeTo(output);
+            }
+
+            @Override
+            public void close() {
+                try {
+                    producer.close();
+                } finally {
+                    action.run();
+                }
+            }
+        };
+    }
+}
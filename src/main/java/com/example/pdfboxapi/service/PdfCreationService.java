@@ -1,6 +1,7 @@
 package com.example.pdfboxapi.service;
 
 import com.example.pdfboxapi.model.request.PdfCreationRequest;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
@@ -14,11 +15,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -34,11 +31,22 @@ import java.util.List;
  */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class PdfCreationService {
 
     private static final float MARGIN = 50;
     private static final float LEADING = 1.5f;
 
+    /**
+     * Font names accepted by {@link #getFont(String)}; other names fall back to Helvetica
+     */
+    static final List<String> FONT_NAMES = List.of(
+            "helvetica", "helvetica-bold", "times-roman", "times-bold", "courier", "courier-bold");
+
+    private final MemoryBudget memoryBudget;
+    private final Bulkheads bulkheads;
+    private final AdmissionControl admissionControl;
+
     /**
      * Creates a new PDF document
      * 
@@ -47,9 +55,10 @@ public class PdfCreationService {
      * @throws IOException If there's an error creating the PDF
      */
     public byte[] createPdf(PdfCreationRequest request) throws IOException {
-        File tempImageFile = null;
-        
-        try (PDDocument document = new PDDocument()) {
+        try (Bulkheads.Permit permit = bulkheads.acquire(Bulkheads.Operation.CREATE);
+             AdmissionControl.Ticket ticket = admissionControl.admit(Bulkheads.Operation.CREATE,
+                     admissionControl.documentCost(request.getImage()));
+             PDDocument document = new PDDocument(memoryBudget.streamCache())) {
             // Set document metadata
             document.getDocumentInformation().setTitle(request.getTitle());
             document.getDocumentInformation().setAuthor(request.getAuthor());
@@ -95,8 +104,9 @@ public class PdfCreationService {
                 
                 // Add image if provided
                 if (request.getImage() != null && !request.getImage().isEmpty()) {
-                    tempImageFile = convertMultipartFileToFile(request.getImage());
-                    PDImageXObject image = PDImageXObject.createFromFileByContent(tempImageFile, document);
+                    MultipartFile imageFile = request.getImage();
+                    PDImageXObject image = PDImageXObject.createFromByteArray(
+                            document, imageFile.getBytes(), imageFile.getOriginalFilename());
                     
                     // Scale image to fit within page width while maintaining aspect ratio
                     float imageWidth = Math.min(textWidth, image.getWidth());
@@ -117,12 +127,6 @@ public class PdfCreationService {
             
             log.info("Successfully created PDF document with title: {}", request.getTitle());
             return baos.toByteArray();
-            
-        } finally {
-            // Clean up the temporary image file
-            if (tempImageFile != null && tempImageFile.exists()) {
-                tempImageFile.delete();
-            }
         }
     }
     
@@ -132,7 +136,7 @@ public class PdfCreationService {
      * @param fontName Name of the font
      * @return PDFont object
      */
-    private PDFont getFont(String fontName) {
+    static PDFont getFont(String fontName) {
         // Map common font names to Standard14Fonts
         switch (fontName.toLowerCase()) {
             case "helvetica":
@@ -213,32 +217,4 @@ public class PdfCreationService {
         
         return lines;
     }
-    
-    /**
-     * Converts a MultipartFile to a File
-     * 
-     * @param multipartFile The MultipartFile to convert
-     * @return A temporary File object
-     * @throws IOException If there's an error during conversion
-     */
-    private File convertMultipartFileToFile(MultipartFile multipartFile) throws IOException {
-        Path tempFile = Files.createTempFile("img-", getFileExtension(multipartFile.getOriginalFilename()));
-        try (FileOutputStream fos = new FileOutputStream(tempFile.toFile())) {
-            fos.write(multipartFile.getBytes());
-        }
-        return tempFile.toFile();
-    }
-    
-    /**
-     * Gets the file extension from a filename
-     * 
-     * @param filename The filename
-     * @return The file extension with dot (e.g., ".jpg")
-     */
-    private String getFileExtension(String filename) {
-        if (filename == null || filename.isEmpty() || !filename.contains(".")) {
-            return ".tmp";
-        }
-        return filename.substring(filename.lastIndexOf("."));
-    }
 }
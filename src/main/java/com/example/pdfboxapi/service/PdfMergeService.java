@@ -1,19 +1,18 @@
 package com.example.pdfboxapi.service;
 
 import com.example.pdfboxapi.model.request.PdfMergeRequest;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.RandomAccessRead;
 import org.apache.pdfbox.multipdf.PDFMergerUtility;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -28,8 +27,14 @@ import java.util.List;
  */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class PdfMergeService {
 
+    private final DocumentSource documentSource;
+    private final MemoryBudget memoryBudget;
+    private final Bulkheads bulkheads;
+    private final AdmissionControl admissionControl;
+
     /**
      * Merges multiple PDF files into a single PDF document
      * 
@@ -38,59 +43,60 @@ public class PdfMergeService {
      * @throws IOException If there's an error processing the PDFs
      */
     public byte[] mergePdfs(PdfMergeRequest request) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        mergePdfs(request, outputStream);
+        return outputStream.toByteArray();
+    }
+    
+    /**
+     * Merges multiple PDF files, writing the merged PDF to a stream
+     * 
+     * @param request The PDF merge request containing the PDF files to merge
+     * @param outputStream Destination of the merged PDF; not closed
+     * @throws IOException If there's an error processing the PDFs
+     */
+    public void mergePdfs(PdfMergeRequest request, OutputStream outputStream) throws IOException {
         MultipartFile[] pdfFiles = request.getPdfFiles();
         
         if (pdfFiles == null || pdfFiles.length < 2) {
             throw new IllegalArgumentException("At least two PDF files are required for merging");
         }
         
-        List<File> tempFiles = new ArrayList<>();
+        // Every source stays open until the merge is saved, so the cost covers all files
+        Bulkheads.Permit permit = bulkheads.acquire(Bulkheads.Operation.MERGE);
+        AdmissionControl.Ticket ticket = null;
+        List<RandomAccessRead> sources = new ArrayList<>();
         try {
-            // Convert MultipartFiles to temporary Files
+            ticket = admissionControl.admit(Bulkheads.Operation.MERGE, admissionControl.documentCost(pdfFiles));
+            
+            // Open each upload without copying it into a temporary file
             for (MultipartFile pdfFile : pdfFiles) {
-                tempFiles.add(convertMultipartFileToFile(pdfFile));
+                sources.add(documentSource.open(pdfFile));
             }
             
             // Create PDF merger utility
             PDFMergerUtility merger = new PDFMergerUtility();
             
-            // Add source files to merger
-            for (File tempFile : tempFiles) {
-                merger.addSource(tempFile);
-            }
+            // Add sources to merger
+            merger.addSources(sources);
             
             // Set up output stream for merged PDF
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             merger.setDestinationStream(outputStream);
             
-            // Merge the PDFs
-            merger.mergeDocuments(null);
+            // Merge the PDFs, buffering the destination within the memory budget
+            merger.mergeDocuments(memoryBudget.streamCache());
             
             log.info("Successfully merged {} PDF files", pdfFiles.length);
-            return outputStream.toByteArray();
             
         } finally {
-            // Clean up temporary files
-            for (File tempFile : tempFiles) {
-                if (tempFile != null && tempFile.exists()) {
-                    tempFile.delete();
-                }
+            // Release sources the merger did not get to (closing twice is harmless)
+            for (RandomAccessRead source : sources) {
+                IOUtils.closeQuietly(source);
             }
+            if (ticket != null) {
+                ticket.close();
+            }
+            permit.close();
         }
     }
-    
-    /**
-     * Converts a MultipartFile to a File
-     * 
-     * @param multipartFile The MultipartFile to convert
-     * @return A temporary File object
-     * @throws IOException If there's an error during conversion
-     */
-    private File convertMultipartFileToFile(MultipartFile multipartFile) throws IOException {
-        Path tempFile = Files.createTempFile("pdf-", ".pdf");
-        try (FileOutputStream fos = new FileOutputStream(tempFile.toFile())) {
-            fos.write(multipartFile.getBytes());
-        }
-        return tempFile.toFile();
-    }
 }
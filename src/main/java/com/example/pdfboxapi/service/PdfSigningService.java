@@ -1,8 +1,8 @@
 package com.example.pdfboxapi.service;
 
 import com.example.pdfboxapi.model.request.PdfSigningRequest;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.interactive.digitalsignature.PDSignature;
 import org.apache.pdfbox.pdmodel.interactive.digitalsignature.SignatureOptions;
@@ -10,11 +10,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.InputStream;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
@@ -33,8 +30,13 @@ import java.util.Calendar;
  */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class PdfSigningService {
 
+    private final DocumentSource documentSource;
+    private final Bulkheads bulkheads;
+    private final AdmissionControl admissionControl;
+
     /**
      * Signs a PDF document with a digital signature
      * 
@@ -49,17 +51,17 @@ public class PdfSigningService {
     public byte[] signPdf(PdfSigningRequest request) throws IOException, KeyStoreException, 
             CertificateException, NoSuchAlgorithmException, UnrecoverableKeyException {
         
-        MultipartFile pdfFile = request.getPdfFile();
         MultipartFile keystoreFile = request.getKeystoreFile();
         
-        File tempPdfFile = convertMultipartFileToFile(pdfFile);
-        File tempKeystoreFile = convertMultipartFileToFile(keystoreFile);
-        
-        try (PDDocument document = Loader.loadPDF(tempPdfFile)) {
-            // Load keystore
+        try (Bulkheads.Permit permit = bulkheads.acquire(Bulkheads.Operation.SIGN);
+             AdmissionControl.Ticket ticket = admissionControl.admit(Bulkheads.Operation.SIGN,
+                     admissionControl.documentCost(request.getPdfFile()));
+             PDDocument document = documentSource.load(request.getPdfFile())) {
+            // Load keystore directly from the upload
             KeyStore keystore = KeyStore.getInstance("PKCS12");
-            keystore.load(Files.newInputStream(tempKeystoreFile.toPath()), 
-                    request.getKeystorePassword().toCharArray());
+            try (InputStream keystoreStream = keystoreFile.getInputStream()) {
+                keystore.load(keystoreStream, request.getKeystorePassword().toCharArray());
+            }
             
             // Create signature
             PDSignature signature = new PDSignature();
@@ -96,43 +98,6 @@ public class PdfSigningService {
             
             log.info("Successfully signed PDF document");
             return baos.toByteArray();
-            
-        } finally {
-            // Clean up temporary files
-            if (tempPdfFile != null && tempPdfFile.exists()) {
-                tempPdfFile.delete();
-            }
-            if (tempKeystoreFile != null && tempKeystoreFile.exists()) {
-                tempKeystoreFile.delete();
-            }
-        }
-    }
-    
-    /**
-     * Converts a MultipartFile to a File
-     * 
-     * @param multipartFile The MultipartFile to convert
-     * @return A temporary File object
-     * @throws IOException If there's an error during conversion
-     */
-    private File convertMultipartFileToFile(MultipartFile multipartFile) throws IOException {
-        Path tempFile = Files.createTempFile("file-", getFileExtension(multipartFile.getOriginalFilename()));
-        try (FileOutputStream fos = new FileOutputStream(tempFile.toFile())) {
-            fos.write(multipartFile.getBytes());
-        }
-        return tempFile.toFile();
-    }
-    
-    /**
-     * Gets the file extension from a filename
-     * 
-     * @param filename The filename
-     * @return The file extension with dot (e.g., ".pdf")
-     */
-    private String getFileExtension(String filename) {
-        if (filename == null || filename.isEmpty() || !filename.contains(".")) {
-            return ".tmp";
         }
-        return filename.substring(filename.lastIndexOf("."));
     }
 }
@@ -1,19 +1,20 @@
 package com.example.pdfboxapi.service;
 
 import com.example.pdfboxapi.model.request.PdfSplitRequest;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.multipdf.Splitter;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -30,8 +31,14 @@ import java.util.regex.Pattern;
  */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class PdfSplitService {
 
+    private final DocumentSource documentSource;
+    private final MemoryBudget memoryBudget;
+    private final Bulkheads bulkheads;
+    private final AdmissionControl admissionControl;
+
     /**
      * Splits a PDF file according to the specified request parameters
      * 
@@ -40,84 +47,155 @@ public class PdfSplitService {
      * @throws IOException If there's an error processing the PDF
      */
     public List<byte[]> splitPdf(PdfSplitRequest request) throws IOException {
-        MultipartFile pdfFile = request.getPdfFile();
-        File tempFile = convertMultipartFileToFile(pdfFile);
-        List<byte[]> splitPdfs = new ArrayList<>();
+        List<ByteArrayOutputStream> parts = new ArrayList<>();
+        try (PartProducer producer = prepareSplit(request)) {
+            producer.writeTo(index -> {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                parts.add(baos);
+                return baos;
+            });
+        }
         
-        try (PDDocument document = Loader.loadPDF(tempFile)) {
-            if (request.getSplitType() == PdfSplitRequest.SplitType.BY_PAGE) {
-                splitPdfs = splitByPage(document);
-            } else if (request.getSplitType() == PdfSplitRequest.SplitType.BY_RANGE) {
-                splitPdfs = splitByRange(document, request.getPageRanges());
+        List<byte[]> splitPdfs = new ArrayList<>(parts.size());
+        for (ByteArrayOutputStream part : parts) {
+            splitPdfs.add(part.toByteArray());
+        }
+        return splitPdfs;
+    }
+    
+    /**
+     * Loads the PDF and validates the split options without producing any output yet
+     * 
+     * Each part is saved to the output as soon as it has been split off, so only
+     * one part is held in memory at a time.
+     * 
+     * @param request The PDF split request containing the PDF file and split options
+     * @return Producer writing one PDF per part
+     * @throws IOException If the PDF cannot be loaded
+     */
+    public PartProducer prepareSplit(PdfSplitRequest request) throws IOException {
+        // The ticket and permit are held until the producer is closed, i.e. until the last part is written
+        Bulkheads.Permit permit = bulkheads.acquire(Bulkheads.Operation.SPLIT);
+        AdmissionControl.Ticket ticket = null;
+        try {
+            ticket = admissionControl.admit(Bulkheads.Operation.SPLIT,
+                    admissionControl.documentCost(request.getPdfFile()));
+            return openSplit(request).onClose(ticket::close).onClose(permit::close);
+        } catch (IOException | RuntimeException e) {
+            if (ticket != null) {
+                ticket.close();
             }
-            
-            log.info("Successfully split PDF into {} parts", splitPdfs.size());
-            return splitPdfs;
-        } finally {
-            // Clean up the temporary file
-            if (tempFile != null && tempFile.exists()) {
-                tempFile.delete();
+            permit.close();
+            throw e;
+        }
+    }
+    
+    private PartProducer openSplit(PdfSplitRequest request) throws IOException {
+        PDDocument document = documentSource.load(request.getPdfFile());
+        try {
+            List<PageRange> ranges;
+            List<PDPage> pageCopies = null;
+            if (request.getSplitType() == PdfSplitRequest.SplitType.BY_RANGE) {
+                if (request.getPageRanges() == null || request.getPageRanges().trim().isEmpty()) {
+                    throw new IllegalArgumentException("Page ranges must be specified for BY_RANGE split type");
+                }
+                ranges = parsePageRanges(request.getPageRanges(), document.getNumberOfPages());
+            } else if (request.getSplitType() == PdfSplitRequest.SplitType.BY_SIZE) {
+                if (request.getMaxPartSize() == null || request.getMaxPartSize() <= 0) {
+                    throw new IllegalArgumentException("A positive maximum part size must be specified for BY_SIZE split type");
+                }
+                pageCopies = new ArrayList<>(document.getNumberOfPages());
+                ranges = sizeRanges(document, request.getMaxPartSize(), pageCopies);
+            } else {
+                ranges = new ArrayList<>();
+                for (int i = 1; i <= document.getNumberOfPages(); i++) {
+                    ranges.add(new PageRange(i, i));
+                }
             }
+            // Size estimates are made for compact parts, so parts split by size are always compact
+            boolean compact = request.isCompact() || request.getSplitType() == PdfSplitRequest.SplitType.BY_SIZE;
+            return new SplitProducer(document, request.getSplitType(), ranges, compact, pageCopies);
+        } catch (RuntimeException e) {
+            IOUtils.closeQuietly(document);
+            throw e;
         }
     }
     
     /**
-     * Splits a PDF document into individual pages
+     * Splits a single page off a PDF document
      * 
      * @param document The PDF document to split
-     * @return List of byte arrays representing individual pages as PDFs
+     * @param pageNumber 1-based page number
+     * @return New document containing the page
      * @throws IOException If there's an error during splitting
      */
-    private List<byte[]> splitByPage(PDDocument document) throws IOException {
-        List<byte[]> splitPdfs = new ArrayList<>();
+    private PDDocument splitPage(PDDocument document, int pageNumber) throws IOException {
+        // Splitting one page per call keeps a single part alive at a time
         Splitter splitter = new Splitter();
-        
-        List<PDDocument> pages = splitter.split(document);
-        for (PDDocument page : pages) {
-            try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-                page.save(baos);
-                splitPdfs.add(baos.toByteArray());
-                page.close();
-            }
-        }
-        
-        return splitPdfs;
+        splitter.setStreamCacheCreateFunction(memoryBudget.streamCache());
+        splitter.setStartPage(pageNumber);
+        splitter.setEndPage(pageNumber);
+        return splitter.split(document).get(0);
     }
     
     /**
-     * Splits a PDF document according to specified page ranges
+     * Copies a range of pages into a new PDF document
      * 
      * @param document The PDF document to split
-     * @param pageRanges String representing page ranges (e.g., "1-3,5,7-10")
-     * @return List of byte arrays representing the split PDFs
-     * @throws IOException If there's an error during splitting
+     * @param range The pages to copy
+     * @return New document containing the pages
+     * @throws IOException If the document cannot be created
      */
-    private List<byte[]> splitByRange(PDDocument document, String pageRanges) throws IOException {
-        List<byte[]> splitPdfs = new ArrayList<>();
-        
-        if (pageRanges == null || pageRanges.trim().isEmpty()) {
-            throw new IllegalArgumentException("Page ranges must be specified for BY_RANGE split type");
+    private PDDocument extractRange(PDDocument document, PageRange range) throws IOException {
+        PDDocument newDoc = new PDDocument(memoryBudget.streamCache());
+        for (int i = range.getStart(); i <= range.getEnd(); i++) {
+            // PDFBox page indices are 0-based, but user input is 1-based
+            newDoc.addPage(document.getPage(i - 1));
         }
-        
-        // Parse page ranges
-        List<PageRange> ranges = parsePageRanges(pageRanges, document.getNumberOfPages());
-        
-        // Create a new PDF for each range
-        for (PageRange range : ranges) {
-            try (PDDocument newDoc = new PDDocument()) {
-                for (int i = range.getStart(); i <= range.getEnd(); i++) {
-                    // PDFBox page indices are 0-based, but user input is 1-based
-                    newDoc.addPage(document.getPage(i - 1));
-                }
-                
-                try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-                    newDoc.save(baos);
-                    splitPdfs.add(baos.toByteArray());
-                }
+        return newDoc;
+    }
+    
+    /**
+     * Groups consecutive pages into parts whose estimated size stays within a budget
+     * 
+     * Each page's object graph is added to a running estimate of the current
+     * part that counts shared fonts and images once, so no part is saved or
+     * measured to find the cut points. The compact page copies measured here
+     * are kept for building the parts, so each page's content is parsed once.
+     * 
+     * @param document The PDF document to split
+     * @param maxPartSize Largest size in bytes of a part
+     * @param pageCopies Receives the compact copy of every page, in page order
+     * @return The page ranges of the parts
+     */
+    private List<PageRange> sizeRanges(PDDocument document, long maxPartSize, List<PDPage> pageCopies) {
+        List<PageRange> ranges = new ArrayList<>();
+        int pageCount = document.getNumberOfPages();
+        ObjectGraphSize partSize = new ObjectGraphSize();
+        int start = 1;
+        for (int i = 1; i <= pageCount; i++) {
+            PDPage page = document.getPage(i - 1);
+            PDPage pageCopy = PartCompactor.copyPage(page);
+            pageCopies.add(pageCopy);
+            COSDictionary copy = pageCopy.getCOSObject();
+            COSBase annotations = page.getCOSObject().getItem(COSName.ANNOTS);
+            partSize.addPage(copy, annotations);
+            if (partSize.getSize() > maxPartSize && i > start) {
+                // The page does not fit: close the part before it and start the next one with it
+                ranges.add(new PageRange(start, i - 1));
+                start = i;
+                partSize = new ObjectGraphSize();
+                partSize.addPage(copy, annotations);
+            }
+            if (partSize.getSize() > maxPartSize) {
+                log.warn("Page {} alone is estimated at {} bytes, above the part size limit of {}",
+                        i, partSize.getSize(), maxPartSize);
             }
         }
-        
-        return splitPdfs;
+        if (pageCount > 0) {
+            ranges.add(new PageRange(start, pageCount));
+        }
+        return ranges;
     }
     
     /**
@@ -162,18 +240,60 @@ public class PdfSplitService {
     }
     
     /**
-     * Converts a MultipartFile to a File
-     * 
-     * @param multipartFile The MultipartFile to convert
-     * @return A temporary File object
-     * @throws IOException If there's an error during conversion
+     * Producer saving one split part at a time
      */
-    private File convertMultipartFileToFile(MultipartFile multipartFile) throws IOException {
-        Path tempFile = Files.createTempFile("pdf-", ".pdf");
-        try (FileOutputStream fos = new FileOutputStream(tempFile.toFile())) {
-            fos.write(multipartFile.getBytes());
+    private class SplitProducer implements PartProducer {
+        private final PDDocument document;
+        private final PdfSplitRequest.SplitType splitType;
+        private final List<PageRange> ranges;
+        private final boolean compact;
+        // Compact copies of all pages when they were made while planning the parts, otherwise null
+        private final List<PDPage> pageCopies;
+        
+        SplitProducer(PDDocument document, PdfSplitRequest.SplitType splitType, List<PageRange> ranges,
+                boolean compact, List<PDPage> pageCopies) {
+            this.document = document;
+            this.splitType = splitType;
+            this.ranges = ranges;
+            this.compact = compact;
+            this.pageCopies = pageCopies;
+        }
+        
+        @Override
+        public int getPartCount() {
+            return ranges.size();
+        }
+        
+        @Override
+        public void writeTo(PartOutput output) throws IOException {
+            for (int i = 0; i < ranges.size(); i++) {
+                PageRange range = ranges.get(i);
+                try (PDDocument part = newPart(range);
+                     OutputStream out = output.nextPart(i)) {
+                    part.save(out);
+                }
+            }
+            log.info("Successfully split PDF into {} parts", ranges.size());
+        }
+        
+        private PDDocument newPart(PageRange range) throws IOException {
+            if (compact && pageCopies != null) {
+                return PartCompactor.compactPart(document, range.getStart(), range.getEnd(),
+                        pageCopies.subList(range.getStart() - 1, range.getEnd()), memoryBudget.streamCache());
+            }
+            if (compact) {
+                return PartCompactor.compactPart(document, range.getStart(), range.getEnd(),
+                        memoryBudget.streamCache());
+            }
+            return splitType == PdfSplitRequest.SplitType.BY_RANGE
+                    ? extractRange(document, range)
+                    : splitPage(document, range.getStart());
+        }
+        
+        @Override
+        public void close() {
+            IOUtils.closeQuietly(document);
         }
-        return tempFile.toFile();
     }
     
     /**
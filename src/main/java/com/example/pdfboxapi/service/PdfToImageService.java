@@ -1,24 +1,44 @@
 package com.example.pdfboxapi.service;
 
+import com.example.pdfboxapi.model.request.ImageEncoding;
+import com.example.pdfboxapi.model.request.PdfThumbnailRequest;
+import com.example.pdfboxapi.model.request.PdfTileRequest;
 import com.example.pdfboxapi.model.request.PdfToImageRequest;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 
 /**
  * Service for PDF to image conversion operations using PDFBox
@@ -31,8 +51,29 @@ import java.util.List;
  */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class PdfToImageService {
 
+    /**
+     * Largest tile edge in pixels; larger regions should use the page conversion
+     */
+    static final int MAX_TILE_SIZE = 4096;
+
+    /**
+     * Largest thumbnail edge in pixels
+     */
+    static final int MAX_THUMBNAIL_SIZE = 1024;
+
+    private final DocumentCache documentCache;
+    private final DocumentSource documentSource;
+    private final RenderPool renderPool;
+    private final Bulkheads bulkheads;
+    private final AdmissionControl admissionControl;
+    private final ThumbnailCache thumbnailCache;
+    private final RenderedPageCache renderedPageCache;
+    private final ImageEncoders imageEncoders;
+    private final RasterPool rasterPool;
+
     /**
      * Converts PDF pages to images
      * 
@@ -41,61 +82,612 @@ public class PdfToImageService {
      * @throws IOException If there's an error processing the PDF
      */
     public List<byte[]> convertPdfToImages(PdfToImageRequest request) throws IOException {
-        MultipartFile pdfFile = request.getPdfFile();
-        File tempFile = convertMultipartFileToFile(pdfFile);
-        List<byte[]> images = new ArrayList<>();
+        List<ByteArrayOutputStream> parts = new ArrayList<>();
+        try (PartProducer producer = prepareConversion(request)) {
+            producer.writeTo(index -> {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                parts.add(baos);
+                return baos;
+            });
+        }
+        
+        List<byte[]> images = new ArrayList<>(parts.size());
+        for (ByteArrayOutputStream part : parts) {
+            images.add(part.toByteArray());
+        }
+        return images;
+    }
+    
+    /**
+     * Loads the PDF and validates the conversion options without rendering anything yet
+     * 
+     * Each page is encoded to the output as soon as it is rendered. When more than
+     * one page is converted and the resolved parallelism is above 1, pages are
+     * rendered concurrently on the render pool, each worker using its own
+     * document; images are still written in page order. Encoded pages are kept
+     * in the {@link RenderedPageCache} and cached pages are written without
+     * rendering.
+     * 
+     * @param request The PDF to image request containing the PDF file and conversion options
+     * @return Producer writing one image per page
+     * @throws IOException If the PDF cannot be loaded
+     */
+    public PartProducer prepareConversion(PdfToImageRequest request) throws IOException {
+        imageEncoders.validate(request.getImageFormat(), request.getEncoding());
+        
+        int parallelism = renderPool.parallelism(request.getParallelism(), Integer.MAX_VALUE);
+        
+        int dpi = request.getDpi();
+        String imageFormat = request.getImageFormat();
+        ImageEncoding encoding = request.getEncoding();
+        String sha256 = documentSource.contentHash(request.getPdfFile());
+        String variant = imageEncoders.variant(imageFormat, encoding);
+        PageEncoder encoder = new CachingEncoder(
+                (document, page, out) -> renderPage(document, page, dpi, imageFormat, encoding, out),
+                page -> RenderedPageCache.key(sha256, page, dpi, ImageType.RGB.name(), variant),
+                renderedPageCache::get, renderedPageCache::put);
+        RenderCost cost = (document, pages, concurrentPages) -> admissionControl.renderCost(document,
+                request.getPdfFile().getSize(), pages[0], pages[1], dpi, concurrentPages);
+        
+        // The permit is held until the producer is closed, i.e. until the last image is written
+        Bulkheads.Permit permit = bulkheads.acquire(Bulkheads.Operation.RENDER);
+        try {
+            PartProducer producer = request.getPageNumber() != null || parallelism == 1
+                    ? prepareSequential(request.getPdfFile(), sha256, request.getPageNumber(), cost, encoder)
+                    : prepareParallel(request.getPdfFile(), request.getPageNumber(), request.getParallelism(),
+                            cost, encoder);
+            return producer.onClose(permit::close);
+        } catch (IOException | RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Prepares a small preview image of every page
+     * 
+     * Thumbnails are rendered straight at their target size with image
+     * subsampling and speed-oriented rendering hints, into RGB or grayscale
+     * rasters without an alpha channel. Encoded thumbnails are cached by
+     * document hash, page and options, and cached pages are written without
+     * rendering.
+     * 
+     * @param request The thumbnail request containing the PDF file and options
+     * @return Producer writing one thumbnail per page
+     * @throws IOException If the PDF cannot be loaded
+     */
+    public PartProducer prepareThumbnails(PdfThumbnailRequest request) throws IOException {
+        imageEncoders.validate(request.getImageFormat(), request.getEncoding());
+        if (request.getMaxSize() < 1 || request.getMaxSize() > MAX_THUMBNAIL_SIZE) {
+            throw new IllegalArgumentException("Thumbnail size must be between 1 and " + MAX_THUMBNAIL_SIZE);
+        }
+        
+        int parallelism = renderPool.parallelism(request.getParallelism(), Integer.MAX_VALUE);
+        String sha256 = documentSource.contentHash(request.getPdfFile());
+        String keyPrefix = sha256 + "/" + request.getMaxSize() + "/"
+                + imageEncoders.variant(request.getImageFormat(), request.getEncoding())
+                + (request.isGrayscale() ? "/gray/" : "/rgb/");
+        int maxSize = request.getMaxSize();
+        String imageFormat = request.getImageFormat();
+        ImageEncoding encoding = request.getEncoding();
+        ImageType imageType = request.isGrayscale() ? ImageType.GRAY : ImageType.RGB;
+        PageEncoder encoder = new CachingEncoder(
+                (document, page, out) -> renderThumbnail(document, page, maxSize, imageFormat, imageType, encoding,
+                        out),
+                page -> keyPrefix + page, thumbnailCache::get, thumbnailCache::put);
+        RenderCost cost = (document, pages, concurrentPages) -> admissionControl.thumbnailCost(
+                request.getPdfFile().getSize(), request.getMaxSize(), concurrentPages);
         
-        try (PDDocument document = Loader.loadPDF(tempFile)) {
-            PDFRenderer renderer = new PDFRenderer(document);
+        Bulkheads.Permit permit = bulkheads.acquire(Bulkheads.Operation.RENDER);
+        try {
+            PartProducer producer = parallelism == 1
+                    ? prepareSequential(request.getPdfFile(), sha256, null, cost, encoder)
+                    : prepareParallel(request.getPdfFile(), null, request.getParallelism(), cost, encoder);
+            return producer.onClose(permit::close);
+        } catch (IOException | RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+    }
+    
+    private PartProducer prepareSequential(MultipartFile pdfFile, String sha256, Integer pageNumber,
+            RenderCost cost, PageEncoder encoder) throws IOException {
+        // The caller has hashed the upload for its cache keys already
+        DocumentCache.Lease lease = documentCache.checkout(pdfFile, sha256);
+        try {
+            int[] pages = pageRange(lease.getDocument(), pageNumber);
+            AdmissionControl.Ticket ticket = admit(cost, lease.getDocument(), pages, 1);
+            return new ImageProducer(lease, pages[0], pages[1], encoder).onClose(ticket::close);
+        } catch (RuntimeException e) {
+            lease.close();
+            throw e;
+        }
+    }
+    
+    private PartProducer prepareParallel(MultipartFile pdfFile, Integer pageNumber, Integer requestedParallelism,
+            RenderCost cost, PageEncoder encoder) throws IOException {
+        // Workers need their own documents, so the upload is shared rather than taken from the cache
+        DocumentSource.SharedSource source = documentSource.share(pdfFile);
+        PDDocument first = null;
+        try {
+            first = source.load();
+            int[] pages = pageRange(first, pageNumber);
+            int parallelism = renderPool.parallelism(requestedParallelism, pages[1] - pages[0] + 1);
+            AdmissionControl.Ticket ticket = admit(cost, first, pages, parallelism);
+            return new ParallelImageProducer(source, first, pages[0], pages[1], parallelism, encoder)
+                    .onClose(ticket::close);
+        } catch (IOException | RuntimeException e) {
+            IOUtils.closeQuietly(first);
+            source.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Admits the render once the page geometry is known
+     * 
+     * Parsing is lazy and already bounded by the render bulkhead; the rasters are
+     * what dominates a render's memory, so admission waits until their size can
+     * be estimated from the page boxes, the DPI and the pages rendered at once.
+     */
+    private AdmissionControl.Ticket admit(RenderCost cost, PDDocument document, int[] pages, int concurrentPages) {
+        return admissionControl.admit(Bulkheads.Operation.RENDER, cost.estimate(document, pages, concurrentPages));
+    }
+    
+    /**
+     * Renders a rectangular region of one page
+     * 
+     * The page is drawn through a clip and a translation onto a raster the size
+     * of the tile, so only the tile's pixels are allocated and filled however
+     * large the page is at the requested DPI. The tile is clipped at the page
+     * edges.
+     * 
+     * @param request The tile request containing the PDF file, page, DPI and region
+     * @return The encoded tile
+     * @throws IOException If the PDF cannot be loaded or rendered
+     */
+    public byte[] renderTile(PdfTileRequest request) throws IOException {
+        return renderTile(request, contentHash(request));
+    }
+    
+    /**
+     * Renders a rectangular region of one page of a PDF whose SHA-256 is already known
+     * 
+     * @param request The tile request containing the PDF file, page, DPI and region
+     * @param sha256 SHA-256 of the PDF file, as returned by {@link #contentHash(PdfTileRequest)}
+     * @return The encoded tile
+     * @throws IOException If the PDF cannot be loaded or rendered
+     */
+    public byte[] renderTile(PdfTileRequest request, String sha256) throws IOException {
+        imageEncoders.validate(request.getImageFormat(), request.getEncoding());
+        if (request.getDpi() < 1) {
+            throw new IllegalArgumentException("DPI must be positive");
+        }
+        if (request.getX() < 0 || request.getY() < 0) {
+            throw new IllegalArgumentException("Tile origin must not be negative");
+        }
+        if (request.getWidth() < 1 || request.getHeight() < 1
+                || request.getWidth() > MAX_TILE_SIZE || request.getHeight() > MAX_TILE_SIZE) {
+            throw new IllegalArgumentException("Tile width and height must be between 1 and " + MAX_TILE_SIZE);
+        }
+        
+        try (Bulkheads.Permit permit = bulkheads.acquire(Bulkheads.Operation.RENDER);
+             DocumentCache.Lease lease = documentCache.checkout(request.getPdfFile(), sha256)) {
+            PDDocument document = lease.getDocument();
+            int pageIndex = pageRange(document, request.getPageNumber())[0];
+            PDPage page = document.getPage(pageIndex);
             
-            // Determine which pages to convert
-            int startPage = 0;
-            int endPage = document.getNumberOfPages() - 1;
+            float scale = request.getDpi() / 72f;
+            int[] pageSize = pixelSize(page, scale);
+            int pageWidth = pageSize[0];
+            int pageHeight = pageSize[1];
+            if (request.getX() >= pageWidth || request.getY() >= pageHeight) {
+                throw new IllegalArgumentException("Tile origin lies outside the page (" + pageWidth + "x"
+                        + pageHeight + " pixels at " + request.getDpi() + " DPI)");
+            }
+            int width = Math.min(request.getWidth(), pageWidth - request.getX());
+            int height = Math.min(request.getHeight(), pageHeight - request.getY());
             
-            if (request.getPageNumber() != null) {
-                int pageNum = request.getPageNumber() - 1; // Convert to 0-based index
-                if (pageNum >= 0 && pageNum < document.getNumberOfPages()) {
-                    startPage = pageNum;
-                    endPage = pageNum;
-                } else {
-                    throw new IllegalArgumentException("Invalid page number: " + (pageNum + 1));
+            long cost = admissionControl.tileCost(request.getPdfFile().getSize(), width, height);
+            try (AdmissionControl.Ticket ticket = admissionControl.admit(Bulkheads.Operation.RENDER, cost)) {
+                BufferedImage image = rasterPool.acquire(width, height, BufferedImage.TYPE_INT_RGB);
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                try {
+                    Graphics2D graphics = image.createGraphics();
+                    try {
+                        graphics.setBackground(Color.WHITE);
+                        graphics.clearRect(0, 0, width, height);
+                        // The clip is in tile pixels; PageDrawer intersects every clip it sets with it
+                        graphics.setClip(0, 0, width, height);
+                        graphics.translate(-request.getX(), -request.getY());
+                        documentSource.renderer(document).renderPageToGraphics(pageIndex, graphics, scale);
+                    } finally {
+                        graphics.dispose();
+                    }
+                    imageEncoders.encode(image, request.getImageFormat(), request.getEncoding(), baos);
+                } finally {
+                    rasterPool.release(image);
                 }
+                log.debug("Rendered {}x{} tile at ({}, {}) of page {} at {} DPI", width, height,
+                        request.getX(), request.getY(), pageIndex + 1, request.getDpi());
+                return baos.toByteArray();
             }
-            
+        }
+    }
+    
+    /**
+     * Computes the SHA-256 of a tile request's PDF file
+     * 
+     * Stored documents already carry their hash; uploads are read once. The
+     * hash can be passed to {@link #tileKey(PdfTileRequest, String)} and
+     * {@link #renderTile(PdfTileRequest, String)} so a request that needs both
+     * does not read the upload twice.
+     * 
+     * @param request The tile request
+     * @return Lower-case hex encoded SHA-256 of the PDF file
+     * @throws IOException If the PDF cannot be read
+     */
+    public String contentHash(PdfTileRequest request) throws IOException {
+        return documentSource.contentHash(request.getPdfFile());
+    }
+    
+    /**
+     * Builds a key identifying a tile's content
+     * 
+     * The key combines the document's SHA-256 with every rendering parameter, so
+     * it only changes when the tile would, which makes it usable as an ETag.
+     * 
+     * @param request The tile request
+     * @return Key of the tile
+     * @throws IOException If the PDF cannot be read
+     */
+    public String tileKey(PdfTileRequest request) throws IOException {
+        return tileKey(request, contentHash(request));
+    }
+    
+    /**
+     * Builds a key identifying a tile's content from the PDF's known SHA-256
+     * 
+     * @param request The tile request
+     * @param sha256 SHA-256 of the PDF file, as returned by {@link #contentHash(PdfTileRequest)}
+     * @return Key of the tile
+     */
+    public String tileKey(PdfTileRequest request, String sha256) {
+        return sha256 + "-p" + request.getPageNumber()
+                + "-" + request.getDpi() + "dpi-" + request.getX() + "," + request.getY()
+                + "-" + request.getWidth() + "x" + request.getHeight()
+                + "." + imageEncoders.variant(request.getImageFormat(), request.getEncoding());
+    }
+    
+    /**
+     * Returns the MIME type ImageIO registers for an image format
+     * 
+     * @param imageFormat Image format name, e.g. PNG
+     * @return The MIME type, e.g. image/png
+     */
+    public static String contentType(String imageFormat) {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(imageFormat);
+        if (writers.hasNext()) {
+            String[] mimeTypes = writers.next().getOriginatingProvider().getMIMETypes();
+            if (mimeTypes != null && mimeTypes.length > 0) {
+                return mimeTypes[0];
+            }
+        }
+        return "application/octet-stream";
+    }
+    
+    /**
+     * Determines which pages to convert
+     * 
+     * @param document The loaded document
+     * @param pageNumber Specific 1-based page to convert, or null for all pages
+     * @return 0-based first and last page
+     */
+    private static int[] pageRange(PDDocument document, Integer pageNumber) {
+        int startPage = 0;
+        int endPage = document.getNumberOfPages() - 1;
+        
+        if (pageNumber != null) {
+            int pageNum = pageNumber - 1; // Convert to 0-based index
+            if (pageNum >= 0 && pageNum < document.getNumberOfPages()) {
+                startPage = pageNum;
+                endPage = pageNum;
+            } else {
+                throw new IllegalArgumentException("Invalid page number: " + (pageNum + 1));
+            }
+        }
+        return new int[] {startPage, endPage};
+    }
+    
+    /**
+     * Size of a page in pixels as PDFRenderer lays it out, with width and height
+     * swapped for rotated pages
+     */
+    private static int[] pixelSize(PDPage page, float scale) {
+        PDRectangle cropBox = page.getCropBox();
+        boolean rotated = page.getRotation() == 90 || page.getRotation() == 270;
+        float widthPt = rotated ? cropBox.getHeight() : cropBox.getWidth();
+        float heightPt = rotated ? cropBox.getWidth() : cropBox.getHeight();
+        return new int[] {
+                (int) Math.max(Math.floor(widthPt * scale), 1),
+                (int) Math.max(Math.floor(heightPt * scale), 1)
+        };
+    }
+    
+    private void renderPage(PDDocument document, int page, int dpi, String imageFormat, ImageEncoding encoding,
+            OutputStream out) throws IOException {
+        // Same output as PDFRenderer.renderImageWithDPI, but drawn into a pooled raster
+        // instead of a freshly allocated one
+        float scale = dpi / 72f;
+        int[] size = pixelSize(document.getPage(page), scale);
+        BufferedImage image = rasterPool.acquire(size[0], size[1], BufferedImage.TYPE_INT_RGB);
+        try {
+            Graphics2D graphics = image.createGraphics();
+            try {
+                graphics.setBackground(Color.WHITE);
+                graphics.clearRect(0, 0, size[0], size[1]);
+                documentSource.renderer(document).renderPageToGraphics(page, graphics, scale);
+            } finally {
+                graphics.dispose();
+            }
+            imageEncoders.encode(image, imageFormat, encoding, out);
+        } finally {
+            rasterPool.release(image);
+        }
+        log.debug("Converted page {} to {} image", page + 1, imageFormat);
+    }
+    
+    private void renderThumbnail(PDDocument document, int page, int maxSize, String imageFormat,
+            ImageType imageType, ImageEncoding encoding, OutputStream out) throws IOException {
+        PDRectangle cropBox = document.getPage(page).getCropBox();
+        // Rotation swaps the edges but not their lengths, so the longer edge fits either way
+        float scale = maxSize / Math.max(cropBox.getWidth(), cropBox.getHeight());
+        
+        PDFRenderer renderer = documentSource.renderer(document);
+        // Draw images from every n-th pixel instead of decoding them at full resolution
+        renderer.setSubsamplingAllowed(true);
+        RenderingHints hints = new RenderingHints(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+        hints.put(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        hints.put(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        renderer.setRenderingHints(hints);
+        
+        BufferedImage image = renderer.renderImage(page, scale, imageType);
+        imageEncoders.encode(image, imageFormat, encoding, out);
+    }
+    
+    /**
+     * Renders and encodes one page
+     */
+    private interface PageEncoder {
+        
+        void encode(PDDocument document, int page, OutputStream out) throws IOException;
+        
+        /**
+         * @return The page already encoded, or null if it has to be rendered
+         */
+        default byte[] lookup(int page) {
+            return null;
+        }
+    }
+    
+    /**
+     * Estimates the admission cost of a render once the document is loaded
+     */
+    private interface RenderCost {
+        
+        long estimate(PDDocument document, int[] pages, int concurrentPages);
+    }
+    
+    /**
+     * Encoder serving pages from a cache and storing the pages it renders
+     */
+    private static class CachingEncoder implements PageEncoder {
+        private final PageEncoder delegate;
+        private final IntFunction<String> keys;
+        private final Function<String, byte[]> cacheLookup;
+        private final BiConsumer<String, byte[]> cacheStore;
+        
+        CachingEncoder(PageEncoder delegate, IntFunction<String> keys, Function<String, byte[]> cacheLookup,
+                BiConsumer<String, byte[]> cacheStore) {
+            this.delegate = delegate;
+            this.keys = keys;
+            this.cacheLookup = cacheLookup;
+            this.cacheStore = cacheStore;
+        }
+        
+        @Override
+        public byte[] lookup(int page) {
+            return cacheLookup.apply(keys.apply(page));
+        }
+        
+        @Override
+        public void encode(PDDocument document, int page, OutputStream out) throws IOException {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            delegate.encode(document, page, baos);
+            byte[] encoded = baos.toByteArray();
+            cacheStore.accept(keys.apply(page), encoded);
+            out.write(encoded);
+        }
+    }
+    
+    /**
+     * Producer rendering and encoding one page at a time
+     */
+    private static class ImageProducer implements PartProducer {
+        private final DocumentCache.Lease lease;
+        private final int startPage;
+        private final int endPage;
+        private final PageEncoder encoder;
+        
+        ImageProducer(DocumentCache.Lease lease, int startPage, int endPage, PageEncoder encoder) {
+            this.lease = lease;
+            this.startPage = startPage;
+            this.endPage = endPage;
+            this.encoder = encoder;
+        }
+        
+        @Override
+        public int getPartCount() {
+            return endPage - startPage + 1;
+        }
+        
+        @Override
+        public void writeTo(PartOutput output) throws IOException {
             // Convert pages to images
             for (int i = startPage; i <= endPage; i++) {
-                BufferedImage image = renderer.renderImageWithDPI(i, request.getDpi(), ImageType.RGB);
-                
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                ImageIO.write(image, request.getImageFormat(), baos);
-                images.add(baos.toByteArray());
-                
-                log.debug("Converted page {} to {} image", i + 1, request.getImageFormat());
+                byte[] encoded = encoder.lookup(i);
+                try (OutputStream out = output.nextPart(i - startPage)) {
+                    if (encoded != null) {
+                        out.write(encoded);
+                    } else {
+                        encoder.encode(lease.getDocument(), i, out);
+                    }
+                }
             }
             
-            log.info("Successfully converted {} pages to images", images.size());
-            return images;
-            
-        } finally {
-            // Clean up the temporary file
-            if (tempFile != null && tempFile.exists()) {
-                tempFile.delete();
-            }
+            log.info("Successfully converted {} pages to images", endPage - startPage + 1);
+        }
+        
+        @Override
+        public void close() {
+            lease.close();
         }
     }
     
     /**
-     * Converts a MultipartFile to a File
+     * Producer rendering up to {@code parallelism} pages at a time on the render pool
      * 
-     * @param multipartFile The MultipartFile to convert
-     * @return A temporary File object
-     * @throws IOException If there's an error during conversion
+     * At most {@code parallelism} pages are in flight, each on its own document, so
+     * documents are created lazily up to that number and reused by later pages.
+     * Results are awaited in page order, which keeps the output ordered and holds
+     * no more than {@code parallelism} encoded images in memory. If writing fails,
+     * e.g. because the client disconnected, queued pages are skipped and only the
+     * pages already being rendered are finished.
      */
-    private File convertMultipartFileToFile(MultipartFile multipartFile) throws IOException {
-        Path tempFile = Files.createTempFile("pdf-", ".pdf");
-        try (FileOutputStream fos = new FileOutputStream(tempFile.toFile())) {
-            fos.write(multipartFile.getBytes());
+    private class ParallelImageProducer implements PartProducer {
+        private final DocumentSource.SharedSource source;
+        private final int startPage;
+        private final int endPage;
+        private final int parallelism;
+        private final PageEncoder encoder;
+        private final Queue<PDDocument> idle = new ConcurrentLinkedQueue<>();
+        private final List<PDDocument> opened = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean aborted;
+        
+        ParallelImageProducer(DocumentSource.SharedSource source, PDDocument first, int startPage, int endPage,
+                int parallelism, PageEncoder encoder) {
+            this.source = source;
+            this.startPage = startPage;
+            this.endPage = endPage;
+            this.parallelism = parallelism;
+            this.encoder = encoder;
+            idle.add(first);
+            opened.add(first);
+        }
+        
+        @Override
+        public int getPartCount() {
+            return endPage - startPage + 1;
+        }
+        
+        @Override
+        public void writeTo(PartOutput output) throws IOException {
+            Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+            int next = startPage;
+            int index = 0;
+            boolean completed = false;
+            try {
+                while (next <= endPage || !inFlight.isEmpty()) {
+                    while (next <= endPage && inFlight.size() < parallelism) {
+                        int page = next++;
+                        inFlight.add(renderPool.submit(() -> render(page)));
+                    }
+                    byte[] image = await(inFlight.poll());
+                    try (OutputStream out = output.nextPart(index++)) {
+                        out.write(image);
+                    }
+                }
+                completed = true;
+            } finally {
+                if (!completed) {
+                    // Nobody will read the remaining pages; let queued tasks return without rendering
+                    aborted = true;
+                }
+                // Workers must be done with the documents before they are closed
+                drain(inFlight);
+            }
+            
+            log.info("Successfully converted {} pages to images with parallelism {}", index, parallelism);
+        }
+        
+        private byte[] render(int page) throws IOException {
+            if (aborted) {
+                throw new CancellationException("Conversion aborted before page " + (page + 1));
+            }
+            byte[] encoded = encoder.lookup(page);
+            if (encoded != null) {
+                return encoded;
+            }
+            PDDocument document = idle.poll();
+            if (document == null) {
+                document = source.load();
+                opened.add(document);
+            }
+            try {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                encoder.encode(document, page, baos);
+                return baos.toByteArray();
+            } finally {
+                idle.add(document);
+            }
+        }
+        
+        private byte[] await(Future<byte[]> future) throws IOException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while rendering");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException io) {
+                    throw io;
+                }
+                if (cause instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw new IOException(cause);
+            }
+        }
+        
+        private void drain(Deque<Future<byte[]>> inFlight) {
+            boolean interrupted = Thread.interrupted();
+            for (Future<byte[]> future : inFlight) {
+                while (true) {
+                    try {
+                        future.get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException | CancellationException e) {
+                        break;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        @Override
+        public void close() {
+            synchronized (opened) {
+                opened.forEach(IOUtils::closeQuietly);
+            }
+            source.close();
         }
-        return tempFile.toFile();
     }
 }
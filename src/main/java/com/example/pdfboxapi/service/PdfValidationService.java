@@ -1,21 +1,17 @@
 package com.example.pdfboxapi.service;
 
 import com.example.pdfboxapi.model.request.PdfValidationRequest;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.RandomAccessRead;
 import org.apache.pdfbox.preflight.PreflightDocument;
 import org.apache.pdfbox.preflight.ValidationResult;
 import org.apache.pdfbox.preflight.exception.SyntaxValidationException;
 import org.apache.pdfbox.preflight.parser.PreflightParser;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,8 +26,13 @@ import java.util.List;
  */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class PdfValidationService {
 
+    private final DocumentSource documentSource;
+    private final Bulkheads bulkheads;
+    private final AdmissionControl admissionControl;
+
     /**
      * Validates a PDF file against PDF/A standards
      * 
@@ -40,13 +41,18 @@ public class PdfValidationService {
      * @throws IOException If there's an error processing the PDF
      */
     public List<String> validatePdf(PdfValidationRequest request) throws IOException {
-        MultipartFile pdfFile = request.getPdfFile();
-        File tempFile = convertMultipartFileToFile(pdfFile);
+        Bulkheads.Permit permit = bulkheads.acquire(Bulkheads.Operation.VALIDATE);
+        AdmissionControl.Ticket ticket = null;
+        RandomAccessRead source = null;
         List<String> validationErrors = new ArrayList<>();
         
         try {
+            ticket = admissionControl.admit(Bulkheads.Operation.VALIDATE,
+                    admissionControl.documentCost(request.getPdfFile()));
+            source = documentSource.open(request.getPdfFile());
+            
             // Create preflight parser
-            PreflightParser parser = new PreflightParser(tempFile);
+            PreflightParser parser = new PreflightParser(source);
             
             // Parse the PDF
             parser.parse(request.getProfile());
@@ -86,25 +92,12 @@ public class PdfValidationService {
             return validationErrors;
             
         } finally {
-            // Clean up the temporary file
-            if (tempFile != null && tempFile.exists()) {
-                tempFile.delete();
+            // Release the source if parsing failed before the document took it over
+            IOUtils.closeQuietly(source);
+            if (ticket != null) {
+                ticket.close();
             }
+            permit.close();
         }
     }
-    
-    /**
-     * Converts a MultipartFile to a File
-     * 
-     * @param multipartFile The MultipartFile to convert
-     * @return A temporary File object
-     * @throws IOException If there's an error during conversion
-     */
-    private File convertMultipartFileToFile(MultipartFile multipartFile) throws IOException {
-        Path tempFile = Files.createTempFile("pdf-", ".pdf");
-        try (FileOutputStream fos = new FileOutputStream(tempFile.toFile())) {
-            fos.write(multipartFile.getBytes());
-        }
-        return tempFile.toFile();
-    }
 }
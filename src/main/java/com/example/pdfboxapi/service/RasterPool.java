@@ -0,0 +1,136 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Bounded pool of reusable rasters for page rendering
+ *
+ * A page rendered at print resolution needs tens of megabytes of raster, which
+ * the JVM allocates outside the young generation (as humongous objects under
+ * G1). Renderers borrow a raster of the page's pixel size from this pool, draw
+ * into it and give it back once the image is encoded, so consecutive pages of
+ * the same size reuse one allocation. Idle rasters are dropped oldest first once
+ * their combined size exceeds the configured maximum.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Component
+public class RasterPool {
+
+    private final long maxWeight;
+
+    // Most recently returned first
+    private final Deque<BufferedImage> idle = new ArrayDeque<>();
+    private long idleWeight;
+
+    private final Counter reused;
+    private final Counter allocated;
+
+    /**
+     * Creates the raster pool and registers its metrics
+     *
+     * @param maxWeight Maximum combined size of idle rasters; 0 disables pooling
+     * @param meterRegistry Registry for the pool metrics
+     */
+    public RasterPool(
+            @Value("${app.render.raster-pool.max-weight:128MB}") DataSize maxWeight,
+            MeterRegistry meterRegistry) {
+        this.maxWeight = maxWeight.toBytes();
+
+        this.reused = Counter.builder("pdfbox.render.rasters.requests").tag("result", "reused")
+                .description("Rasters borrowed for rendering").register(meterRegistry);
+        this.allocated = Counter.builder("pdfbox.render.rasters.requests").tag("result", "allocated")
+                .description("Rasters borrowed for rendering").register(meterRegistry);
+        Gauge.builder("pdfbox.render.rasters.idle.weight", this, RasterPool::getIdleWeight)
+                .description("Combined size of idle pooled rasters")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Borrows a raster, reusing an idle one of the same size and type if there is one
+     *
+     * The raster's previous content is left in place; callers clear it before drawing.
+     *
+     * @param width Width in pixels
+     * @param height Height in pixels
+     * @param imageType BufferedImage type, e.g. {@link BufferedImage#TYPE_INT_RGB}
+     * @return The raster, to be given back with {@link #release}
+     */
+    public BufferedImage acquire(int width, int height, int imageType) {
+        synchronized (this) {
+            Iterator<BufferedImage> it = idle.iterator();
+            while (it.hasNext()) {
+                BufferedImage image = it.next();
+                if (image.getWidth() == width && image.getHeight() == height && image.getType() == imageType) {
+                    it.remove();
+                    idleWeight -= weight(image);
+                    reused.increment();
+                    return image;
+                }
+            }
+        }
+        allocated.increment();
+        return new BufferedImage(width, height, imageType);
+    }
+
+    /**
+     * Gives a raster back to the pool
+     *
+     * The caller must not use the raster afterwards.
+     *
+     * @param image Raster obtained from {@link #acquire}
+     */
+    public void release(BufferedImage image) {
+        long weight = weight(image);
+        if (weight > maxWeight) {
+            return;
+        }
+        synchronized (this) {
+            idle.addFirst(image);
+            idleWeight += weight;
+            while (idleWeight > maxWeight) {
+                idleWeight -= weight(idle.removeLast());
+            }
+        }
+    }
+
+    /**
+     * Drops all idle rasters
+     */
+    public synchronized void clear() {
+        idle.clear();
+        idleWeight = 0;
+    }
+
+    /**
+     * @return Combined size of idle rasters in bytes
+     */
+    public synchronized long getIdleWeight() {
+        return idleWeight;
+    }
+
+    /**
+     * @return Number of idle rasters
+     */
+    public synchronized int size() {
+        return idle.size();
+    }
+
+    private static long weight(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+}
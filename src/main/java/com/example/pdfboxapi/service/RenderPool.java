@@ -0,0 +1,26 @@
+package com.example.pdfboxapi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Component holding the worker pool used by parallel page rendering
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Component
+public class RenderPool extends WorkerPool {
+
+    /**
+     * Creates the render pool
+     *
+     * @param threads Number of worker threads; 0 or less uses the number of cores
+     * @param defaultParallelism Degree of parallelism for requests that don't specify one
+     */
+    public RenderPool(
+            @Value("${app.render.threads:0}") int threads,
+            @Value("${app.render.parallelism:4}") int defaultParallelism) {
+        super("render", threads, defaultParallelism);
+    }
+}
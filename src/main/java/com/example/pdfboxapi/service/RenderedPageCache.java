@@ -0,0 +1,350 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Two-tier cache of encoded page images
+ *
+ * Pages are keyed by the SHA-256 of the document, the page and every option
+ * that affects the encoded bytes. The memory tier is a weighted LRU; pages it
+ * evicts overflow to a disk tier under a configurable directory, which has its
+ * own size cap (also LRU) and a TTL counted from when the page was written.
+ * A disk hit is promoted back to memory. The disk tier survives a restart.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Component
+@Slf4j
+public class RenderedPageCache {
+
+    private static final String EXTENSION = ".img";
+
+    private final long memoryMaxWeight;
+    private final Path diskDir;
+    private final long diskMaxWeight;
+    private final long diskTtlMillis;
+
+    // Access order, so iteration starts at the least recently used page
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryWeight;
+
+    private final LinkedHashMap<String, DiskEntry> disk = new LinkedHashMap<>(64, 0.75f, true);
+    private long diskWeight;
+
+    private final Counter memoryHits;
+    private final Counter memoryMisses;
+    private final Counter diskHits;
+    private final Counter diskMisses;
+    private final Counter memoryEvictions;
+    private final Counter diskEvictions;
+
+    /**
+     * Creates the page cache and registers its metrics
+     *
+     * @param memoryMaxWeight Maximum combined size of pages held in memory; 0 disables the memory tier
+     * @param diskDir Directory of the disk tier
+     * @param diskMaxWeight Maximum combined size of pages held on disk; 0 disables the disk tier
+     * @param diskTtl Time a page stays on disk after it was written
+     * @param meterRegistry Registry for the cache metrics
+     */
+    public RenderedPageCache(
+            @Value("${app.cache.pages.memory.max-weight:64MB}") DataSize memoryMaxWeight,
+            @Value("${app.cache.pages.disk.dir:temp-files/page-cache}") String diskDir,
+            @Value("${app.cache.pages.disk.max-weight:1GB}") DataSize diskMaxWeight,
+            @Value("${app.cache.pages.disk.ttl:24h}") Duration diskTtl,
+            MeterRegistry meterRegistry) {
+        this.memoryMaxWeight = memoryMaxWeight.toBytes();
+        this.diskDir = Paths.get(diskDir).toAbsolutePath();
+        this.diskMaxWeight = diskMaxWeight.toBytes();
+        this.diskTtlMillis = diskTtl.toMillis();
+
+        this.memoryHits = requests(meterRegistry, "memory", "hit");
+        this.memoryMisses = requests(meterRegistry, "memory", "miss");
+        this.diskHits = requests(meterRegistry, "disk", "hit");
+        this.diskMisses = requests(meterRegistry, "disk", "miss");
+        this.memoryEvictions = evictions(meterRegistry, "memory");
+        this.diskEvictions = evictions(meterRegistry, "disk");
+        Gauge.builder("pdfbox.cache.pages.weight", this, RenderedPageCache::getMemoryWeight)
+                .tag("tier", "memory")
+                .description("Combined size of cached page images")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("pdfbox.cache.pages.weight", this, RenderedPageCache::getDiskWeight)
+                .tag("tier", "disk")
+                .description("Combined size of cached page images")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("pdfbox.cache.pages.size", this, RenderedPageCache::memorySize)
+                .tag("tier", "memory")
+                .description("Number of cached page images")
+                .register(meterRegistry);
+        Gauge.builder("pdfbox.cache.pages.size", this, RenderedPageCache::diskSize)
+                .tag("tier", "disk")
+                .description("Number of cached page images")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the key of an encoded page
+     *
+     * @param sha256 SHA-256 of the document
+     * @param page 0-based page index
+     * @param dpi Resolution of the render
+     * @param imageType Raster type of the render, e.g. rgb
+     * @param format Encoding of the image, including any encoder options
+     * @return Key usable as a file name
+     */
+    public static String key(String sha256, int page, int dpi, String imageType, String format) {
+        return sha256 + "_" + page + "_" + dpi + "_" + imageType.toLowerCase() + "_"
+                + format.toLowerCase().replaceAll("[^a-z0-9]", "-");
+    }
+
+    /**
+     * Registers pages written to disk before a restart and removes expired ones
+     *
+     * @throws IOException If the cache directory cannot be read
+     */
+    @PostConstruct
+    public void recover() throws IOException {
+        if (diskMaxWeight <= 0) {
+            return;
+        }
+        Files.createDirectories(diskDir);
+        long now = System.currentTimeMillis();
+        List<Path> expired = new ArrayList<>();
+        synchronized (this) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(diskDir, "*" + EXTENSION)) {
+                for (Path file : files) {
+                    long writtenAt = Files.getLastModifiedTime(file).toMillis();
+                    if (writtenAt + diskTtlMillis <= now) {
+                        expired.add(file);
+                        continue;
+                    }
+                    String key = file.getFileName().toString().replace(EXTENSION, "");
+                    long size = Files.size(file);
+                    disk.put(key, new DiskEntry(file, size, writtenAt + diskTtlMillis));
+                    diskWeight += size;
+                }
+            }
+            expired.addAll(trimDisk());
+        }
+        deleteAll(expired);
+        if (!disk.isEmpty()) {
+            log.info("Recovered {} cached pages ({} bytes) from disk", disk.size(), diskWeight);
+        }
+    }
+
+    /**
+     * Looks up a page, first in memory, then on disk
+     *
+     * @param key Key built by {@link #key}
+     * @return The encoded page, or null on a miss
+     */
+    public byte[] get(String key) {
+        DiskEntry onDisk;
+        synchronized (this) {
+            byte[] image = memory.get(key);
+            if (image != null) {
+                memoryHits.increment();
+                return image;
+            }
+            memoryMisses.increment();
+            onDisk = disk.get(key);
+        }
+        if (onDisk == null || onDisk.expiresAt <= System.currentTimeMillis()) {
+            diskMisses.increment();
+            return null;
+        }
+
+        byte[] image;
+        try {
+            image = Files.readAllBytes(onDisk.path);
+        } catch (IOException e) {
+            // Removed by a concurrent eviction or from outside
+            log.debug("Could not read cached page {}", key, e);
+            diskMisses.increment();
+            return null;
+        }
+        diskHits.increment();
+        putInMemory(key, image);
+        return image;
+    }
+
+    /**
+     * Adds a page to the memory tier; pages it evicts overflow to disk
+     *
+     * @param key Key built by {@link #key}
+     * @param image The encoded page
+     */
+    public void put(String key, byte[] image) {
+        putInMemory(key, image);
+    }
+
+    /**
+     * Removes pages whose disk TTL has passed
+     */
+    @Scheduled(fixedDelayString = "${app.cache.pages.disk.sweep-interval:5m}")
+    public void evictExpired() {
+        List<Path> expired = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Iterator<DiskEntry> it = disk.values().iterator();
+            while (it.hasNext()) {
+                DiskEntry entry = it.next();
+                if (entry.expiresAt <= now) {
+                    it.remove();
+                    diskWeight -= entry.size;
+                    diskEvictions.increment();
+                    expired.add(entry.path);
+                }
+            }
+        }
+        deleteAll(expired);
+    }
+
+    /**
+     * @return Combined size of pages held in memory in bytes
+     */
+    public synchronized long getMemoryWeight() {
+        return memoryWeight;
+    }
+
+    /**
+     * @return Combined size of pages held on disk in bytes
+     */
+    public synchronized long getDiskWeight() {
+        return diskWeight;
+    }
+
+    /**
+     * @return Number of pages held in memory
+     */
+    public synchronized int memorySize() {
+        return memory.size();
+    }
+
+    /**
+     * @return Number of pages held on disk
+     */
+    public synchronized int diskSize() {
+        return disk.size();
+    }
+
+    private void putInMemory(String key, byte[] image) {
+        List<Map.Entry<String, byte[]>> overflow = new ArrayList<>();
+        synchronized (this) {
+            if (image.length > memoryMaxWeight) {
+                overflow.add(Map.entry(key, image));
+            } else {
+                byte[] previous = memory.put(key, image);
+                memoryWeight += image.length - (previous != null ? previous.length : 0);
+                Iterator<Map.Entry<String, byte[]>> it = memory.entrySet().iterator();
+                while (memoryWeight > memoryMaxWeight && it.hasNext()) {
+                    Map.Entry<String, byte[]> eldest = it.next();
+                    it.remove();
+                    memoryWeight -= eldest.getValue().length;
+                    memoryEvictions.increment();
+                    overflow.add(eldest);
+                }
+            }
+        }
+        for (Map.Entry<String, byte[]> entry : overflow) {
+            writeToDisk(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void writeToDisk(String key, byte[] image) {
+        if (image.length > diskMaxWeight) {
+            return;
+        }
+        synchronized (this) {
+            DiskEntry existing = disk.get(key);
+            if (existing != null && existing.expiresAt > System.currentTimeMillis()) {
+                // Promoted from disk earlier; the file is still there
+                return;
+            }
+        }
+
+        Path target = diskDir.resolve(key + EXTENSION);
+        try {
+            Files.createDirectories(diskDir);
+            Path temp = Files.createTempFile(diskDir, "page-", ".tmp");
+            try {
+                Files.write(temp, image);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.warn("Could not write page {} to the disk cache", key, e);
+            return;
+        }
+
+        List<Path> evicted;
+        synchronized (this) {
+            DiskEntry previous = disk.put(key,
+                    new DiskEntry(target, image.length, System.currentTimeMillis() + diskTtlMillis));
+            diskWeight += image.length - (previous != null ? previous.size : 0);
+            evicted = trimDisk();
+        }
+        deleteAll(evicted);
+    }
+
+    private List<Path> trimDisk() {
+        List<Path> evicted = new ArrayList<>();
+        Iterator<DiskEntry> it = disk.values().iterator();
+        while (diskWeight > diskMaxWeight && it.hasNext()) {
+            DiskEntry eldest = it.next();
+            it.remove();
+            diskWeight -= eldest.size;
+            diskEvictions.increment();
+            evicted.add(eldest.path);
+        }
+        return evicted;
+    }
+
+    private static void deleteAll(List<Path> files) {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete cached page {}", file, e);
+            }
+        }
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("pdfbox.cache.pages.requests").tag("tier", tier).tag("result", result)
+                .description("Rendered page cache lookups").register(meterRegistry);
+    }
+
+    private static Counter evictions(MeterRegistry meterRegistry, String tier) {
+        return Counter.builder("pdfbox.cache.pages.evictions").tag("tier", tier)
+                .description("Rendered pages evicted for size or TTL").register(meterRegistry);
+    }
+
+    private record DiskEntry(Path path, long size, long expiresAt) {
+    }
+}
@@ -0,0 +1,487 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.filter.DecodeOptions;
+import org.apache.pdfbox.pdmodel.DefaultResourceCache;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.ResourceCache;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImage;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.PageDrawer;
+import org.apache.pdfbox.rendering.PageDrawerParameters;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Cache of decoded images shared by all documents the services load
+ *
+ * Pages rendered with a {@link #renderer(PDDocument)} draw image XObjects
+ * through this cache, so decoded images are shared across documents. Every
+ * document gets its own {@link ResourceCache} from {@link #forDocument()},
+ * which keeps PDFBox's per-document caching of fonts, color spaces and other
+ * resources and remembers the key of each image. An image is keyed by a
+ * SHA-256 over its raw stream and its dictionary, including the streams the
+ * dictionary refers to (soft mask, ICC profile), so the same logo embedded in
+ * thousands of statements is decoded once. Decoded images are evicted
+ * least-recently-used once their combined raster size exceeds the configured
+ * maximum.
+ *
+ * Fonts are not shared across documents: a PDFont reads its widths and
+ * encoding lazily from its own document, which may be closed by then, and
+ * keeps unsynchronized lookup tables that parallel renders would race on.
+ * They stay in the per-document cache, where they are parsed once per document.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Component
+@Slf4j
+public class SharedResourceCache {
+
+    private final long maxWeight;
+
+    // Access order, so iteration starts at the least recently used image
+    private final LinkedHashMap<String, BufferedImage> images = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalWeight;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    /**
+     * Creates the resource cache and registers its metrics
+     *
+     * @param maxWeight Maximum combined raster size of cached images; 0 disables sharing
+     * @param meterRegistry Registry for the cache metrics
+     */
+    public SharedResourceCache(
+            @Value("${app.cache.resources.max-weight:128MB}") DataSize maxWeight,
+            MeterRegistry meterRegistry) {
+        this.maxWeight = maxWeight.toBytes();
+
+        this.hits = Counter.builder("pdfbox.cache.resources.requests").tag("result", "hit")
+                .description("Decoded image cache lookups").register(meterRegistry);
+        this.misses = Counter.builder("pdfbox.cache.resources.requests").tag("result", "miss")
+                .description("Decoded image cache lookups").register(meterRegistry);
+        this.evictions = Counter.builder("pdfbox.cache.resources.evictions")
+                .description("Decoded images evicted for size").register(meterRegistry);
+        Gauge.builder("pdfbox.cache.resources.weight", this, SharedResourceCache::getWeight)
+                .description("Combined raster size of cached images")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("pdfbox.cache.resources.size", this, SharedResourceCache::size)
+                .description("Number of cached images")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates the resource cache to install on a newly loaded document
+     *
+     * @return A cache for one document, remembering the keys of its images
+     */
+    public ResourceCache forDocument() {
+        return maxWeight > 0 ? new DocumentResourceCache() : new DefaultResourceCache();
+    }
+
+    /**
+     * Creates a renderer for a document that draws shareable images through this cache
+     *
+     * @param document The document to render
+     * @return A renderer for the document
+     */
+    public PDFRenderer renderer(PDDocument document) {
+        return maxWeight > 0 ? new SharedImageRenderer(document) : new PDFRenderer(document);
+    }
+
+    /**
+     * Looks up a decoded image
+     *
+     * @param key Key of the image
+     * @return The decoded image, or null on a miss
+     */
+    BufferedImage get(String key) {
+        BufferedImage image;
+        synchronized (this) {
+            image = images.get(key);
+        }
+        (image != null ? hits : misses).increment();
+        return image;
+    }
+
+    /**
+     * Adds a decoded image, evicting the least recently used ones to make room
+     *
+     * @param key Key of the image
+     * @param image The decoded image; must not be modified afterwards
+     */
+    void put(String key, BufferedImage image) {
+        long weight = weight(image);
+        if (weight > maxWeight) {
+            return;
+        }
+        synchronized (this) {
+            BufferedImage previous = images.put(key, image);
+            totalWeight += weight - (previous != null ? weight(previous) : 0);
+            Iterator<Map.Entry<String, BufferedImage>> it = images.entrySet().iterator();
+            while (totalWeight > maxWeight && it.hasNext()) {
+                totalWeight -= weight(it.next().getValue());
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Removes all images
+     */
+    public synchronized void clear() {
+        images.clear();
+        totalWeight = 0;
+    }
+
+    /**
+     * @return Combined raster size of cached images in bytes
+     */
+    public synchronized long getWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * @return Number of cached images
+     */
+    public synchronized int size() {
+        return images.size();
+    }
+
+    private static long weight(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+
+    /**
+     * Builds the content key of an image XObject
+     *
+     * @param stream The image stream
+     * @return Hex encoded SHA-256, or null if the image cannot be shared
+     * @throws IOException If the stream cannot be read
+     */
+    static String imageKey(COSStream stream) throws IOException {
+        if (!COSName.IMAGE.equals(stream.getCOSName(COSName.SUBTYPE))
+                || stream.getBoolean(COSName.IMAGE_MASK, false)) {
+            // Stencil masks are painted with the current fill color, not drawn as decoded
+            return null;
+        }
+        COSBase colorSpace = stream.getDictionaryObject(COSName.COLORSPACE);
+        if (colorSpace instanceof COSName name && !COSName.DEVICERGB.equals(name)
+                && !COSName.DEVICEGRAY.equals(name) && !COSName.DEVICECMYK.equals(name)) {
+            // Named color spaces resolve through the page resources, which differ between documents
+            return null;
+        }
+        if (new PDStream(stream).getFilters().contains(COSName.JPX_DECODE)) {
+            // JPEG 2000 images are decoded when the XObject is created, so there is nothing to save
+            return null;
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        update(digest, stream, Collections.newSetFromMap(new IdentityHashMap<>()));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, COSBase base, Set<COSBase> visited) throws IOException {
+        if (base instanceof COSObject object) {
+            base = object.getObject();
+        }
+        if (base == null) {
+            digest.update((byte) 'n');
+            return;
+        }
+        if (!visited.add(base)) {
+            // Reference cycle, e.g. a back pointer to a parent dictionary
+            digest.update((byte) 'r');
+            return;
+        }
+        if (base instanceof COSDictionary dictionary) {
+            digest.update((byte) '<');
+            List<COSName> keys = new ArrayList<>(dictionary.keySet());
+            keys.sort(null);
+            for (COSName key : keys) {
+                if (COSName.LENGTH.equals(key) || COSName.METADATA.equals(key)) {
+                    // The length follows from the content and metadata does not change the pixels
+                    continue;
+                }
+                digest.update(key.getName().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '=');
+                update(digest, dictionary.getItem(key), visited);
+            }
+            digest.update((byte) '>');
+            if (dictionary instanceof COSStream stream) {
+                try (InputStream in = stream.createRawInputStream()) {
+                    byte[] buffer = new byte[8192];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+            }
+        } else if (base instanceof COSArray array) {
+            digest.update((byte) '[');
+            for (int i = 0; i < array.size(); i++) {
+                update(digest, array.get(i), visited);
+                digest.update((byte) ',');
+            }
+            digest.update((byte) ']');
+        } else {
+            digest.update(base.getClass().getSimpleName().getBytes(StandardCharsets.UTF_8));
+            digest.update(base.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Resource cache of one document
+     *
+     * Keeps PDFBox's default caching and remembers the content key of each
+     * image stream, so an image drawn on many pages is hashed once per document.
+     */
+    private static class DocumentResourceCache extends DefaultResourceCache {
+        // Empty for images that cannot be shared
+        private final Map<COSStream, String> imageKeys = Collections.synchronizedMap(new IdentityHashMap<>());
+
+        String imageKey(COSStream stream) throws IOException {
+            String key = imageKeys.get(stream);
+            if (key == null) {
+                key = Objects.requireNonNullElse(SharedResourceCache.imageKey(stream), "");
+                imageKeys.put(stream, key);
+            }
+            return key.isEmpty() ? null : key;
+        }
+    }
+
+    /**
+     * Renderer whose pages draw image XObjects through the shared cache
+     */
+    private class SharedImageRenderer extends PDFRenderer {
+        private final PDDocument document;
+
+        SharedImageRenderer(PDDocument document) {
+            super(document);
+            this.document = document;
+        }
+
+        @Override
+        protected PageDrawer createPageDrawer(PageDrawerParameters parameters) throws IOException {
+            return new PageDrawer(parameters) {
+                @Override
+                public void drawImage(PDImage pdImage) throws IOException {
+                    super.drawImage(shared(pdImage));
+                }
+            };
+        }
+
+        private PDImage shared(PDImage pdImage) {
+            // Images in optional content stay as they are, so PageDrawer can still hide them
+            if (!(pdImage instanceof PDImageXObject image) || image.getOptionalContent() != null) {
+                return pdImage;
+            }
+            try {
+                String key = document.getResourceCache() instanceof DocumentResourceCache cache
+                        ? cache.imageKey(image.getCOSObject())
+                        : imageKey(image.getCOSObject());
+                return key != null ? new SharedImage(image, key) : pdImage;
+            } catch (IOException e) {
+                // Draw the image as usual
+                log.debug("Image cannot be shared", e);
+                return pdImage;
+            }
+        }
+    }
+
+    /**
+     * Image XObject whose full decoded images come from the shared cache
+     *
+     * Only whole images are shared, keyed by subsampling so thumbnails reuse
+     * their reduced decodes too; region reads and everything else go to the
+     * wrapped XObject.
+     */
+    private class SharedImage implements PDImage {
+        private final PDImageXObject image;
+        private final String key;
+
+        SharedImage(PDImageXObject image, String key) {
+            this.image = image;
+            this.key = key;
+        }
+
+        @Override
+        public BufferedImage getImage() throws IOException {
+            return getImage(null, 1);
+        }
+
+        @Override
+        public BufferedImage getImage(Rectangle region, int subsampling) throws IOException {
+            if (region != null) {
+                return image.getImage(region, subsampling);
+            }
+            String subsampledKey = key + "/" + subsampling;
+            BufferedImage decoded = get(subsampledKey);
+            if (decoded == null) {
+                decoded = image.getImage(null, subsampling);
+                put(subsampledKey, decoded);
+            }
+            return decoded;
+        }
+
+        @Override
+        public WritableRaster getRawRaster() throws IOException {
+            return image.getRawRaster();
+        }
+
+        @Override
+        public BufferedImage getRawImage() throws IOException {
+            return image.getRawImage();
+        }
+
+        @Override
+        public BufferedImage getStencilImage(Paint paint) throws IOException {
+            return image.getStencilImage(paint);
+        }
+
+        @Override
+        public InputStream createInputStream() throws IOException {
+            return image.createInputStream();
+        }
+
+        @Override
+        public InputStream createInputStream(List<String> stopFilters) throws IOException {
+            return image.createInputStream(stopFilters);
+        }
+
+        @Override
+        public InputStream createInputStream(DecodeOptions options) throws IOException {
+            return image.createInputStream(options);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return image.isEmpty();
+        }
+
+        @Override
+        public boolean isStencil() {
+            return image.isStencil();
+        }
+
+        @Override
+        public void setStencil(boolean isStencil) {
+            image.setStencil(isStencil);
+        }
+
+        @Override
+        public int getBitsPerComponent() {
+            return image.getBitsPerComponent();
+        }
+
+        @Override
+        public void setBitsPerComponent(int bitsPerComponent) {
+            image.setBitsPerComponent(bitsPerComponent);
+        }
+
+        @Override
+        public PDColorSpace getColorSpace() throws IOException {
+            return image.getColorSpace();
+        }
+
+        @Override
+        public void setColorSpace(PDColorSpace colorSpace) {
+            image.setColorSpace(colorSpace);
+        }
+
+        @Override
+        public int getHeight() {
+            return image.getHeight();
+        }
+
+        @Override
+        public void setHeight(int height) {
+            image.setHeight(height);
+        }
+
+        @Override
+        public int getWidth() {
+            return image.getWidth();
+        }
+
+        @Override
+        public void setWidth(int width) {
+            image.setWidth(width);
+        }
+
+        @Override
+        public void setDecode(COSArray decode) {
+            image.setDecode(decode);
+        }
+
+        @Override
+        public COSArray getDecode() {
+            return image.getDecode();
+        }
+
+        @Override
+        public boolean getInterpolate() {
+            return image.getInterpolate();
+        }
+
+        @Override
+        public void setInterpolate(boolean value) {
+            image.setInterpolate(value);
+        }
+
+        @Override
+        public String getSuffix() {
+            return image.getSuffix();
+        }
+
+        @Override
+        public COSDictionary getCOSObject() {
+            return image.getCOSObject();
+        }
+    }
+}
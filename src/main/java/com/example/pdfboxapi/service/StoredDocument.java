@@ -0,0 +1,121 @@
+package com.example.pdfboxapi.service;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+
+/**
+ * A PDF held in the {@link DocumentStore}
+ *
+ * Implements MultipartFile so a stored document can be passed to every service
+ * in place of an upload. {@link DocumentSource} recognises it and reads the
+ * stored file directly instead of spooling a copy.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+public class StoredDocument implements MultipartFile {
+
+    private final String id;
+    private final Path path;
+    private final String originalFilename;
+    private final long size;
+    private final String sha256;
+    private final Instant expiresAt;
+
+    StoredDocument(String id, Path path, String originalFilename, long size, String sha256, Instant expiresAt) {
+        this.id = id;
+        this.path = path;
+        this.originalFilename = originalFilename;
+        this.size = size;
+        this.sha256 = sha256;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @return Identifier of the stored document
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return Location of the stored file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return SHA-256 of the stored content, lower-case hex
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * @return Time after which the document is removed
+     */
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    @Override
+    public String getName() {
+        return "pdfFile";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/pdf";
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public Resource getResource() {
+        return new FileSystemResource(path);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        transferTo(dest.toPath());
+    }
+
+    @Override
+    public void transferTo(Path dest) throws IOException {
+        // Copy rather than move: the stored document outlives a single operation
+        Files.copy(path, dest, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.pdfboxapi.service;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A validated batch text extraction whose results are produced on demand
+ *
+ * Documents are extracted concurrently and each result is passed to the
+ * output as soon as its document is done, so results arrive in completion
+ * order rather than upload order. A document that cannot be read produces a
+ * failed result and does not stop the others. The producer holds the batch's
+ * admission ticket and bulkhead permit until it is closed.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+public interface TextBatchProducer extends AutoCloseable {
+
+    /**
+     * Extracts every document, passing each result to the output on the calling thread
+     *
+     * @param output Destination of the results
+     * @throws IOException If a result cannot be written
+     */
+    void writeResults(ResultOutput output) throws IOException;
+
+    /**
+     * Releases the resources held by the batch
+     */
+    @Override
+    void close();
+
+    /**
+     * Destination for the result of one document at a time
+     */
+    @FunctionalInterface
+    interface ResultOutput {
+
+        /**
+         * Receives the result of a document
+         *
+         * @param result Text or failure of the document
+         * @throws IOException If the result cannot be written
+         */
+        void result(Result result) throws IOException;
+    }
+
+    /**
+     * Outcome of extracting one document
+     *
+     * @param index 0-based position of the document in the request
+     * @param filename Original file name of the document
+     * @param pages Text of each page in page order, or null if extraction failed
+     * @param error Reason extraction failed, or null if it succeeded
+     */
+    record Result(int index, String filename, List<String> pages, String error) {
+
+        public boolean failed() {
+            return error != null;
+        }
+    }
+}
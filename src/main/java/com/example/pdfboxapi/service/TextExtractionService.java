@@ -1,19 +1,37 @@
 package com.example.pdfboxapi.service;
 
+import com.example.pdfboxapi.model.request.TextBatchRequest;
 import com.example.pdfboxapi.model.request.TextExtractionRequest;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.pdfbox.text.PDFTextStripperByArea;
+import org.apache.pdfbox.text.TextPosition;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Service for text extraction operations using PDFBox
@@ -26,23 +44,50 @@ import java.nio.file.Path;
  */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class TextExtractionService {
 
+    /**
+     * Fewest pages given to one worker; smaller chunks cost more in document loads than they save
+     */
+    static final int MIN_CHUNK_PAGES = 8;
+
+    /**
+     * Chunks per worker, so a worker that finishes early picks up more pages
+     */
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private final DocumentCache documentCache;
+    private final DocumentSource documentSource;
+    private final TextPool textPool;
+    private final Bulkheads bulkheads;
+    private final AdmissionControl admissionControl;
+
     /**
      * Extracts text from a PDF file
      * 
+     * When the request sets a parallelism above 1 and no single page, the page
+     * range is split into chunks extracted concurrently on the text worker
+     * pool, each worker with its own document. The chunks are concatenated in
+     * page order, which gives the same text as a single pass because
+     * PDFTextStripper writes every page independently.
+     * 
      * @param request The text extraction request containing the PDF file and extraction options
      * @return Extracted text content
      * @throws IOException If there's an error processing the PDF
      */
     public String extractText(TextExtractionRequest request) throws IOException {
-        MultipartFile pdfFile = request.getPdfFile();
-        File tempFile = convertMultipartFileToFile(pdfFile);
+        if (request.getPageNumber() == null && request.getParallelism() != null
+                && textPool.parallelism(request.getParallelism(), Integer.MAX_VALUE) > 1) {
+            return extractTextParallel(request);
+        }
         
-        try (PDDocument document = Loader.loadPDF(tempFile)) {
-            PDFTextStripper textStripper = request.isMaintainPositioning() 
-                ? new PDFTextStripperByArea() 
-                : new PDFTextStripper();
+        try (Bulkheads.Permit permit = bulkheads.acquire(Bulkheads.Operation.TEXT);
+             AdmissionControl.Ticket ticket = admissionControl.admit(Bulkheads.Operation.TEXT,
+                     admissionControl.documentCost(request.getPdfFile()));
+             DocumentCache.Lease lease = documentCache.checkout(request.getPdfFile())) {
+            PDDocument document = lease.getDocument();
+            PDFTextStripper textStripper = newStripper(request);
             
             // If a specific page is requested, set the page range
             if (request.getPageNumber() != null) {
@@ -59,26 +104,420 @@ public class TextExtractionService {
             String text = textStripper.getText(document);
             log.info("Successfully extracted text from PDF with {} pages", document.getNumberOfPages());
             return text;
-        } finally {
-            // Clean up the temporary file
-            if (tempFile != null && tempFile.exists()) {
-                tempFile.delete();
+        }
+    }
+    
+    /**
+     * Loads the PDF and validates the request without extracting anything yet
+     * 
+     * The returned producer runs PDFTextStripper straight into the caller's
+     * writer and flushes after every page, so the first page is sent while the
+     * rest are still being extracted and memory does not grow with the
+     * document. The admission ticket, bulkhead permit and document are held
+     * until the producer is closed.
+     * 
+     * @param request The text extraction request containing the PDF file and extraction options
+     * @return Producer writing the text page by page
+     * @throws IOException If the PDF cannot be loaded
+     */
+    public TextProducer prepareTextStream(TextExtractionRequest request) throws IOException {
+        Bulkheads.Permit permit = bulkheads.acquire(Bulkheads.Operation.TEXT);
+        AdmissionControl.Ticket ticket = null;
+        DocumentCache.Lease lease = null;
+        try {
+            ticket = admissionControl.admit(Bulkheads.Operation.TEXT,
+                    admissionControl.documentCost(request.getPdfFile()));
+            lease = documentCache.checkout(request.getPdfFile());
+            int[] pages = pageRange(lease.getDocument(), request.getPageNumber());
+            return new StreamingText(ticket, permit, lease, pages[0], pages[1]);
+        } catch (IOException | RuntimeException e) {
+            if (lease != null) {
+                lease.close();
+            }
+            if (ticket != null) {
+                ticket.close();
             }
+            permit.close();
+            throw e;
         }
     }
     
     /**
-     * Converts a MultipartFile to a File
+     * Checks a batch request and admits it without extracting anything yet
      * 
-     * @param multipartFile The MultipartFile to convert
-     * @return A temporary File object
-     * @throws IOException If there's an error during conversion
+     * The returned producer extracts the documents concurrently on the
+     * text worker pool, each worker loading its own document, and hands results to
+     * the caller as documents finish. Only as many documents as there are
+     * workers are parsed at a time, so the batch is admitted for the cost of
+     * its largest documents rather than all of them. The whole batch holds one
+     * bulkhead permit.
+     * 
+     * @param request The batch request containing the PDF files and extraction options
+     * @return Producer of one result per document
      */
-    private File convertMultipartFileToFile(MultipartFile multipartFile) throws IOException {
-        Path tempFile = Files.createTempFile("pdf-", ".pdf");
-        try (FileOutputStream fos = new FileOutputStream(tempFile.toFile())) {
-            fos.write(multipartFile.getBytes());
+    public TextBatchProducer prepareBatch(TextBatchRequest request) {
+        MultipartFile[] files = request.getPdfFiles();
+        if (files == null || files.length == 0) {
+            throw new IllegalArgumentException("At least one PDF file is required");
+        }
+        int workers = textPool.parallelism(request.getParallelism(), files.length);
+        MultipartFile[] largest = Arrays.stream(files)
+                .sorted(Comparator.comparingLong(MultipartFile::getSize).reversed())
+                .limit(workers)
+                .toArray(MultipartFile[]::new);
+        
+        Bulkheads.Permit permit = bulkheads.acquire(Bulkheads.Operation.TEXT);
+        try {
+            AdmissionControl.Ticket ticket = admissionControl.admit(Bulkheads.Operation.TEXT,
+                    admissionControl.documentCost(largest));
+            return new BatchText(request, workers, ticket, permit);
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Determines which pages to extract
+     * 
+     * @param document The loaded document
+     * @param pageNumber Specific 1-based page to extract, or null for all pages
+     * @return 1-based first and last page
+     */
+    private static int[] pageRange(PDDocument document, Integer pageNumber) {
+        if (pageNumber == null) {
+            return new int[] {1, document.getNumberOfPages()};
+        }
+        if (pageNumber > 0 && pageNumber <= document.getNumberOfPages()) {
+            return new int[] {pageNumber, pageNumber};
+        }
+        throw new IllegalArgumentException("Invalid page number: " + pageNumber);
+    }
+    
+    private String extractTextParallel(TextExtractionRequest request) throws IOException {
+        // Every worker parses its own copy of the document
+        int parallelism = textPool.parallelism(request.getParallelism(), Integer.MAX_VALUE);
+        try (Bulkheads.Permit permit = bulkheads.acquire(Bulkheads.Operation.TEXT);
+             AdmissionControl.Ticket ticket = admissionControl.admit(Bulkheads.Operation.TEXT,
+                     admissionControl.documentCost(request.getPdfFile()) * parallelism);
+             DocumentSource.SharedSource source = documentSource.share(request.getPdfFile())) {
+            Queue<PDDocument> idle = new ConcurrentLinkedQueue<>();
+            List<PDDocument> opened = Collections.synchronizedList(new ArrayList<>());
+            try {
+                PDDocument first = source.load();
+                opened.add(first);
+                idle.add(first);
+                
+                int pageCount = first.getNumberOfPages();
+                int workers = textPool.parallelism(request.getParallelism(), pageCount);
+                int chunkPages = Math.max(MIN_CHUNK_PAGES,
+                        (pageCount + workers * CHUNKS_PER_WORKER - 1) / (workers * CHUNKS_PER_WORKER));
+                
+                StringBuilder text = new StringBuilder();
+                Deque<Future<String>> inFlight = new ArrayDeque<>();
+                AtomicBoolean aborted = new AtomicBoolean();
+                int next = 1;
+                try {
+                    while (next <= pageCount || !inFlight.isEmpty()) {
+                        while (next <= pageCount && inFlight.size() < workers) {
+                            int startPage = next;
+                            int endPage = Math.min(pageCount, startPage + chunkPages - 1);
+                            next = endPage + 1;
+                            inFlight.add(textPool.submit(() -> aborted.get() ? null
+                                    : extractChunk(request, source, idle, opened, startPage, endPage)));
+                        }
+                        text.append(await(inFlight.poll()));
+                    }
+                } finally {
+                    // After a failure, queued chunks return without extracting; workers must be done
+                    // with the documents before they are closed
+                    aborted.set(true);
+                    drain(inFlight);
+                }
+                
+                log.info("Successfully extracted text from PDF with {} pages using {} workers", pageCount, workers);
+                return text.toString();
+            } finally {
+                synchronized (opened) {
+                    opened.forEach(IOUtils::closeQuietly);
+                }
+            }
+        }
+    }
+    
+    private static String extractChunk(TextExtractionRequest request, DocumentSource.SharedSource source,
+            Queue<PDDocument> idle, List<PDDocument> opened, int startPage, int endPage) throws IOException {
+        PDDocument document = idle.poll();
+        if (document == null) {
+            document = source.load();
+            opened.add(document);
+        }
+        try {
+            PDFTextStripper textStripper = newStripper(request);
+            textStripper.setStartPage(startPage);
+            textStripper.setEndPage(endPage);
+            return textStripper.getText(document);
+        } finally {
+            idle.add(document);
+        }
+    }
+    
+    private static PDFTextStripper newStripper(TextExtractionRequest request) {
+        PDFTextStripper textStripper = new PDFTextStripper();
+        // Orders text by its position on the page rather than by content stream order;
+        // glyph coordinates themselves are available from prepareTextStream
+        textStripper.setSortByPosition(request.isMaintainPositioning());
+        return textStripper;
+    }
+    
+    private static String await(Future<String> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while extracting text");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+    }
+    
+    private static void drain(Deque<? extends Future<?>> inFlight) {
+        boolean interrupted = Thread.interrupted();
+        for (Future<?> future : inFlight) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Extracts one document of a batch, turning any failure into a failed result
+     */
+    private TextBatchProducer.Result extractBatchItem(TextBatchRequest request, int index, MultipartFile file) {
+        String filename = file.getOriginalFilename();
+        try (PDDocument document = documentSource.load(file)) {
+            List<String> pages = new ArrayList<>(document.getNumberOfPages());
+            StringWriter page = new StringWriter();
+            PDFTextStripper textStripper = new PDFTextStripper() {
+                @Override
+                protected void endPage(PDPage pdPage) throws IOException {
+                    super.endPage(pdPage);
+                    pages.add(page.toString());
+                    page.getBuffer().setLength(0);
+                }
+            };
+            textStripper.setSortByPosition(request.isMaintainPositioning());
+            textStripper.writeText(document, page);
+            return new TextBatchProducer.Result(index, filename, pages, null);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not extract text of batch document {} ({})", index, filename, e);
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            return new TextBatchProducer.Result(index, filename, null, error);
+        }
+    }
+    
+    /**
+     * Producer extracting the documents of a batch on the text worker pool
+     */
+    private class BatchText implements TextBatchProducer {
+        private final TextBatchRequest request;
+        private final int workers;
+        private final AdmissionControl.Ticket ticket;
+        private final Bulkheads.Permit permit;
+        
+        BatchText(TextBatchRequest request, int workers, AdmissionControl.Ticket ticket, Bulkheads.Permit permit) {
+            this.request = request;
+            this.workers = workers;
+            this.ticket = ticket;
+            this.permit = permit;
+        }
+        
+        @Override
+        public void writeResults(ResultOutput output) throws IOException {
+            MultipartFile[] files = request.getPdfFiles();
+            BlockingQueue<Result> done = new LinkedBlockingQueue<>();
+            Deque<Future<Void>> inFlight = new ArrayDeque<>();
+            AtomicBoolean aborted = new AtomicBoolean();
+            int next = 0;
+            int pending = 0;
+            int failed = 0;
+            try {
+                while (next < files.length || pending > 0) {
+                    while (next < files.length && pending < workers) {
+                        int index = next++;
+                        inFlight.removeIf(Future::isDone);
+                        inFlight.add(textPool.submit(() -> {
+                            // Every submitted document must report back, or the loop below waits forever
+                            Result result = new Result(index, files[index].getOriginalFilename(), null,
+                                    "Extraction was aborted");
+                            try {
+                                if (!aborted.get()) {
+                                    result = extractBatchItem(request, index, files[index]);
+                                }
+                            } finally {
+                                done.add(result);
+                            }
+                            return null;
+                        }));
+                        pending++;
+                    }
+                    Result result = take(done);
+                    pending--;
+                    if (result.failed()) {
+                        failed++;
+                    }
+                    output.result(result);
+                }
+            } finally {
+                // If the output fails, queued documents are skipped and running ones finish first
+                aborted.set(true);
+                drain(inFlight);
+            }
+            log.info("Extracted text of {} documents in a batch using {} workers, {} failed",
+                    files.length, workers, failed);
+        }
+        
+        private Result take(BlockingQueue<Result> done) throws IOException {
+            try {
+                return done.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while extracting text");
+            }
+        }
+        
+        @Override
+        public void close() {
+            try {
+                ticket.close();
+            } finally {
+                permit.close();
+            }
+        }
+    }
+    
+    /**
+     * Producer streaming the text of a leased document
+     */
+    private static class StreamingText implements TextProducer {
+        private final AdmissionControl.Ticket ticket;
+        private final Bulkheads.Permit permit;
+        private final DocumentCache.Lease lease;
+        private final int startPage;
+        private final int endPage;
+        
+        StreamingText(AdmissionControl.Ticket ticket, Bulkheads.Permit permit, DocumentCache.Lease lease,
+                int startPage, int endPage) {
+            this.ticket = ticket;
+            this.permit = permit;
+            this.lease = lease;
+            this.startPage = startPage;
+            this.endPage = endPage;
+        }
+        
+        @Override
+        public void writeText(Writer out) throws IOException {
+            PDFTextStripper textStripper = new PDFTextStripper() {
+                @Override
+                protected void endPage(PDPage page) throws IOException {
+                    super.endPage(page);
+                    // Hand each page to the client as soon as it is complete
+                    output.flush();
+                }
+            };
+            textStripper.setStartPage(startPage);
+            textStripper.setEndPage(endPage);
+            textStripper.writeText(lease.getDocument(), out);
+            log.info("Successfully streamed text of {} pages", endPage - startPage + 1);
+        }
+        
+        @Override
+        public void writePages(PageOutput pageOutput) throws IOException {
+            StringWriter page = new StringWriter();
+            PDFTextStripper textStripper = new PDFTextStripper() {
+                @Override
+                protected void endPage(PDPage pdPage) throws IOException {
+                    super.endPage(pdPage);
+                    pageOutput.page(getCurrentPageNo(), page.toString());
+                    page.getBuffer().setLength(0);
+                }
+            };
+            textStripper.setStartPage(startPage);
+            textStripper.setEndPage(endPage);
+            textStripper.writeText(lease.getDocument(), page);
+            log.info("Successfully streamed text of {} pages", endPage - startPage + 1);
+        }
+        
+        @Override
+        public void writeGlyphs(GlyphOutput glyphOutput) throws IOException {
+            PDFTextStripper textStripper = new PDFTextStripper() {
+                private GlyphColumns glyphs;
+                
+                @Override
+                protected void startPage(PDPage page) throws IOException {
+                    super.startPage(page);
+                    PDRectangle cropBox = page.getCropBox();
+                    boolean rotated = page.getRotation() == 90 || page.getRotation() == 270;
+                    glyphs = new GlyphColumns(getCurrentPageNo(),
+                            rotated ? cropBox.getHeight() : cropBox.getWidth(),
+                            rotated ? cropBox.getWidth() : cropBox.getHeight());
+                }
+                
+                @Override
+                protected void writeString(String text, List<TextPosition> textPositions) throws IOException {
+                    // Only the positions are kept; the text written to the output is discarded
+                    for (TextPosition position : textPositions) {
+                        glyphs.add(position.getUnicode(),
+                                position.getFont() != null ? position.getFont().getName() : null,
+                                position.getXDirAdj(), position.getYDirAdj(), position.getWidthDirAdj(),
+                                position.getHeightDir(), position.getFontSizeInPt());
+                    }
+                }
+                
+                @Override
+                protected void endPage(PDPage page) throws IOException {
+                    super.endPage(page);
+                    glyphOutput.page(glyphs);
+                    glyphs = null;
+                }
+            };
+            textStripper.setStartPage(startPage);
+            textStripper.setEndPage(endPage);
+            textStripper.writeText(lease.getDocument(), Writer.nullWriter());
+            log.info("Successfully streamed glyph positions of {} pages", endPage - startPage + 1);
+        }
+        
+        @Override
+        public void close() {
+            try {
+                lease.close();
+            } finally {
+                try {
+                    ticket.close();
+                } finally {
+                    permit.close();
+                }
+            }
         }
-        return tempFile.toFile();
     }
 }
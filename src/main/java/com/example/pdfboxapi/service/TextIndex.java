@@ -0,0 +1,322 @@
+package com.example.pdfboxapi.service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Inverted index of a document's extracted text
+ *
+ * Maps every term to its postings: the page and character offset of each
+ * occurrence, interleaved in one int array sorted by page and offset. The page
+ * texts are kept alongside, so search snippets need no new extraction. Terms
+ * are runs of letters and digits, lower-cased.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+public class TextIndex {
+
+    private static final int MAGIC = 0x50495831; // "PIX1"
+    private static final int SNIPPET_CONTEXT = 60;
+
+    private final String[] pages;
+    private final Map<String, int[]> postings;
+    private final long weight;
+
+    private TextIndex(String[] pages, Map<String, int[]> postings) {
+        this.pages = pages;
+        this.postings = postings;
+        long size = 0;
+        for (String page : pages) {
+            size += 2L * page.length();
+        }
+        for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+            size += 2L * entry.getKey().length() + 4L * entry.getValue().length + 64;
+        }
+        this.weight = size;
+    }
+
+    /**
+     * Indexes the text of a document
+     *
+     * @param pageTexts Text of every page in page order
+     * @return The index
+     */
+    public static TextIndex build(List<String> pageTexts) {
+        Map<String, IntList> building = new HashMap<>();
+        String[] pages = pageTexts.toArray(new String[0]);
+        for (int page = 0; page < pages.length; page++) {
+            String text = pages[page];
+            int i = 0;
+            while (i < text.length()) {
+                int start = nextTermStart(text, i);
+                if (start < 0) {
+                    break;
+                }
+                int end = termEnd(text, start);
+                String term = text.substring(start, end).toLowerCase(Locale.ROOT);
+                building.computeIfAbsent(term, t -> new IntList()).add(page + 1, start);
+                i = end;
+            }
+        }
+        Map<String, int[]> postings = new HashMap<>(building.size() * 4 / 3 + 1);
+        building.forEach((term, list) -> postings.put(term, list.toArray()));
+        return new TextIndex(pages, postings);
+    }
+
+    /**
+     * Finds the pages containing every term of a query
+     *
+     * @param query Terms to search for, separated by anything but letters and digits
+     * @param maxSnippets Most snippets returned per page
+     * @return Pages containing all terms, in page order
+     */
+    public List<Hit> search(String query, int maxSnippets) {
+        List<String> terms = terms(query);
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Query contains no searchable terms");
+        }
+
+        // Intersect the page sets, rarest term first
+        List<int[]> lists = new ArrayList<>();
+        for (String term : terms) {
+            int[] list = postings.get(term);
+            if (list == null) {
+                return List.of();
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.length, b.length));
+
+        List<Hit> hits = new ArrayList<>();
+        int[] rarest = lists.get(0);
+        int previousPage = 0;
+        for (int i = 0; i < rarest.length; i += 2) {
+            int page = rarest[i];
+            if (page == previousPage) {
+                continue;
+            }
+            previousPage = page;
+            int matches = 0;
+            List<Integer> offsets = new ArrayList<>();
+            boolean onPage = true;
+            for (int[] list : lists) {
+                int count = 0;
+                int from = firstOnPage(list, page);
+                for (int j = from; j >= 0 && j < list.length && list[j] == page; j += 2) {
+                    if (offsets.size() < maxSnippets) {
+                        offsets.add(list[j + 1]);
+                    }
+                    count++;
+                }
+                if (count == 0) {
+                    onPage = false;
+                    break;
+                }
+                matches += count;
+            }
+            if (onPage) {
+                hits.add(new Hit(page, matches, snippets(pages[page - 1], offsets)));
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * @return Number of indexed pages
+     */
+    public int getPageCount() {
+        return pages.length;
+    }
+
+    /**
+     * @return Number of distinct terms
+     */
+    public int getTermCount() {
+        return postings.size();
+    }
+
+    /**
+     * @return Approximate heap size of the index in bytes
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Serializes the index
+     *
+     * @param out Destination; not closed
+     * @throws IOException If the index cannot be written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(pages.length);
+        for (String page : pages) {
+            writeString(data, page);
+        }
+        data.writeInt(postings.size());
+        for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+            writeString(data, entry.getKey());
+            int[] list = entry.getValue();
+            data.writeInt(list.length);
+            for (int value : list) {
+                data.writeInt(value);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads an index written by {@link #writeTo}
+     *
+     * @param in Source; not closed
+     * @return The index
+     * @throws IOException If the data cannot be read or is not an index
+     */
+    public static TextIndex readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a text index");
+        }
+        String[] pages = new String[data.readInt()];
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = readString(data);
+        }
+        int termCount = data.readInt();
+        Map<String, int[]> postings = new HashMap<>(termCount * 4 / 3 + 1);
+        for (int i = 0; i < termCount; i++) {
+            String term = readString(data);
+            int[] list = new int[data.readInt()];
+            for (int j = 0; j < list.length; j++) {
+                list[j] = data.readInt();
+            }
+            postings.put(term, list);
+        }
+        return new TextIndex(pages, postings);
+    }
+
+    private static List<String> terms(String query) {
+        List<String> terms = new ArrayList<>();
+        int i = 0;
+        while (i < query.length()) {
+            int start = nextTermStart(query, i);
+            if (start < 0) {
+                break;
+            }
+            int end = termEnd(query, start);
+            String term = query.substring(start, end).toLowerCase(Locale.ROOT);
+            if (!terms.contains(term)) {
+                terms.add(term);
+            }
+            i = end;
+        }
+        return terms;
+    }
+
+    private static int nextTermStart(String text, int from) {
+        for (int i = from; i < text.length(); i++) {
+            if (Character.isLetterOrDigit(text.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int termEnd(String text, int start) {
+        int end = start;
+        while (end < text.length() && Character.isLetterOrDigit(text.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Binary search for the first posting on a page
+     *
+     * @return Index of the page entry of the first posting on the page, or -1
+     */
+    private static int firstOnPage(int[] list, int page) {
+        int low = 0;
+        int high = list.length / 2 - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midPage = list[mid * 2];
+            if (midPage < page) {
+                low = mid + 1;
+            } else {
+                if (midPage == page) {
+                    found = mid * 2;
+                }
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private static List<String> snippets(String text, List<Integer> offsets) {
+        List<String> snippets = new ArrayList<>(offsets.size());
+        Integer[] sorted = offsets.toArray(new Integer[0]);
+        Arrays.sort(sorted);
+        for (int offset : sorted) {
+            int start = Math.max(0, offset - SNIPPET_CONTEXT);
+            int end = Math.min(text.length(), termEnd(text, offset) + SNIPPET_CONTEXT);
+            snippets.add(text.substring(start, end).replaceAll("\\s+", " ").trim());
+        }
+        return snippets;
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream data) throws IOException {
+        byte[] bytes = new byte[data.readInt()];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A page containing every term of a query
+     *
+     * @param page 1-based page number
+     * @param matches Occurrences of the query terms on the page
+     * @param snippets Text around the first occurrences
+     */
+    public record Hit(int page, int matches, List<String> snippets) {
+    }
+
+    /**
+     * Growable list of page and offset pairs
+     */
+    private static class IntList {
+        private int[] values = new int[8];
+        private int size;
+
+        void add(int page, int offset) {
+            if (size + 2 > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = page;
+            values[size++] = offset;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.pdfboxapi.service;
+
+import com.example.pdfboxapi.model.request.TextExtractionRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Service for full-text search over indexed documents
+ *
+ * A document is indexed once from its extracted text and the index is keyed
+ * by the SHA-256 of the PDF, which doubles as the index id clients search by.
+ * Indexes are held in a weighted LRU in memory and written compressed to a
+ * directory on disk, where they survive a restart and expire a configurable
+ * time after their last use. Indexing the same content again returns the
+ * existing index without extracting anything.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Service
+@Slf4j
+public class TextIndexService {
+
+    private static final String EXTENSION = ".idx";
+    private static final Pattern INDEX_ID = Pattern.compile("[0-9a-f]{64}");
+
+    private final TextExtractionService textExtractionService;
+    private final DocumentSource documentSource;
+    private final long memoryMaxWeight;
+    private final Path indexDir;
+    private final long ttlMillis;
+
+    // Access order, so iteration starts at the least recently used index
+    private final LinkedHashMap<String, TextIndex> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryWeight;
+
+    // Indexes being built, so concurrent requests for the same document extract it once
+    private final Map<String, CompletableFuture<TextIndex>> building = new ConcurrentHashMap<>();
+
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter builds;
+
+    /**
+     * Creates the index service and registers its metrics
+     *
+     * @param textExtractionService Service extracting the text to index
+     * @param documentSource Source of the content hash of uploads
+     * @param memoryMaxWeight Maximum combined heap size of indexes held in memory
+     * @param indexDir Directory holding the persisted indexes
+     * @param ttl Time an index stays on disk after it was last used
+     * @param meterRegistry Registry for the index metrics
+     */
+    public TextIndexService(
+            TextExtractionService textExtractionService,
+            DocumentSource documentSource,
+            @Value("${app.index.memory.max-weight:64MB}") DataSize memoryMaxWeight,
+            @Value("${app.index.dir:temp-files/index}") String indexDir,
+            @Value("${app.index.ttl:7d}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.textExtractionService = textExtractionService;
+        this.documentSource = documentSource;
+        this.memoryMaxWeight = memoryMaxWeight.toBytes();
+        this.indexDir = Paths.get(indexDir).toAbsolutePath();
+        this.ttlMillis = ttl.toMillis();
+
+        this.memoryHits = lookups(meterRegistry, "memory");
+        this.diskHits = lookups(meterRegistry, "disk");
+        this.builds = lookups(meterRegistry, "build");
+        Gauge.builder("pdfbox.index.weight", this, TextIndexService::getMemoryWeight)
+                .description("Combined heap size of text indexes held in memory")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("pdfbox.index.size", this, TextIndexService::memorySize)
+                .description("Number of text indexes held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Indexes the text of a PDF file, or returns its existing index
+     *
+     * @param pdfFile The PDF file to index
+     * @return Id of the index and the index itself
+     * @throws IOException If the PDF cannot be read or the index cannot be loaded
+     */
+    public IndexedDocument index(MultipartFile pdfFile) throws IOException {
+        String indexId = documentSource.contentHash(pdfFile);
+        TextIndex index = lookup(indexId);
+        if (index != null) {
+            return new IndexedDocument(indexId, index);
+        }
+
+        CompletableFuture<TextIndex> future = new CompletableFuture<>();
+        CompletableFuture<TextIndex> existing = building.putIfAbsent(indexId, future);
+        if (existing != null) {
+            return new IndexedDocument(indexId, join(existing));
+        }
+        try {
+            index = build(pdfFile);
+            store(indexId, index);
+            builds.increment();
+            future.complete(index);
+            log.info("Indexed {} pages and {} terms of document {}",
+                    index.getPageCount(), index.getTermCount(), indexId);
+            return new IndexedDocument(indexId, index);
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            building.remove(indexId);
+        }
+    }
+
+    /**
+     * Searches an indexed document
+     *
+     * @param indexId Id returned by {@link #index}
+     * @param query Terms that must all appear on a page
+     * @param maxSnippets Most snippets returned per page
+     * @return Matching pages in page order
+     * @throws IOException If the index cannot be loaded
+     */
+    public List<TextIndex.Hit> search(String indexId, String query, int maxSnippets) throws IOException {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Query is required");
+        }
+        if (maxSnippets < 0) {
+            throw new IllegalArgumentException("Invalid snippet count: " + maxSnippets);
+        }
+        TextIndex index = indexId != null && INDEX_ID.matcher(indexId).matches() ? lookup(indexId) : null;
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown or expired index: " + indexId);
+        }
+        return index.search(query, maxSnippets);
+    }
+
+    /**
+     * Removes indexes not used within the TTL from disk
+     */
+    @Scheduled(fixedDelayString = "${app.index.sweep-interval:1h}")
+    public void evictExpired() {
+        if (!Files.isDirectory(indexDir)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(indexDir, "*" + EXTENSION)) {
+            for (Path file : files) {
+                try {
+                    if (Files.getLastModifiedTime(file).toMillis() + ttlMillis <= now) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (IOException e) {
+                    log.warn("Could not remove expired index {}", file, e);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not sweep the index directory {}", indexDir, e);
+        }
+    }
+
+    /**
+     * @return Combined heap size of indexes held in memory in bytes
+     */
+    public synchronized long getMemoryWeight() {
+        return memoryWeight;
+    }
+
+    /**
+     * @return Number of indexes held in memory
+     */
+    public synchronized int memorySize() {
+        return memory.size();
+    }
+
+    private TextIndex build(MultipartFile pdfFile) throws IOException {
+        TextExtractionRequest request = new TextExtractionRequest();
+        request.setPdfFile(pdfFile);
+        List<String> pages = new ArrayList<>();
+        try (TextProducer text = textExtractionService.prepareTextStream(request)) {
+            text.writePages((page, pageText) -> pages.add(pageText));
+        }
+        return TextIndex.build(pages);
+    }
+
+    private TextIndex lookup(String indexId) throws IOException {
+        TextIndex index;
+        synchronized (this) {
+            index = memory.get(indexId);
+        }
+        if (index != null) {
+            memoryHits.increment();
+            touch(indexId);
+            return index;
+        }
+
+        Path file = indexDir.resolve(indexId + EXTENSION);
+        try (InputStream in = new InflaterInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            index = TextIndex.readFrom(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        diskHits.increment();
+        touch(indexId);
+        putInMemory(indexId, index);
+        return index;
+    }
+
+    private void store(String indexId, TextIndex index) throws IOException {
+        Files.createDirectories(indexDir);
+        Path temp = Files.createTempFile(indexDir, "index-", ".tmp");
+        try {
+            try (OutputStream out = new DeflaterOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                index.writeTo(out);
+            }
+            Files.move(temp, indexDir.resolve(indexId + EXTENSION),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        putInMemory(indexId, index);
+    }
+
+    /**
+     * Restarts the TTL of an index on disk
+     */
+    private void touch(String indexId) {
+        try {
+            Files.setLastModifiedTime(indexDir.resolve(indexId + EXTENSION),
+                    FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Removed from disk; the index is written again if it is rebuilt
+            log.debug("Could not touch index {}", indexId, e);
+        }
+    }
+
+    private void putInMemory(String indexId, TextIndex index) {
+        if (index.getWeight() > memoryMaxWeight) {
+            return;
+        }
+        synchronized (this) {
+            TextIndex previous = memory.put(indexId, index);
+            memoryWeight += index.getWeight() - (previous != null ? previous.getWeight() : 0);
+            Iterator<Map.Entry<String, TextIndex>> it = memory.entrySet().iterator();
+            while (memoryWeight > memoryMaxWeight && it.hasNext()) {
+                memoryWeight -= it.next().getValue().getWeight();
+                it.remove();
+            }
+        }
+    }
+
+    private static TextIndex join(CompletableFuture<TextIndex> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("pdfbox.index.requests").tag("source", source)
+                .description("Text index lookups by where the index came from").register(meterRegistry);
+    }
+
+    /**
+     * An index and the id it is stored under
+     *
+     * @param indexId SHA-256 of the indexed PDF
+     * @param index The index
+     */
+    public record IndexedDocument(String indexId, TextIndex index) {
+    }
+}
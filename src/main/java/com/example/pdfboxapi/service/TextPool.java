@@ -0,0 +1,27 @@
+package com.example.pdfboxapi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Component holding the worker pool used by parallel text extraction,
+ * both page chunks of one document and documents of a batch
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Component
+public class TextPool extends WorkerPool {
+
+    /**
+     * Creates the text pool
+     *
+     * @param threads Number of worker threads; 0 or less uses the number of cores
+     * @param defaultParallelism Degree of parallelism for requests that don't specify one
+     */
+    public TextPool(
+            @Value("${app.text.threads:0}") int threads,
+            @Value("${app.text.parallelism:4}") int defaultParallelism) {
+        super("text", threads, defaultParallelism);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.pdfboxapi.service;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A validated text extraction whose text is produced on demand
+ *
+ * Like {@link PartProducer}, the service returns a producer after loading the
+ * document and checking the request, so invalid requests still fail before
+ * any output is written. Text is written page by page as it is extracted, so
+ * no more than one page is held in memory. The producer owns the loaded
+ * document until it is closed.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+public interface TextProducer extends AutoCloseable {
+
+    /**
+     * Writes the text of all pages, flushing the writer after every page
+     *
+     * @param out Destination of the text; left open
+     * @throws IOException If the text cannot be extracted or written
+     */
+    void writeText(Writer out) throws IOException;
+
+    /**
+     * Passes the text of each page to the output in page order
+     *
+     * @param output Destination of the pages
+     * @throws IOException If the text cannot be extracted or written
+     */
+    void writePages(PageOutput output) throws IOException;
+
+    /**
+     * Passes the glyph positions of each page to the output in page order
+     *
+     * @param output Destination of the pages
+     * @throws IOException If the text cannot be extracted or written
+     */
+    void writeGlyphs(GlyphOutput output) throws IOException;
+
+    /**
+     * Releases the document held by the producer
+     */
+    @Override
+    void close();
+
+    /**
+     * Destination for the text of one page at a time
+     */
+    @FunctionalInterface
+    interface PageOutput {
+
+        /**
+         * Receives the text of a page
+         *
+         * @param pageNumber 1-based page number
+         * @param text Text of the page, as PDFTextStripper writes it for that page alone
+         * @throws IOException If the page cannot be written
+         */
+        void page(int pageNumber, String text) throws IOException;
+    }
+
+    /**
+     * Destination for the glyph positions of one page at a time
+     */
+    @FunctionalInterface
+    interface GlyphOutput {
+
+        /**
+         * Receives the glyphs of a page
+         *
+         * @param page Glyphs of the page in reading order
+         * @throws IOException If the page cannot be written
+         */
+        void page(GlyphColumns page) throws IOException;
+    }
+}
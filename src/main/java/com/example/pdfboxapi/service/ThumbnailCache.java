@@ -0,0 +1,122 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of encoded page thumbnails
+ *
+ * Thumbnails are keyed by the SHA-256 of the document, the page and the
+ * rendering options, so they stay valid for as long as the content does.
+ * Entries are evicted least-recently-used once their combined size exceeds the
+ * configured maximum.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Component
+public class ThumbnailCache {
+
+    private final long maxWeight;
+
+    // Access order, so iteration starts at the least recently used thumbnail
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalWeight;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    /**
+     * Creates the thumbnail cache and registers its metrics
+     *
+     * @param maxWeight Maximum combined size of cached thumbnails
+     * @param meterRegistry Registry for the cache metrics
+     */
+    public ThumbnailCache(
+            @Value("${app.cache.thumbnails.max-weight:32MB}") DataSize maxWeight,
+            MeterRegistry meterRegistry) {
+        this.maxWeight = maxWeight.toBytes();
+
+        this.hits = Counter.builder("pdfbox.cache.thumbnails.requests").tag("result", "hit")
+                .description("Thumbnail cache lookups").register(meterRegistry);
+        this.misses = Counter.builder("pdfbox.cache.thumbnails.requests").tag("result", "miss")
+                .description("Thumbnail cache lookups").register(meterRegistry);
+        this.evictions = Counter.builder("pdfbox.cache.thumbnails.evictions")
+                .description("Thumbnails evicted for size").register(meterRegistry);
+        Gauge.builder("pdfbox.cache.thumbnails.weight", this, ThumbnailCache::getWeight)
+                .description("Combined size of cached thumbnails")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("pdfbox.cache.thumbnails.size", this, ThumbnailCache::size)
+                .description("Number of cached thumbnails")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Looks up a thumbnail
+     *
+     * @param key Key of the thumbnail
+     * @return The encoded thumbnail, or null on a miss
+     */
+    public byte[] get(String key) {
+        byte[] thumbnail;
+        synchronized (this) {
+            thumbnail = entries.get(key);
+        }
+        (thumbnail != null ? hits : misses).increment();
+        return thumbnail;
+    }
+
+    /**
+     * Adds a thumbnail, evicting the least recently used ones to make room
+     *
+     * @param key Key of the thumbnail
+     * @param thumbnail The encoded thumbnail
+     */
+    public void put(String key, byte[] thumbnail) {
+        if (thumbnail.length > maxWeight) {
+            return;
+        }
+        synchronized (this) {
+            byte[] previous = entries.put(key, thumbnail);
+            totalWeight += thumbnail.length - (previous != null ? previous.length : 0);
+            Iterator<Map.Entry<String, byte[]>> it = entries.entrySet().iterator();
+            while (totalWeight > maxWeight && it.hasNext()) {
+                totalWeight -= it.next().getValue().length;
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Removes all thumbnails
+     */
+    public synchronized void clear() {
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    /**
+     * @return Combined size of cached thumbnails in bytes
+     */
+    public synchronized long getWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * @return Number of cached thumbnails
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.pdfboxapi.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed pool of worker threads for one kind of per-page work
+ *
+ * The pool has a fixed number of threads (by default one per core), so the
+ * concurrency of its kind of work stays bounded however many requests run
+ * in parallel mode. Each request limits itself to its own degree of
+ * parallelism within the pool. Rendering and text extraction each have
+ * their own pool, so a burst of one does not queue up the other.
+ *
+ * @author Manus
+ * @version 1.0
+ */
+@Slf4j
+public abstract class WorkerPool {
+
+    private final int threads;
+    private final int defaultParallelism;
+    private final ExecutorService executor;
+
+    /**
+     * Creates the pool
+     *
+     * @param name Name of the pool, used for its threads
+     * @param threads Number of worker threads; 0 or less uses the number of cores
+     * @param defaultParallelism Degree of parallelism for requests that don't specify one
+     */
+    protected WorkerPool(String name, int threads, int defaultParallelism) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.defaultParallelism = Math.max(1, defaultParallelism);
+        this.executor = Executors.newFixedThreadPool(this.threads, new WorkerThreadFactory(name));
+        log.info("Worker pool {} started with {} threads, default parallelism {}",
+                name, this.threads, this.defaultParallelism);
+    }
+
+    /**
+     * Resolves the degree of parallelism for a request
+     *
+     * @param requested Parallelism asked for by the request, or null for the default
+     * @param tasks Number of pages or documents to process
+     * @return Number of tasks to run concurrently, between 1 and the pool size
+     */
+    public int parallelism(Integer requested, int tasks) {
+        if (requested != null && requested < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        int wanted = requested != null ? requested : defaultParallelism;
+        return Math.max(1, Math.min(Math.min(wanted, threads), tasks));
+    }
+
+    /**
+     * Submits a task to the pool
+     *
+     * @param task The task
+     * @param <T> Result type
+     * @return Future of the result
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(task);
+    }
+
+    /**
+     * Stops the worker threads on shutdown
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        WorkerThreadFactory(String name) {
+            this.prefix = "pdf-" + name + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.pdfboxapi.service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * PartOutput writing each part as an entry of a ZIP stream
+ *
+ * @author Manus
+ * @version 1.0
+ */
+public class ZipPartOutput implements PartOutput {
+
+    private final ZipOutputStream zip;
+    private final String entryNameFormat;
+
+    /**
+     * Creates a ZIP part output
+     *
+     * @param zip The ZIP stream; left open when parts are closed
+     * @param entryNameFormat Format of the entry names, given the 1-based part number (e.g. "page_%03d.png")
+     */
+    public ZipPartOutput(ZipOutputStream zip, String entryNameFormat) {
+        this.zip = zip;
+        this.entryNameFormat = entryNameFormat;
+    }
+
+    @Override
+    public OutputStream nextPart(int index) throws IOException {
+        zip.putNextEntry(new ZipEntry(String.format(entryNameFormat, index + 1)));
+        return new FilterOutputStream(zip) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                // Flush the entry to the client so each part is sent as soon as it is complete
+                zip.closeEntry();
+                zip.flush();
+            }
+        };
+    }
+}
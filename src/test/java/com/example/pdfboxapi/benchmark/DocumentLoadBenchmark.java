@@ -0,0 +1,126 @@
+package com.example.pdfboxapi.benchmark;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.io.RandomAccessReadMemoryMappedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading a large scanned-style PDF through the buffered file reader used by
+ * Loader.loadPDF(File) against the memory-mapped reader used by DocumentSource.
+ *
+ * Each iteration parses the document and reads every page's content and image streams,
+ * which drives the random xref and object access pattern of the services. Run with
+ * {@code mvn -Pbenchmark -DskipTests test -Dbenchmark.include=DocumentLoadBenchmark};
+ * the gc profiler reports heap allocated per operation (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DocumentLoadBenchmark {
+
+    @Param({"BUFFERED_FILE", "MEMORY_MAPPED"})
+    public String mode;
+
+    @Param({"200"})
+    public int pages;
+
+    private Path pdf;
+
+    @Setup(Level.Trial)
+    public void createDocument() throws IOException {
+        pdf = Files.createTempFile("load-benchmark-", ".pdf");
+        Random random = new Random(42);
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                document.addPage(page);
+                PDImageXObject scan = JPEGFactory.createFromImage(document, noise(random), 0.5f);
+                try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                    contents.drawImage(scan, 0, 0, PDRectangle.A4.getWidth(), PDRectangle.A4.getHeight());
+                }
+            }
+            document.save(pdf.toFile());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDocument() throws IOException {
+        Files.deleteIfExists(pdf);
+    }
+
+    @Benchmark
+    public long loadAndReadAllPages() throws IOException {
+        long bytes = 0;
+        try (PDDocument document = Loader.loadPDF(open())) {
+            byte[] buffer = new byte[8192];
+            for (PDPage page : document.getPages()) {
+                bytes += drain(page.getContents(), buffer);
+                PDResources resources = page.getResources();
+                for (COSName name : resources.getXObjectNames()) {
+                    PDXObject xObject = resources.getXObject(name);
+                    bytes += drain(xObject.getCOSObject().createRawInputStream(), buffer);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private RandomAccessRead open() throws IOException {
+        return "MEMORY_MAPPED".equals(mode)
+                ? new RandomAccessReadMemoryMappedFile(pdf)
+                : new RandomAccessReadBufferedFile(pdf);
+    }
+
+    private static long drain(InputStream in, byte[] buffer) throws IOException {
+        long total = 0;
+        try (in) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    private static BufferedImage noise(Random random) {
+        BufferedImage image = new BufferedImage(850, 1100, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] pixels = new byte[image.getWidth() * image.getHeight()];
+        random.nextBytes(pixels);
+        image.getRaster().setDataElements(0, 0, image.getWidth(), image.getHeight(), pixels);
+        return image;
+    }
+}
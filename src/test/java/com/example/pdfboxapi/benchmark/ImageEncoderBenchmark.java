@@ -0,0 +1,118 @@
+package com.example.pdfboxapi.benchmark;
+
+import com.example.pdfboxapi.model.request.ImageEncoding;
+import com.example.pdfboxapi.service.ImageEncoders;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding a rendered page with ImageIO.write against ImageEncoders
+ * settings.
+ *
+ * The page is an A4 text page with ruled lines and a shaded box, rendered once at
+ * 150 DPI. The encoded size of each setting is printed during setup. Run with
+ * {@code mvn -Pbenchmark -DskipTests test -Dbenchmark.include=ImageEncoderBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageEncoderBenchmark {
+
+    @Param({"IMAGEIO_PNG", "PNG_DEFAULT", "PNG_9", "PNG_1_NONE", "PNG_0_NONE", "PNG_1_SUB", "PNG_1_UP",
+            "IMAGEIO_JPEG", "JPEG_75", "JPEG_90_PROGRESSIVE"})
+    public String setting;
+
+    private final ImageEncoders imageEncoders = new ImageEncoders();
+    private BufferedImage page;
+    private String format;
+    private ImageEncoding encoding;
+
+    @Setup(Level.Trial)
+    public void renderPage() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage pdPage = new PDPage(PDRectangle.A4);
+            document.addPage(pdPage);
+            try (PDPageContentStream contents = new PDPageContentStream(document, pdPage)) {
+                contents.setNonStrokingColor(new Color(0xDD, 0xE8, 0xF5));
+                contents.addRect(50, 600, 495, 180);
+                contents.fill();
+                contents.setNonStrokingColor(Color.BLACK);
+                contents.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 10);
+                for (int line = 0; line < 60; line++) {
+                    float y = 780 - line * 12;
+                    contents.beginText();
+                    contents.newLineAtOffset(60, y);
+                    contents.showText("Line " + line + ": The quick brown fox jumps over the lazy dog 0123456789");
+                    contents.endText();
+                    contents.moveTo(50, y - 3);
+                    contents.lineTo(545, y - 3);
+                    contents.stroke();
+                }
+            }
+            page = new PDFRenderer(document).renderImageWithDPI(0, 150, ImageType.RGB);
+        }
+
+        encoding = new ImageEncoding();
+        format = setting.startsWith("PNG") || setting.equals("IMAGEIO_PNG") ? "PNG" : "JPEG";
+        switch (setting) {
+            case "PNG_9" -> encoding.setPngCompression(9);
+            case "PNG_1_NONE" -> fastPng(1, ImageEncoding.PngFilter.NONE);
+            case "PNG_0_NONE" -> fastPng(0, ImageEncoding.PngFilter.NONE);
+            case "PNG_1_SUB" -> fastPng(1, ImageEncoding.PngFilter.SUB);
+            case "PNG_1_UP" -> fastPng(1, ImageEncoding.PngFilter.UP);
+            case "JPEG_75" -> encoding.setJpegQuality(0.75f);
+            case "JPEG_90_PROGRESSIVE" -> {
+                encoding.setJpegQuality(0.9f);
+                encoding.setJpegProgressive(true);
+            }
+            default -> {
+            }
+        }
+        System.out.printf("%n%s: %d bytes for a %dx%d page%n", setting, encode().length, page.getWidth(),
+                page.getHeight());
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        if (setting.startsWith("IMAGEIO")) {
+            ImageIO.write(page, format, baos);
+        } else {
+            imageEncoders.encode(page, format, encoding, baos);
+        }
+        return baos.toByteArray();
+    }
+
+    private void fastPng(int level, ImageEncoding.PngFilter filter) {
+        encoding.setPngCompression(level);
+        encoding.setPngFilter(filter);
+    }
+}
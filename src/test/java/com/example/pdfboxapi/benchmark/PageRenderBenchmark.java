@@ -0,0 +1,106 @@
+package com.example.pdfboxapi.benchmark;
+
+import com.example.pdfboxapi.service.RasterPool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares rendering a page with PDFRenderer.renderImageWithDPI against drawing
+ * it into a raster borrowed from RasterPool.
+ *
+ * The page is an A4 text page rendered at 300 DPI, whose 2480x3508 RGB raster
+ * is about 35 MB. Compare {@code gc.alloc.rate.norm} and {@code gc.count}
+ * between the modes. Run with
+ * {@code mvn -Pbenchmark -DskipTests test -Dbenchmark.include=PageRenderBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageRenderBenchmark {
+
+    private static final float SCALE = 300 / 72f;
+
+    @Param({"ALLOCATE", "POOLED"})
+    public String mode;
+
+    private final RasterPool rasterPool = new RasterPool(DataSize.ofMegabytes(128), new SimpleMeterRegistry());
+    private PDDocument document;
+    private PDFRenderer renderer;
+    private int width;
+    private int height;
+
+    @Setup(Level.Trial)
+    public void createDocument() throws IOException {
+        document = new PDDocument();
+        PDPage page = new PDPage(PDRectangle.A4);
+        document.addPage(page);
+        try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+            contents.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 10);
+            for (int line = 0; line < 60; line++) {
+                contents.beginText();
+                contents.newLineAtOffset(60, 780 - line * 12);
+                contents.showText("Line " + line + ": The quick brown fox jumps over the lazy dog 0123456789");
+                contents.endText();
+            }
+        }
+        renderer = new PDFRenderer(document);
+        width = (int) Math.floor(PDRectangle.A4.getWidth() * SCALE);
+        height = (int) Math.floor(PDRectangle.A4.getHeight() * SCALE);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDocument() throws IOException {
+        document.close();
+    }
+
+    @Benchmark
+    public int render() throws IOException {
+        if (mode.equals("ALLOCATE")) {
+            return renderer.renderImageWithDPI(0, 300, ImageType.RGB).getRGB(0, 0);
+        }
+        BufferedImage image = rasterPool.acquire(width, height, BufferedImage.TYPE_INT_RGB);
+        try {
+            Graphics2D graphics = image.createGraphics();
+            try {
+                graphics.setBackground(Color.WHITE);
+                graphics.clearRect(0, 0, width, height);
+                renderer.renderPageToGraphics(0, graphics, SCALE);
+            } finally {
+                graphics.dispose();
+            }
+            return image.getRGB(0, 0);
+        } finally {
+            rasterPool.release(image);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AdmissionControl
+ */
+public class AdmissionControlTest {
+
+    @Test
+    void testRejectsWithRetryAfterWhenBudgetIsExhausted() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionControl admissionControl = new AdmissionControl(DataSize.ofBytes(100), Duration.ofMillis(20), 3,
+                registry);
+
+        try (AdmissionControl.Ticket ticket = admissionControl.admit(Bulkheads.Operation.RENDER, 80)) {
+            AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class,
+                    () -> admissionControl.admit(Bulkheads.Operation.TEXT, 30));
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatusCode());
+            assertEquals("1", e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+            // A request that still fits is admitted
+            admissionControl.admit(Bulkheads.Operation.TEXT, 20).close();
+        }
+        assertEquals(0, admissionControl.getAdmittedCost());
+        assertEquals(1.0, registry.get("pdfbox.admission.rejected").tag("operation", "text").counter().count());
+    }
+
+    @Test
+    void testOversizedRequestIsAdmittedWhenIdle() {
+        AdmissionControl admissionControl = new AdmissionControl(DataSize.ofBytes(100), Duration.ofMillis(20), 3,
+                new SimpleMeterRegistry());
+
+        try (AdmissionControl.Ticket ticket = admissionControl.admit(Bulkheads.Operation.MERGE, 1000)) {
+            assertEquals(1000, admissionControl.getAdmittedCost());
+        }
+    }
+
+    @Test
+    void testQueuedRequestIsAdmittedOnRelease() throws Exception {
+        AdmissionControl admissionControl = new AdmissionControl(DataSize.ofBytes(100), Duration.ofSeconds(10), 3,
+                new SimpleMeterRegistry());
+
+        AdmissionControl.Ticket first = admissionControl.admit(Bulkheads.Operation.RENDER, 80);
+        CompletableFuture<AdmissionControl.Ticket> second =
+                CompletableFuture.supplyAsync(() -> admissionControl.admit(Bulkheads.Operation.RENDER, 80));
+        Thread.sleep(50);
+        assertFalse(second.isDone());
+
+        first.close();
+        first.close();
+        second.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0, admissionControl.getAdmittedCost());
+    }
+
+    @Test
+    void testCostEstimates() throws IOException {
+        AdmissionControl admissionControl = new AdmissionControl(DataSize.ofBytes(100), Duration.ofMillis(20), 3,
+                new SimpleMeterRegistry());
+        MockMultipartFile file = new MockMultipartFile("a.pdf", new byte[1000]);
+
+        assertEquals(6000, admissionControl.documentCost(file, file, null));
+
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage(new PDRectangle(72, 144)));
+            // 1 x 2 inches at 100 DPI = 20000 pixels of 4 bytes, twice per page in flight
+            assertEquals(3000 + 2 * 80000 * 4, admissionControl.renderCost(document, 1000, 0, 0, 100, 4));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Bulkheads
+ */
+public class BulkheadsTest {
+
+    @Test
+    void testPermitsAreConfiguredPerOperation() {
+        MockEnvironment environment = new MockEnvironment().withProperty("app.bulkhead.render.permits", "1");
+        Bulkheads bulkheads = new Bulkheads(environment, Duration.ofMillis(50), new SimpleMeterRegistry());
+
+        try (Bulkheads.Permit permit = bulkheads.acquire(Bulkheads.Operation.RENDER)) {
+            assertEquals(1, bulkheads.getActive(Bulkheads.Operation.RENDER));
+            assertThrows(BulkheadFullException.class, () -> bulkheads.acquire(Bulkheads.Operation.RENDER));
+
+            // Other operations are not affected by a full render bulkhead
+            try (Bulkheads.Permit text = bulkheads.acquire(Bulkheads.Operation.TEXT)) {
+                assertEquals(1, bulkheads.getActive(Bulkheads.Operation.TEXT));
+            }
+        }
+        assertEquals(0, bulkheads.getActive(Bulkheads.Operation.RENDER));
+    }
+
+    @Test
+    void testWaitingRequestGetsReleasedPermit() throws Exception {
+        MockEnvironment environment = new MockEnvironment().withProperty("app.bulkhead.text.permits", "1");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Bulkheads bulkheads = new Bulkheads(environment, Duration.ofSeconds(10), registry);
+
+        Bulkheads.Permit first = bulkheads.acquire(Bulkheads.Operation.TEXT);
+        CompletableFuture<Bulkheads.Permit> second =
+                CompletableFuture.supplyAsync(() -> bulkheads.acquire(Bulkheads.Operation.TEXT));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkheads.getQueueDepth(Bulkheads.Operation.TEXT) == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, bulkheads.getQueueDepth(Bulkheads.Operation.TEXT));
+        assertEquals(1.0, registry.get("pdfbox.bulkhead.queue").tag("operation", "text").gauge().value());
+
+        first.close();
+        // Closing twice must not hand out an extra permit
+        first.close();
+        second.get(5, TimeUnit.SECONDS).close();
+
+        assertEquals(0, bulkheads.getQueueDepth(Bulkheads.Operation.TEXT));
+        assertEquals(0, bulkheads.getActive(Bulkheads.Operation.TEXT));
+        assertEquals(2, registry.get("pdfbox.bulkhead.wait").tag("operation", "text").timer().count());
+    }
+}
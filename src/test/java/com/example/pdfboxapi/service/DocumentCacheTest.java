@@ -0,0 +1,133 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DocumentCache
+ */
+public class DocumentCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private MockMultipartFile pdfFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        try (InputStream is = getClass().getResourceAsStream("/sample.pdf")) {
+            pdfFile = new MockMultipartFile("sample.pdf", "sample.pdf", "application/pdf", is.readAllBytes());
+        }
+    }
+
+    @Test
+    void testSecondCheckoutOfSameContentIsAHit() throws IOException {
+        DocumentCache cache = newCache(DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+
+        PDDocument first;
+        try (DocumentCache.Lease lease = cache.checkout(pdfFile)) {
+            first = lease.getDocument();
+        }
+        MockMultipartFile sameContent = new MockMultipartFile("copy.pdf", pdfFile.getBytes());
+        try (DocumentCache.Lease lease = cache.checkout(sameContent)) {
+            assertSame(first, lease.getDocument());
+        }
+
+        assertEquals(1, requests("hit"));
+        assertEquals(1, requests("miss"));
+        assertEquals(1, cache.size());
+        cache.clear();
+    }
+
+    @Test
+    void testCheckoutWithKnownHashSharesEntries() throws IOException {
+        DocumentCache cache = newCache(DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+        String sha256 = DocumentSource.sha256(pdfFile.getInputStream());
+
+        PDDocument first;
+        try (DocumentCache.Lease lease = cache.checkout(pdfFile)) {
+            first = lease.getDocument();
+        }
+        try (DocumentCache.Lease lease = cache.checkout(pdfFile, sha256)) {
+            assertSame(first, lease.getDocument());
+        }
+
+        assertEquals(1, requests("hit"));
+        cache.clear();
+    }
+
+    @Test
+    void testCheckedOutDocumentIsExclusive() throws IOException {
+        DocumentCache cache = newCache(DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+
+        try (DocumentCache.Lease first = cache.checkout(pdfFile);
+             DocumentCache.Lease second = cache.checkout(pdfFile)) {
+            assertNotSame(first.getDocument(), second.getDocument());
+        }
+        // Only one copy per content is kept
+        assertEquals(1, cache.size());
+        // Weighed by the heap admission control charges for the document, not the upload size
+        assertEquals(3 * pdfFile.getSize(), cache.getWeight());
+        cache.clear();
+    }
+
+    @Test
+    void testDocumentsBeyondMaxWeightAreEvicted() throws IOException {
+        DocumentCache cache = newCache(DataSize.ofBytes(3 * (pdfFile.getSize() + 2)), Duration.ofMinutes(1));
+
+        cache.checkout(pdfFile).close();
+        MockMultipartFile other = new MockMultipartFile("other.pdf", withTrailingComment(pdfFile.getBytes()));
+        cache.checkout(other).close();
+
+        assertEquals(1, cache.size());
+        assertEquals(1, meterRegistry.get("pdfbox.cache.documents.evictions").counter().count());
+        cache.clear();
+    }
+
+    @Test
+    void testExpiredDocumentsAreEvicted() throws IOException {
+        DocumentCache cache = newCache(DataSize.ofMegabytes(1), Duration.ZERO);
+
+        cache.checkout(pdfFile).close();
+        cache.evictExpired();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    void testDiscardedDocumentIsNotCached() throws IOException {
+        DocumentCache cache = newCache(DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+
+        try (DocumentCache.Lease lease = cache.checkout(pdfFile)) {
+            lease.discard();
+        }
+        assertEquals(0, cache.size());
+    }
+
+    private DocumentCache newCache(DataSize maxWeight, Duration ttl) {
+        return new DocumentCache(ServiceTestSupport.documentSource(), ServiceTestSupport.admissionControl(),
+                maxWeight, ttl, meterRegistry);
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("pdfbox.cache.documents.requests").tag("result", result).counter().count();
+    }
+
+    private static byte[] withTrailingComment(byte[] pdf) {
+        byte[] copy = new byte[pdf.length + 2];
+        System.arraycopy(pdf, 0, copy, 0, pdf.length);
+        copy[pdf.length] = '%';
+        copy[pdf.length + 1] = '\n';
+        return copy;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.pdfboxapi.service;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DocumentSource
+ */
+public class DocumentSourceTest {
+
+    @TempDir
+    Path spoolDir;
+
+    private MockMultipartFile pdfFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream is = getClass().getResourceAsStream("/sample.pdf")) {
+            pdfFile = new MockMultipartFile("sample.pdf", "sample.pdf", "application/pdf", is.readAllBytes());
+        }
+    }
+
+    @Test
+    void testSmallUploadIsReadFromMemory() throws IOException {
+        DocumentSource documentSource = new DocumentSource(DataSize.ofMegabytes(1), DataSize.ofMegabytes(16),
+                spoolDir.toString(), ServiceTestSupport.memoryBudget(),
+                ServiceTestSupport.resourceCache());
+
+        try (RandomAccessRead source = documentSource.open(pdfFile)) {
+            assertTrue(source instanceof RandomAccessReadBuffer);
+            assertEquals(pdfFile.getSize(), source.length());
+        }
+        assertEquals(0, countSpooledFiles());
+    }
+
+    @Test
+    void testLargeUploadIsSpooledAndRemovedOnClose() throws IOException {
+        DocumentSource documentSource = new DocumentSource(DataSize.ofBytes(0), DataSize.ofMegabytes(16),
+                spoolDir.toString(), ServiceTestSupport.memoryBudget(),
+                ServiceTestSupport.resourceCache());
+
+        try (PDDocument document = documentSource.load(pdfFile)) {
+            assertEquals(1, document.getNumberOfPages());
+            assertEquals(1, countSpooledFiles());
+        }
+        assertEquals(0, countSpooledFiles());
+    }
+
+    @Test
+    void testMemoryMappedUploadIsParsedAndRemovedOnClose() throws IOException {
+        DocumentSource documentSource = new DocumentSource(DataSize.ofBytes(0), DataSize.ofBytes(0),
+                spoolDir.toString(), ServiceTestSupport.memoryBudget(),
+                ServiceTestSupport.resourceCache());
+
+        try (PDDocument document = documentSource.load(pdfFile)) {
+            assertEquals(1, document.getNumberOfPages());
+            assertEquals(1, countSpooledFiles());
+        }
+        assertEquals(0, countSpooledFiles());
+    }
+
+    @Test
+    void testSpooledFileIsRemovedWhenParsingFails() throws IOException {
+        DocumentSource documentSource = new DocumentSource(DataSize.ofBytes(0), DataSize.ofMegabytes(16),
+                spoolDir.toString(), ServiceTestSupport.memoryBudget(),
+                ServiceTestSupport.resourceCache());
+        MockMultipartFile invalid = new MockMultipartFile("invalid.pdf", "invalid.pdf",
+                "application/pdf", "Sample PDF content".getBytes());
+
+        assertThrows(IOException.class, () -> documentSource.load(invalid));
+        assertEquals(0, countSpooledFiles());
+    }
+
+    @Test
+    void testSharedUploadIsSpooledOnceForSeveralDocuments() throws IOException {
+        DocumentSource documentSource = new DocumentSource(DataSize.ofBytes(0), DataSize.ofMegabytes(16),
+                spoolDir.toString(), ServiceTestSupport.memoryBudget(),
+                ServiceTestSupport.resourceCache());
+
+        try (DocumentSource.SharedSource shared = documentSource.share(pdfFile)) {
+            try (PDDocument first = shared.load(); PDDocument second = shared.load()) {
+                assertNotSame(first, second);
+                assertEquals(1, first.getNumberOfPages());
+                assertEquals(1, second.getNumberOfPages());
+                assertEquals(1, countSpooledFiles());
+            }
+        }
+        assertEquals(0, countSpooledFiles());
+    }
+
+    @Test
+    void testEmptyUploadIsRejected() {
+        DocumentSource documentSource = new DocumentSource(DataSize.ofMegabytes(1), DataSize.ofMegabytes(16),
+                spoolDir.toString(), ServiceTestSupport.memoryBudget(),
+                ServiceTestSupport.resourceCache());
+        MockMultipartFile empty = new MockMultipartFile("empty.pdf", new byte[0]);
+
+        assertThrows(IllegalArgumentException.class, () -> documentSource.open(empty));
+    }
+
+    private long countSpooledFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.pdfboxapi.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DocumentStore
+ */
+public class DocumentStoreTest {
+
+    @TempDir
+    Path storeDir;
+
+    private DocumentStore documentStore;
+    private MockMultipartFile pdfFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        documentStore = new DocumentStore(storeDir.toString(), Duration.ofMinutes(30));
+        documentStore.recover();
+        try (InputStream is = getClass().getResourceAsStream("/sample.pdf")) {
+            pdfFile = new MockMultipartFile("pdfFile", "sample.pdf", "application/pdf", is.readAllBytes());
+        }
+    }
+
+    @Test
+    void testStoreAndLoad() throws IOException {
+        StoredDocument stored = documentStore.store(pdfFile);
+
+        assertEquals("sample.pdf", stored.getOriginalFilename());
+        assertEquals(pdfFile.getSize(), stored.getSize());
+        assertEquals(DocumentSource.sha256(pdfFile.getInputStream()), stored.getSha256());
+        assertSame(stored, documentStore.get(stored.getId()));
+
+        DocumentSource documentSource = ServiceTestSupport.documentSource();
+        assertEquals(stored.getSha256(), documentSource.contentHash(stored));
+        try (PDDocument document = documentSource.load(stored)) {
+            assertEquals(1, document.getNumberOfPages());
+        }
+        // Operations must not consume the stored file
+        assertTrue(Files.exists(stored.getPath()));
+    }
+
+    @Test
+    void testNonPdfIsRejected() throws IOException {
+        MockMultipartFile textFile = new MockMultipartFile("pdfFile", "notes.txt", "text/plain", "hello".getBytes());
+
+        assertThrows(IllegalArgumentException.class, () -> documentStore.store(textFile));
+        assertEquals(0, countStoredFiles());
+    }
+
+    @Test
+    void testResolve() throws IOException {
+        StoredDocument stored = documentStore.store(pdfFile);
+
+        assertSame(pdfFile, documentStore.resolve(pdfFile, null));
+        assertSame(stored, documentStore.resolve(null, stored.getId()));
+        assertThrows(IllegalArgumentException.class, () -> documentStore.resolve(null, null));
+        assertThrows(IllegalArgumentException.class, () -> documentStore.resolve(pdfFile, stored.getId()));
+        assertThrows(IllegalArgumentException.class, () -> documentStore.resolve(null, "missing"));
+
+        MultipartFile[] files = documentStore.resolveAll(new MultipartFile[] {pdfFile}, new String[] {stored.getId()});
+        assertArrayEquals(new MultipartFile[] {pdfFile, stored}, files);
+    }
+
+    @Test
+    void testDelete() throws IOException {
+        StoredDocument stored = documentStore.store(pdfFile);
+
+        assertTrue(documentStore.delete(stored.getId()));
+        assertFalse(Files.exists(stored.getPath()));
+        assertEquals(0, countStoredFiles());
+        assertFalse(documentStore.delete(stored.getId()));
+        assertThrows(IllegalArgumentException.class, () -> documentStore.get(stored.getId()));
+    }
+
+    @Test
+    void testExpiredDocumentsAreEvicted() throws IOException {
+        DocumentStore shortLived = new DocumentStore(storeDir.toString(), Duration.ZERO);
+        StoredDocument stored = shortLived.store(pdfFile);
+
+        assertThrows(IllegalArgumentException.class, () -> shortLived.get(stored.getId()));
+        shortLived.evictExpired();
+        assertEquals(0, countStoredFiles());
+    }
+
+    @Test
+    void testRecoverAfterRestart() throws IOException {
+        StoredDocument live = documentStore.store(pdfFile);
+        StoredDocument stale = documentStore.store(pdfFile);
+        Files.setLastModifiedTime(stale.getPath(), FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+
+        DocumentStore restarted = new DocumentStore(storeDir.toString(), Duration.ofMinutes(30));
+        restarted.recover();
+
+        assertEquals(live.getSha256(), restarted.get(live.getId()).getSha256());
+        assertEquals("sample.pdf", restarted.get(live.getId()).getOriginalFilename());
+        assertThrows(IllegalArgumentException.class, () -> restarted.get(stale.getId()));
+        // The live document and its filename
+        assertEquals(2, countStoredFiles());
+    }
+
+    private long countStoredFiles() throws IOException {
+        try (Stream<Path> files = Files.list(storeDir)) {
+            return files.count();
+        }
+    }
+}
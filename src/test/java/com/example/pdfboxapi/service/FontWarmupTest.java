@@ -0,0 +1,41 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.DefaultApplicationArguments;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FontWarmup
+ */
+public class FontWarmupTest {
+
+    @TempDir
+    Path fontCacheDir;
+
+    @Test
+    void testWarmUpRecordsDuration() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FontWarmup warmup = new FontWarmup(true, fontCacheDir.toString(), meterRegistry);
+        assertEquals(-1, meterRegistry.get("pdfbox.warmup.duration").gauge().value());
+
+        warmup.run(new DefaultApplicationArguments());
+
+        assertTrue(warmup.getDurationMillis() >= 0);
+        assertEquals(warmup.getDurationMillis(), meterRegistry.get("pdfbox.warmup.duration").gauge().value());
+        assertNotNull(System.getProperty(FontWarmup.FONT_CACHE_PROPERTY));
+    }
+
+    @Test
+    void testDisabledWarmUpDoesNothing() {
+        FontWarmup warmup = new FontWarmup(false, fontCacheDir.toString(), new SimpleMeterRegistry());
+
+        warmup.run(new DefaultApplicationArguments());
+
+        assertEquals(-1, warmup.getDurationMillis());
+    }
+}
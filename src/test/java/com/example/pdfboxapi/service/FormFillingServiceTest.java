@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 
@@ -25,6 +26,15 @@ public class FormFillingServiceTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Spy
+    private DocumentSource documentSource = ServiceTestSupport.documentSource();
+
+    @Spy
+    private Bulkheads bulkheads = ServiceTestSupport.bulkheads();
+
+    @Spy
+    private AdmissionControl admissionControl = ServiceTestSupport.admissionControl();
+
     @InjectMocks
     private FormFillingService formFillingService;
 
@@ -0,0 +1,116 @@
+package com.example.pdfboxapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GlyphColumns
+ */
+public class GlyphColumnsTest {
+
+    @Test
+    void testBinaryBlockRoundTrips() throws IOException {
+        GlyphColumns page = new GlyphColumns(3, 595.28f, 841.89f);
+        page.add("H", "Helvetica", 72f, 100.5f, 7.22f, 6.5f, 10f);
+        page.add("i", "Helvetica", 79.22f, 100.5f, 2.22f, 6.5f, 10f);
+        page.add("!", "Times-Bold", 60f, 90f, 3.33f, 6.6f, 12f);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        GlyphColumns.writeHeader(baos);
+        page.writeTo(baos);
+        GlyphColumns.writeEnd(baos);
+
+        InputStream in = new ByteArrayInputStream(baos.toByteArray());
+        assertEquals("PGL1", new String(in.readNBytes(4), StandardCharsets.US_ASCII));
+        assertEquals(3, readVarint(in));
+        assertEquals(59528, readVarint(in));
+        assertEquals(84189, readVarint(in));
+        assertEquals(List.of("H", "i", "!"), readStrings(in));
+        assertEquals(List.of("Helvetica", "Times-Bold"), readStrings(in));
+        assertEquals(3, readVarint(in));
+        assertArrayEquals(new int[] {0, 1, 2}, readColumn(in, 3));
+        assertArrayEquals(new int[] {0, 0, 1}, readColumn(in, 3));
+        assertArrayEquals(new int[] {7200, 7922, 6000}, readDeltaColumn(in, 3));
+        assertArrayEquals(new int[] {10050, 10050, 9000}, readDeltaColumn(in, 3));
+        assertArrayEquals(new int[] {722, 222, 333}, readDeltaColumn(in, 3));
+        assertArrayEquals(new int[] {650, 650, 660}, readDeltaColumn(in, 3));
+        assertArrayEquals(new int[] {1000, 1000, 1200}, readDeltaColumn(in, 3));
+        assertEquals(0, readVarint(in));
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void testJsonHoldsDeltaColumns() {
+        GlyphColumns page = new GlyphColumns(1, 100f, 100f);
+        page.add("a", null, 10f, 20f, 5f, 6f, 10f);
+        page.add("a", null, 15f, 20f, 5f, 6f, 10f);
+
+        Map<String, Object> json = page.toJson();
+
+        assertEquals(List.of("a"), json.get("texts"));
+        assertEquals(List.of(""), json.get("fonts"));
+        assertArrayEquals(new int[] {0, 0}, (int[]) json.get("text"));
+        assertArrayEquals(new int[] {1000, 500}, (int[]) json.get("dx"));
+        assertArrayEquals(new int[] {2000, 0}, (int[]) json.get("dy"));
+    }
+
+    @Test
+    void testColumnsGrowBeyondInitialCapacity() {
+        GlyphColumns page = new GlyphColumns(1, 100f, 100f);
+        for (int i = 0; i < 1000; i++) {
+            page.add("x", "F", i, 0f, 1f, 1f, 1f);
+        }
+
+        assertEquals(1000, page.size());
+        assertEquals(1000, ((int[]) page.toJson().get("dx")).length);
+    }
+
+    private static int readVarint(InputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.read();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static List<String> readStrings(InputStream in) throws IOException {
+        int count = readVarint(in);
+        String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            strings[i] = new String(in.readNBytes(readVarint(in)), StandardCharsets.UTF_8);
+        }
+        return List.of(strings);
+    }
+
+    private static int[] readColumn(InputStream in, int count) throws IOException {
+        int[] column = new int[count];
+        for (int i = 0; i < count; i++) {
+            column[i] = readVarint(in);
+        }
+        return column;
+    }
+
+    private static int[] readDeltaColumn(InputStream in, int count) throws IOException {
+        int[] column = new int[count];
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            int zigzag = readVarint(in);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            column[i] = previous;
+        }
+        return column;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.pdfboxapi.service;
+
+import com.example.pdfboxapi.model.request.ImageEncoding;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ImageEncoders
+ */
+public class ImageEncodersTest {
+
+    private final ImageEncoders imageEncoders = new ImageEncoders();
+
+    @Test
+    void testPngFiltersRoundTrip() throws IOException {
+        BufferedImage image = sampleImage(BufferedImage.TYPE_INT_RGB);
+
+        for (ImageEncoding.PngFilter filter : ImageEncoding.PngFilter.values()) {
+            for (int level : new int[] {0, 1, 9}) {
+                ImageEncoding encoding = new ImageEncoding();
+                encoding.setPngFilter(filter);
+                encoding.setPngCompression(level);
+
+                BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(encode(image, "PNG", encoding)));
+
+                assertSamePixels(image, decoded, filter + " level " + level);
+            }
+        }
+    }
+
+    @Test
+    void testGrayPngRoundTrip() throws IOException {
+        BufferedImage image = sampleImage(BufferedImage.TYPE_BYTE_GRAY);
+        ImageEncoding encoding = new ImageEncoding();
+        encoding.setPngFilter(ImageEncoding.PngFilter.UP);
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(encode(image, "PNG", encoding)));
+
+        assertEquals(BufferedImage.TYPE_BYTE_GRAY, decoded.getType());
+        assertSamePixels(image, decoded, "gray");
+    }
+
+    @Test
+    void testPngCompressionLevelTradesSizeForSpeed() throws IOException {
+        BufferedImage image = sampleImage(BufferedImage.TYPE_INT_RGB);
+        ImageEncoding stored = new ImageEncoding();
+        stored.setPngCompression(0);
+        ImageEncoding smallest = new ImageEncoding();
+        smallest.setPngCompression(9);
+
+        assertTrue(encode(image, "PNG", smallest).length < encode(image, "PNG", stored).length);
+    }
+
+    @Test
+    void testJpegQualityAndProgressive() throws IOException {
+        BufferedImage image = sampleImage(BufferedImage.TYPE_INT_RGB);
+        ImageEncoding low = new ImageEncoding();
+        low.setJpegQuality(0.3f);
+        ImageEncoding high = new ImageEncoding();
+        high.setJpegQuality(0.95f);
+        ImageEncoding progressive = new ImageEncoding();
+        progressive.setJpegProgressive(true);
+
+        assertTrue(encode(image, "JPEG", low).length < encode(image, "JPEG", high).length);
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(encode(image, "JPG", progressive)));
+        assertEquals(image.getWidth(), decoded.getWidth());
+    }
+
+    @Test
+    void testWritersAreReused() throws IOException {
+        BufferedImage image = sampleImage(BufferedImage.TYPE_INT_RGB);
+        ImageEncoding encoding = new ImageEncoding();
+
+        byte[] first = encode(image, "PNG", encoding);
+        byte[] second = encode(image, "PNG", encoding);
+
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    void testValidate() {
+        ImageEncoding encoding = new ImageEncoding();
+        imageEncoders.validate("PNG", encoding);
+
+        assertThrows(IllegalArgumentException.class, () -> imageEncoders.validate("NOPE", encoding));
+        encoding.setPngCompression(10);
+        assertThrows(IllegalArgumentException.class, () -> imageEncoders.validate("PNG", encoding));
+        encoding.setPngCompression(null);
+        encoding.setJpegQuality(1.5f);
+        assertThrows(IllegalArgumentException.class, () -> imageEncoders.validate("JPEG", encoding));
+    }
+
+    @Test
+    void testVariantReflectsSettingsOfFormat() {
+        ImageEncoding encoding = new ImageEncoding();
+        encoding.setPngCompression(3);
+        encoding.setJpegQuality(0.8f);
+
+        assertEquals("png-3-adaptive", imageEncoders.variant("PNG", encoding));
+        assertEquals("jpeg-0.8", imageEncoders.variant("JPG", encoding));
+        assertEquals("bmp", imageEncoders.variant("BMP", encoding));
+    }
+
+    private byte[] encode(BufferedImage image, String format, ImageEncoding encoding) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        imageEncoders.encode(image, format, encoding, baos);
+        return baos.toByteArray();
+    }
+
+    private static BufferedImage sampleImage(int type) {
+        BufferedImage image = new BufferedImage(120, 80, type);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.WHITE, 120, 80, Color.BLUE));
+        graphics.fillRect(0, 0, 120, 80);
+        graphics.setColor(Color.RED);
+        graphics.drawString("PDFBox", 10, 40);
+        graphics.dispose();
+        return image;
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual, String message) {
+        assertEquals(expected.getWidth(), actual.getWidth(), message);
+        assertEquals(expected.getHeight(), actual.getHeight(), message);
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), message + " at " + x + "," + y);
+            }
+        }
+    }
+}
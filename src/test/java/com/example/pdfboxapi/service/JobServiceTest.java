@@ -0,0 +1,199 @@
+package com.example.pdfboxapi.service;
+
+import com.example.pdfboxapi.model.request.PdfMergeRequest;
+import com.example.pdfboxapi.model.request.PdfSplitRequest;
+import com.example.pdfboxapi.model.request.PdfValidationRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for JobService
+ */
+public class JobServiceTest {
+
+    @TempDir
+    Path jobsDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final PdfMergeService pdfMergeService = mock(PdfMergeService.class);
+    private final PdfValidationService pdfValidationService = mock(PdfValidationService.class);
+    private final PdfSplitService pdfSplitService = mock(PdfSplitService.class);
+
+    private JobStore jobStore;
+    private JobService jobService;
+    private MockMultipartFile pdfFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        jobStore = new JobStore(jobsDir.toString(), objectMapper);
+        jobService = newJobService();
+        try (InputStream is = getClass().getResourceAsStream("/sample.pdf")) {
+            pdfFile = new MockMultipartFile("pdfFile", "sample.pdf", "application/pdf", is.readAllBytes());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+    }
+
+    @Test
+    void testMergeJobWritesResult() throws Exception {
+        doAnswer(invocation -> {
+            PdfMergeRequest request = invocation.getArgument(0);
+            OutputStream out = invocation.getArgument(1);
+            out.write(("merged " + request.getPdfFiles().length).getBytes());
+            return null;
+        }).when(pdfMergeService).mergePdfs(any(PdfMergeRequest.class), any(OutputStream.class));
+
+        Job job = jobService.submitMerge(new MultipartFile[] {pdfFile, pdfFile});
+        awaitFinished(job);
+
+        assertEquals(Job.Status.SUCCEEDED, job.getStatus());
+        assertEquals(1, job.getDone());
+        assertEquals(1, job.getTotal());
+        assertEquals("merged.pdf", job.getResultFilename());
+        assertEquals("merged 2", Files.readString(jobService.getResult(job.getId())));
+        assertNotNull(job.getExpiresAt());
+    }
+
+    @Test
+    void testValidationJobWritesJson() throws Exception {
+        when(pdfValidationService.validatePdf(any(PdfValidationRequest.class))).thenReturn(List.of("No XMP"));
+
+        Job job = jobService.submitValidation(pdfFile, "PDF/A-1b");
+        awaitFinished(job);
+
+        assertEquals(Job.Status.SUCCEEDED, job.getStatus());
+        String json = Files.readString(jobService.getResult(job.getId()));
+        assertTrue(json.contains("\"valid\":false"));
+        assertTrue(json.contains("No XMP"));
+    }
+
+    @Test
+    void testSplitJobPassesSizeOptions() throws Exception {
+        ArgumentCaptor<PdfSplitRequest> request = ArgumentCaptor.forClass(PdfSplitRequest.class);
+        when(pdfSplitService.prepareSplit(request.capture())).thenReturn(mock(PartProducer.class));
+
+        Job job = jobService.submitSplit(pdfFile, PdfSplitRequest.SplitType.BY_SIZE, null, true, 65536L);
+        awaitFinished(job);
+
+        assertEquals(Job.Status.SUCCEEDED, job.getStatus());
+        assertEquals(PdfSplitRequest.SplitType.BY_SIZE, request.getValue().getSplitType());
+        assertEquals(65536L, request.getValue().getMaxPartSize());
+        assertTrue(request.getValue().isCompact());
+    }
+
+    @Test
+    void testSizeSplitWithoutMaxPartSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> jobService.submitSplit(pdfFile, PdfSplitRequest.SplitType.BY_SIZE, null, false, null));
+    }
+
+    @Test
+    void testFailedJobHasNoResult() throws Exception {
+        when(pdfValidationService.validatePdf(any(PdfValidationRequest.class)))
+                .thenThrow(new IOException("Broken xref"));
+
+        Job job = jobService.submitValidation(pdfFile, "PDF/A-1b");
+        awaitFinished(job);
+
+        assertEquals(Job.Status.FAILED, job.getStatus());
+        assertEquals("Broken xref", job.getError());
+        assertThrows(IllegalStateException.class, () -> jobService.getResult(job.getId()));
+    }
+
+    @Test
+    void testRejectedJobIsRetried() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        when(pdfValidationService.validatePdf(any(PdfValidationRequest.class))).thenAnswer(invocation -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new AdmissionRejectedException("Server is at capacity", 1);
+            }
+            return List.of();
+        });
+
+        Job job = jobService.submitValidation(pdfFile, "PDF/A-1b");
+        awaitFinished(job);
+
+        assertEquals(Job.Status.SUCCEEDED, job.getStatus());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void testUnfinishedJobsAreRecoveredAfterRestart() throws Exception {
+        jobService.shutdown();
+
+        // A job that was running when the previous instance stopped
+        Job interrupted = new Job();
+        interrupted.setId("interrupted");
+        interrupted.setType(Job.Type.VALIDATE);
+        interrupted.setStatus(Job.Status.RUNNING);
+        interrupted.getParams().put("profile", "PDF/A-1b");
+        interrupted.setCreatedAt(Instant.now());
+        jobStore.create(interrupted);
+        jobStore.addInput(interrupted, pdfFile);
+        jobStore.save(interrupted);
+
+        when(pdfValidationService.validatePdf(any(PdfValidationRequest.class))).thenAnswer(invocation -> {
+            PdfValidationRequest request = invocation.getArgument(0);
+            assertEquals("sample.pdf", request.getPdfFile().getOriginalFilename());
+            assertEquals(pdfFile.getSize(), request.getPdfFile().getSize());
+            return List.of();
+        });
+
+        jobService = newJobService();
+        jobService.recover();
+        Job recovered = jobService.get("interrupted");
+        awaitFinished(recovered);
+
+        assertEquals(Job.Status.SUCCEEDED, recovered.getStatus());
+        assertTrue(Files.exists(jobStore.getResultPath(recovered)));
+    }
+
+    @Test
+    void testDelete() throws Exception {
+        when(pdfValidationService.validatePdf(any(PdfValidationRequest.class))).thenReturn(List.of());
+
+        Job job = jobService.submitValidation(pdfFile, "PDF/A-1b");
+        awaitFinished(job);
+
+        assertTrue(jobService.delete(job.getId()));
+        assertFalse(Files.exists(jobsDir.resolve(job.getId())));
+        assertThrows(IllegalArgumentException.class, () -> jobService.get(job.getId()));
+        assertFalse(jobService.delete(job.getId()));
+    }
+
+    private JobService newJobService() {
+        return new JobService(jobStore, pdfMergeService, mock(PdfToImageService.class),
+                pdfSplitService, pdfValidationService, objectMapper, 2, Duration.ofHours(1));
+    }
+
+    private static void awaitFinished(Job job) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!job.isFinished()) {
+            assertTrue(System.nanoTime() < deadline, "Job did not finish in time");
+            Thread.sleep(20);
+        }
+    }
+}
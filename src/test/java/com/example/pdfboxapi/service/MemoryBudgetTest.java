@@ -0,0 +1,134 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.io.RandomAccess;
+import org.apache.pdfbox.io.RandomAccessStreamCache;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MemoryBudget
+ */
+public class MemoryBudgetTest {
+
+    @TempDir
+    Path scratchDir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MemoryBudget memoryBudget;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        memoryBudget = new MemoryBudget(DataSize.ofMegabytes(4), DataSize.ofMegabytes(6),
+                scratchDir.toString(), meterRegistry);
+    }
+
+    @Test
+    void testCachesTakeHeapOnlyAsBuffersGrow() throws IOException {
+        try (RandomAccessStreamCache first = memoryBudget.streamCache().create();
+             RandomAccessStreamCache second = memoryBudget.streamCache().create();
+             RandomAccessStreamCache third = memoryBudget.streamCache().create()) {
+            // Open caches without content hold nothing, so later documents still get heap
+            assertEquals(0, memoryBudget.getReservedBytes());
+
+            RandomAccess buffer = third.createBuffer();
+            buffer.write(new byte[100_000]);
+            assertEquals(2L * MemoryBudget.RESERVATION_STEP, memoryBudget.getReservedBytes());
+            buffer.close();
+            assertEquals(0, memoryBudget.getReservedBytes());
+        }
+    }
+
+    @Test
+    void testBufferSpillsBeyondThePerRequestCap() throws IOException {
+        byte[] content = content(DataSize.ofMegabytes(5));
+        try (RandomAccessStreamCache cache = memoryBudget.streamCache().create()) {
+            RandomAccess buffer = cache.createBuffer();
+            buffer.write(content, 0, 3_000_000);
+            assertEquals(roundUp(3_000_000), memoryBudget.getReservedBytes());
+
+            // The rest does not fit the 4MB cap: the buffer moves to a scratch file and gives its heap back
+            buffer.write(content, 3_000_000, content.length - 3_000_000);
+            assertEquals(0, memoryBudget.getReservedBytes());
+            assertArrayEquals(content, readAll(buffer));
+        }
+    }
+
+    @Test
+    void testStreamCachesShareTheGlobalBudget() throws IOException {
+        byte[] content = content(DataSize.ofMegabytes(3));
+        try (RandomAccessStreamCache first = memoryBudget.streamCache().create();
+             RandomAccessStreamCache second = memoryBudget.streamCache().create();
+             RandomAccessStreamCache third = memoryBudget.streamCache().create()) {
+            RandomAccess firstBuffer = first.createBuffer();
+            RandomAccess secondBuffer = second.createBuffer();
+            RandomAccess thirdBuffer = third.createBuffer();
+            firstBuffer.write(content);
+            secondBuffer.write(content);
+            assertEquals(DataSize.ofMegabytes(6).toBytes(), memoryBudget.getReservedBytes());
+            assertEquals(0, memoryBudget.getAvailableBytes());
+
+            // The global budget is used up, so the third buffer goes to a scratch file
+            thirdBuffer.write(content);
+            assertEquals(DataSize.ofMegabytes(6).toBytes(), memoryBudget.getReservedBytes());
+            assertArrayEquals(content, readAll(thirdBuffer));
+        }
+        assertEquals(0, memoryBudget.getReservedBytes());
+    }
+
+    @Test
+    void testClosingDocumentReleasesReservation() throws IOException {
+        try (PDDocument document = new PDDocument(memoryBudget.streamCache())) {
+            document.addPage(new PDPage());
+            document.save(OutputStream.nullOutputStream());
+        }
+        assertEquals(0, memoryBudget.getReservedBytes());
+    }
+
+    @Test
+    void testMetricsReportBudgetAndUsage() throws IOException {
+        try (RandomAccessStreamCache cache = memoryBudget.streamCache().create()) {
+            cache.createBuffer().write(new byte[1000]);
+            assertEquals(DataSize.ofMegabytes(6).toBytes(),
+                    meterRegistry.get("pdfbox.memory.budget").gauge().value());
+            assertEquals(MemoryBudget.RESERVATION_STEP,
+                    meterRegistry.get("pdfbox.memory.reserved").gauge().value());
+            assertEquals(1, meterRegistry.get("pdfbox.memory.caches.active").gauge().value());
+        }
+        assertEquals(0, meterRegistry.get("pdfbox.memory.reserved").gauge().value());
+        assertEquals(0, meterRegistry.get("pdfbox.memory.caches.active").gauge().value());
+    }
+
+    private static byte[] content(DataSize size) {
+        byte[] content = new byte[(int) size.toBytes()];
+        new Random(42).nextBytes(content);
+        return content;
+    }
+
+    private static byte[] readAll(RandomAccess buffer) throws IOException {
+        buffer.seek(0);
+        byte[] content = new byte[(int) buffer.length()];
+        int offset = 0;
+        while (offset < content.length) {
+            offset += buffer.read(content, offset, content.length - offset);
+        }
+        return content;
+    }
+
+    private static long roundUp(long bytes) {
+        return (bytes + MemoryBudget.RESERVATION_STEP - 1) / MemoryBudget.RESERVATION_STEP
+                * MemoryBudget.RESERVATION_STEP;
+    }
+}
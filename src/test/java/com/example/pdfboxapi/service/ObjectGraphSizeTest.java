@@ -0,0 +1,78 @@
+package com.example.pdfboxapi.service;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ObjectGraphSize
+ */
+public class ObjectGraphSizeTest {
+
+    @Test
+    void testNestedEntriesNamedLikeBackReferencesAreCounted() {
+        COSDictionary plain = graphicsState();
+        COSDictionary dashed = graphicsState();
+        COSArray dashPattern = new COSArray();
+        dashPattern.add(COSInteger.get(3));
+        dashPattern.add(COSInteger.get(2));
+        COSArray dash = new COSArray();
+        dash.add(dashPattern);
+        dash.add(COSInteger.ZERO);
+        dashed.setItem(COSName.D, dash);
+
+        long plainSize = new ObjectGraphSize().addPage(page(plain), null);
+        long dashedSize = new ObjectGraphSize().addPage(page(dashed), null);
+
+        assertTrue(dashedSize > plainSize, dashedSize + " <= " + plainSize);
+    }
+
+    @Test
+    void testAnnotationOwnerIsNotCounted() {
+        COSDictionary other = page(graphicsState());
+        COSDictionary annotation = new COSDictionary();
+        annotation.setItem(COSName.TYPE, COSName.ANNOT);
+        annotation.setItem(COSName.SUBTYPE, COSName.getPDFName("Text"));
+        COSArray annotations = new COSArray();
+        annotations.add(annotation);
+        long withoutOwner = new ObjectGraphSize().addPage(page(graphicsState()), annotations);
+
+        annotation.setItem(COSName.P, other);
+        long withOwner = new ObjectGraphSize().addPage(page(graphicsState()), annotations);
+
+        assertEquals(withoutOwner, withOwner);
+    }
+
+    @Test
+    void testSharedResourcesAreCountedOnce() {
+        COSDictionary state = graphicsState();
+        ObjectGraphSize size = new ObjectGraphSize();
+        long first = size.addPage(page(state), null);
+        long second = size.addPage(page(state), null);
+
+        assertTrue(second < first, second + " >= " + first);
+        assertEquals(ObjectGraphSize.DOCUMENT_OVERHEAD + first + second, size.getSize());
+    }
+
+    private static COSDictionary graphicsState() {
+        COSDictionary state = new COSDictionary();
+        state.setItem(COSName.TYPE, COSName.EXT_G_STATE);
+        state.setItem(COSName.LW, COSInteger.get(2));
+        return state;
+    }
+
+    private static COSDictionary page(COSDictionary graphicsState) {
+        COSDictionary states = new COSDictionary();
+        states.setItem(COSName.getPDFName("GS0"), graphicsState);
+        COSDictionary resources = new COSDictionary();
+        resources.setItem(COSName.EXT_G_STATE, states);
+        PDPage page = new PDPage();
+        page.getCOSObject().setItem(COSName.RESOURCES, resources);
+        return page.getCOSObject();
+    }
+}
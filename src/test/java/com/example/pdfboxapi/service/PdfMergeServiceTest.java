@@ -5,6 +5,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
@@ -20,6 +21,18 @@ import static org.junit.jupiter.api.Assertions.*;
 @ExtendWith(MockitoExtension.class)
 public class PdfMergeServiceTest {
 
+    @Spy
+    private MemoryBudget memoryBudget = ServiceTestSupport.memoryBudget();
+
+    @Spy
+    private DocumentSource documentSource = ServiceTestSupport.documentSource(memoryBudget);
+
+    @Spy
+    private Bulkheads bulkheads = ServiceTestSupport.bulkheads();
+
+    @Spy
+    private AdmissionControl admissionControl = ServiceTestSupport.admissionControl();
+
     @InjectMocks
     private PdfMergeService pdfMergeService;
 
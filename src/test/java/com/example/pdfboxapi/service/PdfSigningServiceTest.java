@@ -5,6 +5,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 
@@ -23,6 +24,15 @@ import static org.junit.jupiter.api.Assertions.*;
 @ExtendWith(MockitoExtension.class)
 public class PdfSigningServiceTest {
 
+    @Spy
+    private DocumentSource documentSource = ServiceTestSupport.documentSource();
+
+    @Spy
+    private Bulkheads bulkheads = ServiceTestSupport.bulkheads();
+
+    @Spy
+    private AdmissionControl admissionControl = ServiceTestSupport.admissionControl();
+
     @InjectMocks
     private PdfSigningService pdfSigningService;
 
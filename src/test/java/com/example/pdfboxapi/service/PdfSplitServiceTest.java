@@ -1,16 +1,37 @@
 package com.example.pdfboxapi.service;
 
 import com.example.pdfboxapi.model.request.PdfSplitRequest;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationLink;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageDestination;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageXYZDestination;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -20,6 +41,18 @@ import static org.junit.jupiter.api.Assertions.*;
 @ExtendWith(MockitoExtension.class)
 public class PdfSplitServiceTest {
 
+    @Spy
+    private MemoryBudget memoryBudget = ServiceTestSupport.memoryBudget();
+
+    @Spy
+    private DocumentSource documentSource = ServiceTestSupport.documentSource(memoryBudget);
+
+    @Spy
+    private Bulkheads bulkheads = ServiceTestSupport.bulkheads();
+
+    @Spy
+    private AdmissionControl admissionControl = ServiceTestSupport.admissionControl();
+
     @InjectMocks
     private PdfSplitService pdfSplitService;
 
@@ -117,4 +150,148 @@ public class PdfSplitServiceTest {
             pdfSplitService.splitPdf(request);
         });
     }
+
+    @Test
+    void testPrepareSplitStreamsZipEntries() throws IOException {
+        ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+        try (PartProducer parts = pdfSplitService.prepareSplit(request);
+             ZipOutputStream zos = new ZipOutputStream(zipBytes)) {
+            parts.writeTo(new ZipPartOutput(zos, "split_%03d.pdf"));
+        }
+
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(zipBytes.toByteArray()))) {
+            ZipEntry entry = zis.getNextEntry();
+            assertNotNull(entry);
+            assertEquals("split_001.pdf", entry.getName());
+            assertTrue(new String(zis.readAllBytes(), 0, 5).startsWith("%PDF-"));
+            assertNull(zis.getNextEntry());
+        }
+    }
+
+    @Test
+    void testPrepareSplitRejectsInvalidRangeBeforeWriting() {
+        request.setSplitType(PdfSplitRequest.SplitType.BY_RANGE);
+        request.setPageRanges("100");
+
+        assertThrows(IllegalArgumentException.class, () -> pdfSplitService.prepareSplit(request));
+    }
+
+    @Test
+    void testCompactSplitKeepsOnlyResourcesOfEachPart() throws IOException {
+        request.setPdfFile(brochurePdf());
+        List<byte[]> plain = pdfSplitService.splitPdf(request);
+        request.setCompact(true);
+        List<byte[]> compact = pdfSplitService.splitPdf(request);
+
+        assertEquals(3, compact.size());
+        for (int i = 0; i < compact.size(); i++) {
+            try (PDDocument part = Loader.loadPDF(compact.get(i))) {
+                int images = 0;
+                for (COSName name : part.getPage(0).getResources().getXObjectNames()) {
+                    images++;
+                }
+                assertEquals(1, images);
+            }
+            assertTrue(compact.get(i).length < plain.get(i).length,
+                    "Part " + i + ": " + compact.get(i).length + " >= " + plain.get(i).length);
+        }
+    }
+
+    @Test
+    void testCompactSplitKeepsLinksWithinPart() throws IOException {
+        request.setPdfFile(brochurePdf());
+        request.setSplitType(PdfSplitRequest.SplitType.BY_RANGE);
+        request.setPageRanges("1-3,1-2");
+        request.setCompact(true);
+
+        List<byte[]> parts = pdfSplitService.splitPdf(request);
+
+        try (PDDocument part = Loader.loadPDF(parts.get(0))) {
+            PDAnnotationLink link = (PDAnnotationLink) part.getPage(0).getAnnotations().get(0);
+            PDPageDestination destination = (PDPageDestination) link.getDestination();
+            assertSame(part.getPage(2).getCOSObject(), destination.getPage().getCOSObject());
+        }
+        try (PDDocument part = Loader.loadPDF(parts.get(1))) {
+            PDAnnotationLink link = (PDAnnotationLink) part.getPage(0).getAnnotations().get(0);
+            assertNull(link.getDestination());
+            assertEquals(2, part.getNumberOfPages());
+        }
+    }
+
+    @Test
+    void testSplitBySizeKeepsPartsWithinBudget() throws IOException {
+        request.setPdfFile(brochurePdf());
+        request.setSplitType(PdfSplitRequest.SplitType.BY_SIZE);
+        request.setMaxPartSize(100_000L);
+
+        List<byte[]> parts = pdfSplitService.splitPdf(request);
+
+        // Each page carries one incompressible image of about 43 KB
+        assertEquals(2, parts.size());
+        int pages = 0;
+        for (byte[] part : parts) {
+            assertTrue(part.length <= 100_000, "Part of " + part.length + " bytes");
+            try (PDDocument document = Loader.loadPDF(part)) {
+                pages += document.getNumberOfPages();
+            }
+        }
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void testSplitBySizePutsOversizedPageInOwnPart() throws IOException {
+        request.setPdfFile(brochurePdf());
+        request.setSplitType(PdfSplitRequest.SplitType.BY_SIZE);
+        request.setMaxPartSize(10_000L);
+
+        assertEquals(3, pdfSplitService.splitPdf(request).size());
+    }
+
+    @Test
+    void testSplitBySizeRequiresBudget() {
+        request.setSplitType(PdfSplitRequest.SplitType.BY_SIZE);
+        request.setMaxPartSize(null);
+
+        assertThrows(IllegalArgumentException.class, () -> pdfSplitService.prepareSplit(request));
+    }
+
+    /**
+     * Three pages sharing one resource dictionary that holds the image of every
+     * page, with a link from the first page to the last
+     */
+    private static MockMultipartFile brochurePdf() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDResources shared = new PDResources();
+            Random random = new Random(42);
+            List<PDPage> pages = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                PDPage page = new PDPage(PDRectangle.A6);
+                page.setResources(shared);
+                document.addPage(page);
+                pages.add(page);
+
+                BufferedImage noise = new BufferedImage(120, 120, BufferedImage.TYPE_INT_RGB);
+                for (int y = 0; y < noise.getHeight(); y++) {
+                    for (int x = 0; x < noise.getWidth(); x++) {
+                        noise.setRGB(x, y, random.nextInt(0xFFFFFF));
+                    }
+                }
+                PDImageXObject image = LosslessFactory.createFromImage(document, noise);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.drawImage(image, 20, 20);
+                }
+            }
+
+            PDPageXYZDestination destination = new PDPageXYZDestination();
+            destination.setPage(pages.get(2));
+            PDAnnotationLink link = new PDAnnotationLink();
+            link.setRectangle(new PDRectangle(20, 20, 100, 20));
+            link.setDestination(destination);
+            pages.get(0).getAnnotations().add(link);
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            return new MockMultipartFile("pdfFile", "brochure.pdf", "application/pdf", baos.toByteArray());
+        }
+    }
 }
@@ -1,18 +1,42 @@
 package com.example.pdfboxapi.service;
 
+import com.example.pdfboxapi.model.request.PdfThumbnailRequest;
+import com.example.pdfboxapi.model.request.PdfTileRequest;
 import com.example.pdfboxapi.model.request.PdfToImageRequest;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * Unit tests for PdfToImageService
@@ -20,6 +44,33 @@ import static org.junit.jupiter.api.Assertions.*;
 @ExtendWith(MockitoExtension.class)
 public class PdfToImageServiceTest {
 
+    @Spy
+    private DocumentCache documentCache = ServiceTestSupport.documentCache();
+
+    @Spy
+    private DocumentSource documentSource = ServiceTestSupport.documentSource();
+
+    @Spy
+    private RenderPool renderPool = ServiceTestSupport.renderPool();
+
+    @Spy
+    private Bulkheads bulkheads = ServiceTestSupport.bulkheads();
+
+    @Spy
+    private AdmissionControl admissionControl = ServiceTestSupport.admissionControl();
+
+    @Spy
+    private ThumbnailCache thumbnailCache = ServiceTestSupport.thumbnailCache();
+
+    @Spy
+    private RenderedPageCache renderedPageCache = ServiceTestSupport.renderedPageCache();
+
+    @Spy
+    private ImageEncoders imageEncoders = new ImageEncoders();
+
+    @Spy
+    private RasterPool rasterPool = ServiceTestSupport.rasterPool();
+
     @InjectMocks
     private PdfToImageService pdfToImageService;
 
@@ -128,4 +179,296 @@ public class PdfToImageServiceTest {
             pdfToImageService.convertPdfToImages(request);
         });
     }
+
+    @Test
+    void testPrepareConversionStreamsZipEntries() throws IOException {
+        request.setDpi(72);
+
+        ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+        try (PartProducer parts = pdfToImageService.prepareConversion(request);
+             ZipOutputStream zos = new ZipOutputStream(zipBytes)) {
+            parts.writeTo(new ZipPartOutput(zos, "page_%03d.png"));
+        }
+
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(zipBytes.toByteArray()))) {
+            ZipEntry entry = zis.getNextEntry();
+            assertNotNull(entry);
+            assertEquals("page_001.png", entry.getName());
+            assertTrue(zis.readAllBytes().length > 0);
+            assertNull(zis.getNextEntry());
+        }
+    }
+
+    @Test
+    void testPrepareConversionStreamsMultipartParts() throws IOException {
+        request.setPdfFile(multiPagePdf(2));
+        request.setDpi(36);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (PartProducer parts = pdfToImageService.prepareConversion(request)) {
+            MultipartPartOutput output = new MultipartPartOutput(body, "b0", "image/png", "page_%03d.png");
+            parts.writeTo(output);
+            output.finish();
+        }
+
+        String text = body.toString(StandardCharsets.ISO_8859_1);
+        assertTrue(text.startsWith("--b0\r\nContent-Type: image/png\r\n"));
+        assertTrue(text.contains("filename=\"page_001.png\""));
+        assertTrue(text.contains("\r\n--b0\r\nContent-Type: image/png\r\n"));
+        assertTrue(text.contains("filename=\"page_002.png\""));
+        assertTrue(text.endsWith("\r\n--b0--\r\n"));
+    }
+
+    @Test
+    void testFailedOutputStopsRemainingPages() throws IOException {
+        request.setPdfFile(multiPagePdf(12));
+        request.setDpi(36);
+        request.setParallelism(2);
+
+        try (PartProducer parts = pdfToImageService.prepareConversion(request)) {
+            // Simulates a client that disconnects after the first page
+            assertThrows(IOException.class, () -> parts.writeTo(index -> {
+                if (index > 0) {
+                    throw new IOException("Broken pipe");
+                }
+                return new ByteArrayOutputStream();
+            }));
+        }
+
+        // Only the pages in flight when the write failed are rendered
+        assertTrue(renderedPageCache.memorySize() < 12);
+    }
+
+    @Test
+    void testPrepareConversionRejectsUnknownFormat() {
+        request.setImageFormat("NOPE");
+
+        assertThrows(IllegalArgumentException.class, () -> pdfToImageService.prepareConversion(request));
+    }
+
+    @Test
+    void testParallelConversionPreservesPageOrder() throws IOException {
+        request.setPdfFile(multiPagePdf(7));
+        request.setDpi(36);
+
+        request.setParallelism(1);
+        List<byte[]> sequential = pdfToImageService.convertPdfToImages(request);
+        request.setParallelism(3);
+        List<byte[]> parallel = pdfToImageService.convertPdfToImages(request);
+
+        assertEquals(7, sequential.size());
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertArrayEquals(sequential.get(i), parallel.get(i), "page " + (i + 1));
+        }
+    }
+
+    @Test
+    void testRenderedPagesAreCached() throws IOException {
+        request.setPdfFile(multiPagePdf(3));
+        request.setDpi(36);
+
+        List<byte[]> first = pdfToImageService.convertPdfToImages(request);
+        request.setPageNumber(2);
+        List<byte[]> second = pdfToImageService.convertPdfToImages(request);
+
+        assertEquals(3, renderedPageCache.memorySize());
+        verify(renderedPageCache, times(3)).put(anyString(), any(byte[].class));
+        assertArrayEquals(first.get(1), second.get(0));
+    }
+
+    @Test
+    void testPooledRasterMatchesRenderedImage() throws IOException {
+        MockMultipartFile pages;
+        List<BufferedImage> expected = new ArrayList<>();
+        try (PDDocument document = ServiceTestSupport.documentSource().load(multiPagePdf(3))) {
+            document.getPage(1).setRotation(90);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            pages = new MockMultipartFile("pages.pdf", "pages.pdf", "application/pdf", baos.toByteArray());
+            PDFRenderer renderer = new PDFRenderer(document);
+            for (int i = 0; i < 3; i++) {
+                expected.add(renderer.renderImageWithDPI(i, 72, ImageType.RGB));
+            }
+        }
+        request.setPdfFile(pages);
+        request.setDpi(72);
+        request.setParallelism(1);
+
+        List<byte[]> images = pdfToImageService.convertPdfToImages(request);
+
+        for (int i = 0; i < 3; i++) {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(images.get(i)));
+            assertEquals(expected.get(i).getWidth(), image.getWidth(), "page " + (i + 1));
+            assertEquals(expected.get(i).getHeight(), image.getHeight(), "page " + (i + 1));
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    assertEquals(expected.get(i).getRGB(x, y), image.getRGB(x, y), "page " + (i + 1));
+                }
+            }
+        }
+        // Pages 1 and 3 share one raster; the rotated page needs its own
+        assertEquals(2, rasterPool.size());
+    }
+
+    @Test
+    void testConvertPdfToImagesWithInvalidParallelism() {
+        request.setParallelism(0);
+
+        assertThrows(IllegalArgumentException.class, () -> pdfToImageService.convertPdfToImages(request));
+    }
+
+    @Test
+    void testRenderTileMatchesRegionOfFullPage() throws IOException {
+        MockMultipartFile pages = multiPagePdf(2);
+        BufferedImage fullPage;
+        try (PDDocument document = ServiceTestSupport.documentSource().load(pages)) {
+            fullPage = new PDFRenderer(document).renderImageWithDPI(1, 144, ImageType.RGB);
+        }
+
+        // Covers the start of the "Page 2" text
+        PdfTileRequest tileRequest = tileRequest(pages, 2, 144, 60, 440, 200, 120);
+        BufferedImage tile = ImageIO.read(new ByteArrayInputStream(pdfToImageService.renderTile(tileRequest)));
+
+        assertEquals(200, tile.getWidth());
+        assertEquals(120, tile.getHeight());
+        int differing = 0;
+        int inked = 0;
+        for (int y = 0; y < tile.getHeight(); y++) {
+            for (int x = 0; x < tile.getWidth(); x++) {
+                if (tile.getRGB(x, y) != fullPage.getRGB(60 + x, 440 + y)) {
+                    differing++;
+                }
+                if (tile.getRGB(x, y) != 0xFFFFFFFF) {
+                    inked++;
+                }
+            }
+        }
+        assertTrue(inked > 0, "tile is blank");
+        // Allow for anti-aliasing differences along glyph edges
+        assertTrue(differing < tile.getWidth() * tile.getHeight() / 100, differing + " pixels differ");
+    }
+
+    @Test
+    void testRenderTileIsClippedAtPageEdge() throws IOException {
+        // A6 is 297.6 x 419.5 points, i.e. 595 x 839 pixels at 144 DPI
+        PdfTileRequest tileRequest = tileRequest(multiPagePdf(1), 1, 144, 500, 800, 512, 512);
+
+        BufferedImage tile = ImageIO.read(new ByteArrayInputStream(pdfToImageService.renderTile(tileRequest)));
+
+        assertEquals(95, tile.getWidth());
+        assertEquals(39, tile.getHeight());
+    }
+
+    @Test
+    void testRenderTileRejectsInvalidRegion() throws IOException {
+        MockMultipartFile pages = multiPagePdf(1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> pdfToImageService.renderTile(tileRequest(pages, 1, 144, 600, 0, 512, 512)));
+        assertThrows(IllegalArgumentException.class,
+                () -> pdfToImageService.renderTile(tileRequest(pages, 1, 144, -1, 0, 512, 512)));
+        assertThrows(IllegalArgumentException.class,
+                () -> pdfToImageService.renderTile(tileRequest(pages, 1, 144, 0, 0, 0, 512)));
+        assertThrows(IllegalArgumentException.class,
+                () -> pdfToImageService.renderTile(tileRequest(pages, 2, 144, 0, 0, 512, 512)));
+    }
+
+    @Test
+    void testTileKeyChangesWithRegion() throws IOException {
+        MockMultipartFile pages = multiPagePdf(1);
+
+        String key = pdfToImageService.tileKey(tileRequest(pages, 1, 144, 0, 0, 256, 256));
+
+        assertEquals(key, pdfToImageService.tileKey(tileRequest(pages, 1, 144, 0, 0, 256, 256)));
+        assertNotEquals(key, pdfToImageService.tileKey(tileRequest(pages, 1, 144, 256, 0, 256, 256)));
+        assertNotEquals(key, pdfToImageService.tileKey(tileRequest(pages, 1, 300, 0, 0, 256, 256)));
+    }
+
+    @Test
+    void testThumbnailsFitTargetSize() throws IOException {
+        PdfThumbnailRequest thumbnailRequest = new PdfThumbnailRequest();
+        thumbnailRequest.setPdfFile(multiPagePdf(5));
+        thumbnailRequest.setMaxSize(160);
+
+        List<byte[]> thumbnails = thumbnails(thumbnailRequest);
+
+        assertEquals(5, thumbnails.size());
+        for (byte[] thumbnail : thumbnails) {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(thumbnail));
+            // A6 portrait: the height is the longer edge
+            assertEquals(160, image.getHeight());
+            assertEquals(113, image.getWidth());
+        }
+    }
+
+    @Test
+    void testThumbnailsAreCached() throws IOException {
+        PdfThumbnailRequest thumbnailRequest = new PdfThumbnailRequest();
+        thumbnailRequest.setPdfFile(multiPagePdf(4));
+        thumbnailRequest.setParallelism(2);
+
+        List<byte[]> first = thumbnails(thumbnailRequest);
+        thumbnailRequest.setParallelism(1);
+        List<byte[]> second = thumbnails(thumbnailRequest);
+
+        assertEquals(4, thumbnailCache.size());
+        verify(thumbnailCache, times(4)).put(anyString(), any(byte[].class));
+        for (int i = 0; i < first.size(); i++) {
+            assertArrayEquals(first.get(i), second.get(i), "page " + (i + 1));
+        }
+    }
+
+    @Test
+    void testThumbnailsRejectInvalidSize() {
+        PdfThumbnailRequest thumbnailRequest = new PdfThumbnailRequest();
+        thumbnailRequest.setPdfFile(pdfFile);
+        thumbnailRequest.setMaxSize(0);
+
+        assertThrows(IllegalArgumentException.class, () -> pdfToImageService.prepareThumbnails(thumbnailRequest));
+    }
+
+    private List<byte[]> thumbnails(PdfThumbnailRequest thumbnailRequest) throws IOException {
+        List<ByteArrayOutputStream> parts = new ArrayList<>();
+        try (PartProducer producer = pdfToImageService.prepareThumbnails(thumbnailRequest)) {
+            producer.writeTo(index -> {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                parts.add(baos);
+                return baos;
+            });
+        }
+        return parts.stream().map(ByteArrayOutputStream::toByteArray).toList();
+    }
+
+    private static PdfTileRequest tileRequest(MockMultipartFile file, int pageNumber, int dpi, int x, int y,
+            int width, int height) {
+        PdfTileRequest tileRequest = new PdfTileRequest();
+        tileRequest.setPdfFile(file);
+        tileRequest.setPageNumber(pageNumber);
+        tileRequest.setDpi(dpi);
+        tileRequest.setX(x);
+        tileRequest.setY(y);
+        tileRequest.setWidth(width);
+        tileRequest.setHeight(height);
+        return tileRequest;
+    }
+
+    private static MockMultipartFile multiPagePdf(int pages) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 1; i <= pages; i++) {
+                PDPage page = new PDPage(PDRectangle.A6);
+                document.addPage(page);
+                try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                    contents.beginText();
+                    contents.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 48);
+                    contents.newLineAtOffset(40, 150);
+                    contents.showText("Page " + i);
+                    contents.endText();
+                }
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            return new MockMultipartFile("pages.pdf", "pages.pdf", "application/pdf", baos.toByteArray());
+        }
+    }
 }
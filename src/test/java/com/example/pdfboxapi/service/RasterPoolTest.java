@@ -0,0 +1,65 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RasterPool
+ */
+public class RasterPoolTest {
+
+    // Room for two 100x100 RGB rasters of 40,000 bytes each
+    private final RasterPool rasterPool = new RasterPool(DataSize.ofBytes(80_000), new SimpleMeterRegistry());
+
+    @Test
+    void testReleasedRasterIsReused() {
+        BufferedImage image = rasterPool.acquire(100, 100, BufferedImage.TYPE_INT_RGB);
+        rasterPool.release(image);
+
+        assertEquals(40_000, rasterPool.getIdleWeight());
+        assertSame(image, rasterPool.acquire(100, 100, BufferedImage.TYPE_INT_RGB));
+        assertEquals(0, rasterPool.size());
+    }
+
+    @Test
+    void testSizeAndTypeMustMatch() {
+        BufferedImage image = rasterPool.acquire(100, 100, BufferedImage.TYPE_INT_RGB);
+        rasterPool.release(image);
+
+        assertNotSame(image, rasterPool.acquire(100, 101, BufferedImage.TYPE_INT_RGB));
+        BufferedImage gray = rasterPool.acquire(100, 100, BufferedImage.TYPE_BYTE_GRAY);
+        assertNotSame(image, gray);
+        assertEquals(BufferedImage.TYPE_BYTE_GRAY, gray.getType());
+        assertEquals(1, rasterPool.size());
+    }
+
+    @Test
+    void testOldestIdleRasterIsDropped() {
+        BufferedImage first = rasterPool.acquire(100, 100, BufferedImage.TYPE_INT_RGB);
+        BufferedImage second = rasterPool.acquire(100, 100, BufferedImage.TYPE_INT_RGB);
+        BufferedImage third = rasterPool.acquire(100, 100, BufferedImage.TYPE_INT_RGB);
+        rasterPool.release(first);
+        rasterPool.release(second);
+        rasterPool.release(third);
+
+        assertEquals(2, rasterPool.size());
+        assertEquals(80_000, rasterPool.getIdleWeight());
+        BufferedImage a = rasterPool.acquire(100, 100, BufferedImage.TYPE_INT_RGB);
+        BufferedImage b = rasterPool.acquire(100, 100, BufferedImage.TYPE_INT_RGB);
+        assertNotSame(first, a);
+        assertNotSame(first, b);
+    }
+
+    @Test
+    void testOversizedRasterIsNotPooled() {
+        rasterPool.release(new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB));
+
+        assertEquals(0, rasterPool.size());
+        assertEquals(0, rasterPool.getIdleWeight());
+    }
+}
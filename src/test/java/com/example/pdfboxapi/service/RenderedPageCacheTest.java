@@ -0,0 +1,105 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RenderedPageCache
+ */
+public class RenderedPageCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    void testKeyCoversEveryOption() {
+        String key = RenderedPageCache.key("abc", 0, 300, "RGB", "PNG");
+
+        assertEquals("abc_0_300_rgb_png", key);
+        assertNotEquals(key, RenderedPageCache.key("abc", 1, 300, "RGB", "PNG"));
+        assertNotEquals(key, RenderedPageCache.key("abc", 0, 150, "RGB", "PNG"));
+        assertNotEquals(key, RenderedPageCache.key("abc", 0, 300, "GRAY", "PNG"));
+        assertNotEquals(key, RenderedPageCache.key("abc", 0, 300, "RGB", "JPEG"));
+    }
+
+    @Test
+    void testMemoryEvictionOverflowsToDisk() throws IOException {
+        RenderedPageCache cache = newCache(DataSize.ofBytes(200), DataSize.ofKilobytes(1), Duration.ofHours(1));
+        byte[] first = filled(100, 1);
+
+        cache.put("a", first);
+        cache.put("b", filled(100, 2));
+        cache.put("c", filled(100, 3));
+
+        assertEquals(2, cache.memorySize());
+        assertEquals(1, cache.diskSize());
+        assertEquals(100, cache.getDiskWeight());
+        assertArrayEquals(first, Files.readAllBytes(cacheDir.resolve("a.img")));
+
+        // A disk hit is promoted back to memory
+        assertArrayEquals(first, cache.get("a"));
+        assertEquals(2, cache.memorySize());
+        assertNull(cache.get("missing"));
+    }
+
+    @Test
+    void testDiskTierIsCappedBySize() throws IOException {
+        RenderedPageCache cache = newCache(DataSize.ofBytes(100), DataSize.ofBytes(200), Duration.ofHours(1));
+
+        for (int i = 0; i < 5; i++) {
+            cache.put("p" + i, filled(100, i));
+        }
+
+        assertEquals(200, cache.getDiskWeight());
+        assertEquals(2, countFiles());
+        assertNull(cache.get("p0"));
+        assertNotNull(cache.get("p3"));
+    }
+
+    @Test
+    void testDiskTierSurvivesRestartUntilTtl() throws IOException {
+        RenderedPageCache cache = newCache(DataSize.ofBytes(0), DataSize.ofKilobytes(1), Duration.ofHours(1));
+        cache.put("fresh", filled(10, 1));
+        cache.put("stale", filled(10, 2));
+        Files.setLastModifiedTime(cacheDir.resolve("stale.img"),
+                FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        RenderedPageCache restarted = newCache(DataSize.ofBytes(0), DataSize.ofKilobytes(1), Duration.ofHours(1));
+
+        assertArrayEquals(filled(10, 1), restarted.get("fresh"));
+        assertNull(restarted.get("stale"));
+        assertEquals(1, countFiles());
+    }
+
+    private RenderedPageCache newCache(DataSize memory, DataSize disk, Duration ttl) throws IOException {
+        RenderedPageCache cache = new RenderedPageCache(memory, cacheDir.toString(), disk, ttl,
+                new SimpleMeterRegistry());
+        cache.recover();
+        return cache;
+    }
+
+    private static byte[] filled(int length, int value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Shared fixtures for service unit tests
+ */
+final class ServiceTestSupport {
+
+    private static final String TEMP_DIR = System.getProperty("java.io.tmpdir");
+
+    private ServiceTestSupport() {
+    }
+
+    static MemoryBudget memoryBudget() {
+        return new MemoryBudget(DataSize.ofMegabytes(64), DataSize.ofMegabytes(512), TEMP_DIR,
+                new SimpleMeterRegistry());
+    }
+
+    static DocumentSource documentSource() {
+        return documentSource(memoryBudget());
+    }
+
+    static DocumentSource documentSource(MemoryBudget memoryBudget) {
+        return new DocumentSource(DataSize.ofMegabytes(4), DataSize.ofMegabytes(8), TEMP_DIR, memoryBudget,
+                resourceCache());
+    }
+
+    static SharedResourceCache resourceCache() {
+        return new SharedResourceCache(DataSize.ofMegabytes(16), new SimpleMeterRegistry());
+    }
+
+    static DocumentCache documentCache() {
+        return new DocumentCache(documentSource(), admissionControl(), DataSize.ofMegabytes(64),
+                Duration.ofMinutes(1), new SimpleMeterRegistry());
+    }
+
+    static RenderPool renderPool() {
+        return new RenderPool(4, 4);
+    }
+
+    static TextPool textPool() {
+        return new TextPool(4, 4);
+    }
+
+    static Bulkheads bulkheads() {
+        return new Bulkheads(new MockEnvironment(), Duration.ofSeconds(30), new SimpleMeterRegistry());
+    }
+
+    static AdmissionControl admissionControl() {
+        return new AdmissionControl(DataSize.ofGigabytes(1), Duration.ofSeconds(5), 3, new SimpleMeterRegistry());
+    }
+
+    static ThumbnailCache thumbnailCache() {
+        return new ThumbnailCache(DataSize.ofMegabytes(8), new SimpleMeterRegistry());
+    }
+
+    static RenderedPageCache renderedPageCache() {
+        // Disk tier disabled so tests don't share cached pages through the file system
+        return new RenderedPageCache(DataSize.ofMegabytes(16), TEMP_DIR, DataSize.ofBytes(0), Duration.ofHours(1),
+                new SimpleMeterRegistry());
+    }
+
+    static RasterPool rasterPool() {
+        return new RasterPool(DataSize.ofMegabytes(64), new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SharedResourceCache
+ */
+public class SharedResourceCacheTest {
+
+    private final SharedResourceCache resourceCache = new SharedResourceCache(DataSize.ofMegabytes(1),
+            new SimpleMeterRegistry());
+
+    private final DocumentSource documentSource = new DocumentSource(DataSize.ofMegabytes(4),
+            DataSize.ofMegabytes(8), System.getProperty("java.io.tmpdir"), ServiceTestSupport.memoryBudget(),
+            resourceCache);
+
+    @Test
+    void testSameImageIsDecodedOnceAcrossDocuments() throws IOException {
+        BufferedImage logo = logo(Color.RED);
+        MockMultipartFile first = pdfWithImage(logo, "first");
+        MockMultipartFile second = pdfWithImage(logo, "second");
+
+        render(first);
+        assertEquals(1, resourceCache.size());
+        long weight = resourceCache.getWeight();
+
+        render(second);
+        assertEquals(1, resourceCache.size());
+        assertEquals(weight, resourceCache.getWeight());
+    }
+
+    @Test
+    void testDifferentImagesAreKeptApart() throws IOException {
+        render(pdfWithImage(logo(Color.RED), "red"));
+        render(pdfWithImage(logo(Color.BLUE), "blue"));
+
+        assertEquals(2, resourceCache.size());
+    }
+
+    @Test
+    void testSharedImageRendersLikeDefaultCache() throws IOException {
+        MockMultipartFile pdf = pdfWithImage(logo(Color.GREEN), "green");
+        // Warm the shared cache from another document first
+        render(pdfWithImage(logo(Color.GREEN), "other"));
+
+        BufferedImage shared = render(pdf);
+        BufferedImage plain;
+        try (PDDocument document = Loader.loadPDF(pdf.getBytes())) {
+            plain = new PDFRenderer(document).renderImageWithDPI(0, 36);
+        }
+
+        assertEquals(plain.getWidth(), shared.getWidth());
+        assertEquals(plain.getHeight(), shared.getHeight());
+        for (int y = 0; y < plain.getHeight(); y++) {
+            for (int x = 0; x < plain.getWidth(); x++) {
+                assertEquals(plain.getRGB(x, y), shared.getRGB(x, y), "pixel " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsEvicted() {
+        // 100x100 ARGB images take 40000 bytes each
+        SharedResourceCache small = new SharedResourceCache(DataSize.ofBytes(100_000), new SimpleMeterRegistry());
+        small.put("a", new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB));
+        small.put("b", new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB));
+        small.get("a");
+
+        small.put("c", new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB));
+
+        assertNotNull(small.get("a"));
+        assertNull(small.get("b"));
+        assertEquals(2, small.size());
+        assertEquals(80_000, small.getWeight());
+    }
+
+    private BufferedImage render(MockMultipartFile pdf) throws IOException {
+        try (PDDocument document = documentSource.load(pdf)) {
+            return documentSource.renderer(document).renderImageWithDPI(0, 36);
+        }
+    }
+
+    private static BufferedImage logo(Color color) {
+        BufferedImage image = new BufferedImage(64, 32, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, 64, 32);
+        graphics.setColor(color);
+        graphics.fillOval(4, 4, 56, 24);
+        graphics.dispose();
+        return image;
+    }
+
+    private static MockMultipartFile pdfWithImage(BufferedImage logo, String title) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            document.getDocumentInformation().setTitle(title);
+            PDPage page = new PDPage(PDRectangle.A6);
+            document.addPage(page);
+            PDImageXObject image = LosslessFactory.createFromImage(document, logo);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.drawImage(image, 20, 200, 128, 64);
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            return new MockMultipartFile(title + ".pdf", title + ".pdf", "application/pdf", baos.toByteArray());
+        }
+    }
+}
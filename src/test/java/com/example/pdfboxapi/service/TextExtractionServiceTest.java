@@ -1,17 +1,31 @@
 package com.example.pdfboxapi.service;
 
+import com.example.pdfboxapi.model.request.TextBatchRequest;
 import com.example.pdfboxapi.model.request.TextExtractionRequest;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -22,6 +36,21 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 public class TextExtractionServiceTest {
 
+    @Spy
+    private DocumentCache documentCache = ServiceTestSupport.documentCache();
+
+    @Spy
+    private DocumentSource documentSource = ServiceTestSupport.documentSource();
+
+    @Spy
+    private TextPool textPool = ServiceTestSupport.textPool();
+
+    @Spy
+    private Bulkheads bulkheads = ServiceTestSupport.bulkheads();
+
+    @Spy
+    private AdmissionControl admissionControl = ServiceTestSupport.admissionControl();
+
     @InjectMocks
     private TextExtractionService textExtractionService;
 
@@ -106,4 +135,158 @@ public class TextExtractionServiceTest {
             textExtractionService.extractText(request);
         });
     }
+
+    @Test
+    void testParallelExtractionMatchesSequential() throws IOException {
+        request.setPdfFile(multiPagePdf(45));
+
+        String sequential = textExtractionService.extractText(request);
+        request.setParallelism(3);
+        String parallel = textExtractionService.extractText(request);
+
+        assertTrue(sequential.contains("Page 1 line 1"));
+        assertTrue(sequential.contains("Page 45 line 3"));
+        assertEquals(sequential, parallel);
+        verify(documentSource).share(any());
+    }
+
+    @Test
+    void testExtractTextWithInvalidParallelism() {
+        request.setParallelism(0);
+
+        assertThrows(IllegalArgumentException.class, () -> textExtractionService.extractText(request));
+    }
+
+    @Test
+    void testStreamedTextMatchesExtractedText() throws IOException {
+        request.setPdfFile(multiPagePdf(5));
+        String expected = textExtractionService.extractText(request);
+
+        StringWriter streamed = new StringWriter();
+        try (TextProducer text = textExtractionService.prepareTextStream(request)) {
+            text.writeText(streamed);
+        }
+
+        assertEquals(expected, streamed.toString());
+    }
+
+    @Test
+    void testStreamedPagesArriveInOrder() throws IOException {
+        request.setPdfFile(multiPagePdf(5));
+        String expected = textExtractionService.extractText(request);
+
+        List<Integer> pageNumbers = new ArrayList<>();
+        StringBuilder joined = new StringBuilder();
+        try (TextProducer text = textExtractionService.prepareTextStream(request)) {
+            text.writePages((page, pageText) -> {
+                pageNumbers.add(page);
+                assertTrue(pageText.startsWith("Page " + page + " line 1"));
+                joined.append(pageText);
+            });
+        }
+
+        assertEquals(List.of(1, 2, 3, 4, 5), pageNumbers);
+        assertEquals(expected, joined.toString());
+    }
+
+    @Test
+    void testStreamWithInvalidPageNumberIsRejected() throws IOException {
+        request.setPdfFile(multiPagePdf(2));
+        request.setPageNumber(3);
+
+        assertThrows(IllegalArgumentException.class, () -> textExtractionService.prepareTextStream(request));
+    }
+
+    @Test
+    void testStreamedGlyphsCarryPositions() throws IOException {
+        request.setPdfFile(multiPagePdf(2));
+
+        List<GlyphColumns> pages = new ArrayList<>();
+        try (TextProducer text = textExtractionService.prepareTextStream(request)) {
+            text.writeGlyphs(pages::add);
+        }
+
+        assertEquals(2, pages.size());
+        GlyphColumns first = pages.get(0);
+        assertEquals(1, first.getPageNumber());
+        assertTrue(first.size() >= "Page1line1".length() * 3);
+        Map<String, Object> json = first.toJson();
+        assertEquals(List.of("Helvetica"), json.get("fonts"));
+        // First glyph at (20, 380) in PDF space, i.e. 380 points above the bottom of an A6 page
+        assertEquals(20 * GlyphColumns.SCALE, ((int[]) json.get("dx"))[0]);
+        float top = PDRectangle.A6.getHeight() - 380;
+        assertEquals(top * GlyphColumns.SCALE, ((int[]) json.get("dy"))[0], 1);
+        assertEquals(10 * GlyphColumns.SCALE, ((int[]) json.get("dsize"))[0]);
+    }
+
+    @Test
+    void testBatchReportsEveryDocumentAndIsolatesFailures() throws IOException {
+        TextBatchRequest batchRequest = new TextBatchRequest();
+        batchRequest.setPdfFiles(new MultipartFile[] {
+                multiPagePdf(2),
+                new MockMultipartFile("broken.pdf", "broken.pdf", "application/pdf", "not a pdf".getBytes()),
+                multiPagePdf(3)
+        });
+        batchRequest.setParallelism(2);
+
+        List<TextBatchProducer.Result> results = new ArrayList<>();
+        try (TextBatchProducer batch = textExtractionService.prepareBatch(batchRequest)) {
+            batch.writeResults(results::add);
+        }
+
+        assertEquals(3, results.size());
+        results.sort(Comparator.comparingInt(TextBatchProducer.Result::index));
+        assertEquals(2, results.get(0).pages().size());
+        assertTrue(results.get(0).pages().get(1).contains("Page 2 line 1"));
+        assertTrue(results.get(1).failed());
+        assertEquals("broken.pdf", results.get(1).filename());
+        assertEquals(3, results.get(2).pages().size());
+    }
+
+    @Test
+    void testBatchPagesMatchSingleExtraction() throws IOException {
+        request.setPdfFile(multiPagePdf(4));
+        String expected = textExtractionService.extractText(request);
+
+        TextBatchRequest batchRequest = new TextBatchRequest();
+        batchRequest.setPdfFiles(new MultipartFile[] {request.getPdfFile()});
+        List<TextBatchProducer.Result> results = new ArrayList<>();
+        try (TextBatchProducer batch = textExtractionService.prepareBatch(batchRequest)) {
+            batch.writeResults(results::add);
+        }
+
+        assertEquals(expected, String.join("", results.get(0).pages()));
+    }
+
+    @Test
+    void testEmptyBatchIsRejected() {
+        TextBatchRequest batchRequest = new TextBatchRequest();
+        batchRequest.setPdfFiles(new MultipartFile[0]);
+
+        assertThrows(IllegalArgumentException.class, () -> textExtractionService.prepareBatch(batchRequest));
+    }
+
+    private static MockMultipartFile multiPagePdf(int pages) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (int i = 1; i <= pages; i++) {
+                PDPage page = new PDPage(PDRectangle.A6);
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 10);
+                    content.setLeading(14);
+                    content.newLineAtOffset(20, 380);
+                    for (int line = 1; line <= 3; line++) {
+                        content.showText("Page " + i + " line " + line);
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            return new MockMultipartFile("pages.pdf", "pages.pdf", "application/pdf", baos.toByteArray());
+        }
+    }
 }
@@ -0,0 +1,121 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TextIndexService
+ */
+public class TextIndexServiceTest {
+
+    @TempDir
+    Path indexDir;
+
+    private TextExtractionService textExtractionService;
+    private TextIndexService textIndexService;
+
+    @BeforeEach
+    void setUp() {
+        DocumentSource documentSource = ServiceTestSupport.documentSource();
+        textExtractionService = spy(new TextExtractionService(ServiceTestSupport.documentCache(), documentSource,
+                ServiceTestSupport.textPool(), ServiceTestSupport.bulkheads(),
+                ServiceTestSupport.admissionControl()));
+        textIndexService = newService();
+    }
+
+    @Test
+    void testIndexAndSearch() throws IOException {
+        TextIndexService.IndexedDocument indexed = textIndexService.index(pdf("alpha beta", "beta gamma"));
+
+        assertEquals(2, indexed.index().getPageCount());
+        List<TextIndex.Hit> hits = textIndexService.search(indexed.indexId(), "BETA", 3);
+        assertEquals(List.of(1, 2), hits.stream().map(TextIndex.Hit::page).toList());
+        assertEquals(List.of(2), textIndexService.search(indexed.indexId(), "gamma beta", 3)
+                .stream().map(TextIndex.Hit::page).toList());
+        assertTrue(Files.exists(indexDir.resolve(indexed.indexId() + ".idx")));
+    }
+
+    @Test
+    void testSameContentIsIndexedOnce() throws IOException {
+        MockMultipartFile pdfFile = pdf("alpha beta");
+
+        String first = textIndexService.index(pdfFile).indexId();
+        String second = textIndexService.index(pdfFile).indexId();
+
+        assertEquals(first, second);
+        verify(textExtractionService, times(1)).prepareTextStream(any());
+    }
+
+    @Test
+    void testIndexIsLoadedFromDiskAfterRestart() throws IOException {
+        String indexId = textIndexService.index(pdf("alpha beta", "delta")).indexId();
+
+        TextIndexService restarted = newService();
+
+        assertEquals(List.of(2), restarted.search(indexId, "delta", 3)
+                .stream().map(TextIndex.Hit::page).toList());
+        verify(textExtractionService, times(1)).prepareTextStream(any());
+    }
+
+    @Test
+    void testUnknownIndexIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> textIndexService.search("0".repeat(64), "alpha", 3));
+        assertThrows(IllegalArgumentException.class, () -> textIndexService.search("../secret", "alpha", 3));
+    }
+
+    @Test
+    void testExpiredIndexesAreRemovedFromDisk() throws IOException {
+        String indexId = textIndexService.index(pdf("alpha")).indexId();
+        Path file = indexDir.resolve(indexId + ".idx");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - Duration.ofDays(8).toMillis()));
+
+        textIndexService.evictExpired();
+
+        assertFalse(Files.exists(file));
+    }
+
+    private TextIndexService newService() {
+        return new TextIndexService(textExtractionService, ServiceTestSupport.documentSource(),
+                DataSize.ofMegabytes(8), indexDir.toString(), Duration.ofDays(7), new SimpleMeterRegistry());
+    }
+
+    private static MockMultipartFile pdf(String... pageTexts) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (String pageText : pageTexts) {
+                PDPage page = new PDPage(PDRectangle.A6);
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                    content.newLineAtOffset(20, 380);
+                    content.showText(pageText);
+                    content.endText();
+                }
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            return new MockMultipartFile("pdfFile", "test.pdf", "application/pdf", baos.toByteArray());
+        }
+    }
+}
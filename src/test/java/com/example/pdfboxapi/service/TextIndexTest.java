@@ -0,0 +1,75 @@
+package com.example.pdfboxapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TextIndex
+ */
+public class TextIndexTest {
+
+    private final TextIndex index = TextIndex.build(List.of(
+            "The quick brown fox\njumps over the lazy dog.\n",
+            "Nothing to see here.\n",
+            "A brown dog, another Brown DOG and a fox.\n"));
+
+    @Test
+    void testSearchMatchesAllTermsIgnoringCase() {
+        List<TextIndex.Hit> hits = index.search("Brown dog", 10);
+
+        assertEquals(2, hits.size());
+        assertEquals(1, hits.get(0).page());
+        assertEquals(2, hits.get(0).matches());
+        assertEquals(3, hits.get(1).page());
+        assertEquals(4, hits.get(1).matches());
+    }
+
+    @Test
+    void testSearchReturnsNothingForMissingTerm() {
+        assertTrue(index.search("fox unicorn", 10).isEmpty());
+    }
+
+    @Test
+    void testSnippetsSurroundMatches() {
+        List<TextIndex.Hit> hits = index.search("lazy", 10);
+
+        assertEquals(1, hits.size());
+        assertEquals(List.of("The quick brown fox jumps over the lazy dog."), hits.get(0).snippets());
+    }
+
+    @Test
+    void testSnippetsAreLimited() {
+        List<TextIndex.Hit> hits = index.search("brown", 1);
+
+        assertEquals(1, hits.get(1).snippets().size());
+        assertEquals(2, hits.get(1).matches());
+    }
+
+    @Test
+    void testQueryWithoutTermsIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> index.search(" ,.; ", 3));
+    }
+
+    @Test
+    void testIndexRoundTrips() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        index.writeTo(baos);
+
+        TextIndex read = TextIndex.readFrom(new ByteArrayInputStream(baos.toByteArray()));
+
+        assertEquals(index.getPageCount(), read.getPageCount());
+        assertEquals(index.getTermCount(), read.getTermCount());
+        assertEquals(index.search("brown dog", 5), read.search("brown dog", 5));
+    }
+
+    @Test
+    void testReadRejectsOtherData() {
+        assertThrows(IOException.class, () -> TextIndex.readFrom(new ByteArrayInputStream(new byte[] {1, 2, 3, 4})));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.pdfboxapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ThumbnailCache
+ */
+public class ThumbnailCacheTest {
+
+    private final ThumbnailCache thumbnailCache = new ThumbnailCache(DataSize.ofBytes(300), new SimpleMeterRegistry());
+
+    @Test
+    void testGetReturnsStoredThumbnail() {
+        byte[] thumbnail = new byte[100];
+        thumbnailCache.put("a", thumbnail);
+
+        assertSame(thumbnail, thumbnailCache.get("a"));
+        assertNull(thumbnailCache.get("b"));
+        assertEquals(100, thumbnailCache.getWeight());
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsEvicted() {
+        thumbnailCache.put("a", new byte[100]);
+        thumbnailCache.put("b", new byte[100]);
+        thumbnailCache.put("c", new byte[100]);
+        // Touch "a" so "b" becomes the eldest
+        thumbnailCache.get("a");
+
+        thumbnailCache.put("d", new byte[100]);
+
+        assertNotNull(thumbnailCache.get("a"));
+        assertNull(thumbnailCache.get("b"));
+        assertEquals(3, thumbnailCache.size());
+        assertEquals(300, thumbnailCache.getWeight());
+    }
+
+    @Test
+    void testOversizedThumbnailIsNotCached() {
+        thumbnailCache.put("a", new byte[400]);
+
+        assertNull(thumbnailCache.get("a"));
+        assertEquals(0, thumbnailCache.getWeight());
+    }
+}